@@ -1,41 +1,126 @@
 package com.aref.cloud_assistant_mcp.config;
 
+import com.aref.cloud_assistant_mcp.service.tools.Ec2RegionClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.ec2.Ec2Client;
-import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.sts.StsClient;
 
 import java.time.Duration;
 
 @Configuration
 public class AWSConfig {
 
+    @Value("${aws.client.role-arn:}")
+    private String roleArn;
+
+    /**
+     * Shared non-blocking transport: tool calls wait on the event loop instead of holding a thread each.
+     * Netty keeps one pool per endpoint, so every (service, region) gets up to max-concurrency connections.
+     */
     @Bean
-    public Ec2Client ec2Client() {
-        Region region = Region.of(System.getProperty("AWS_REGION",
-                System.getenv().getOrDefault("AWS_REGION", "us-east-1")));
+    public SdkAsyncHttpClient awsAsyncHttpClient(@Value("${aws.client.max-concurrency:200}") int maxConcurrency,
+                                                 @Value("${aws.client.max-pending-acquires:10000}") int maxPendingAcquires,
+                                                 @Value("${aws.client.acquisition-timeout-ms:10000}") long acquisitionTimeoutMs,
+                                                 @Value("${aws.client.connection-timeout-ms:2000}") long connectionTimeoutMs,
+                                                 @Value("${aws.client.read-timeout-seconds:30}") long readTimeoutSeconds,
+                                                 @Value("${aws.client.idle-timeout-seconds:60}") long idleTimeoutSeconds,
+                                                 @Value("${aws.client.connection-ttl-seconds:300}") long connectionTtlSeconds) {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConcurrency)
+                .maxPendingConnectionAcquires(maxPendingAcquires)
+                .connectionAcquisitionTimeout(Duration.ofMillis(acquisitionTimeoutMs))
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .readTimeout(Duration.ofSeconds(readTimeoutSeconds))
+                .connectionMaxIdleTime(Duration.ofSeconds(idleTimeoutSeconds))
+                .connectionTimeToLive(Duration.ofSeconds(connectionTtlSeconds))
+                .useIdleConnectionReaper(true)
+                .tcpKeepAlive(true)
+                .build();
+    }
 
-        return Ec2Client.builder()
-                .region(region)
-                .credentialsProvider(DefaultCredentialsProvider.builder().build())
-                .overrideConfiguration(ClientOverrideConfiguration.builder()
-                        .apiCallAttemptTimeout(Duration.ofSeconds(30))
-                        .apiCallTimeout(Duration.ofMinutes(2))
-                        .build())
+    @Bean
+    public ClientOverrideConfiguration awsOverrideConfiguration(@Value("${aws.client.max-attempts:5}") int maxAttempts) {
+        // Adaptive retries also rate-limit the client once AWS starts throttling it.
+        return ClientOverrideConfiguration.builder()
+                .apiCallAttemptTimeout(Duration.ofSeconds(30))
+                .apiCallTimeout(Duration.ofMinutes(2))
+                .retryStrategy(AwsRetryStrategy.adaptiveRetryStrategy().toBuilder().maxAttempts(maxAttempts).build())
                 .build();
     }
 
     @Bean
-    public S3Client s3Client() {
-        return S3Client.create();
+    public AwsClientRegistry awsClientRegistry(SdkAsyncHttpClient awsAsyncHttpClient,
+                                               StsClient stsClient,
+                                               ClientOverrideConfiguration awsOverrideConfiguration,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${aws.client.role-session-name:cloud-assistant}") String roleSessionName) {
+        return new AwsClientRegistry(awsAsyncHttpClient, stsClient, DefaultCredentialsProvider.builder().build(),
+                awsOverrideConfiguration, meterRegistry, roleSessionName);
+    }
+
+    // The clients below belong to the registry, which closes them.
+
+    @Bean(destroyMethod = "")
+    public Ec2AsyncClient ec2Client(AwsClientRegistry awsClientRegistry) {
+        return awsClientRegistry.ec2(roleArn, defaultRegion().id());
     }
 
     @Bean
-    public S3Presigner s3Presigner() {
-        return S3Presigner.create();
+    public Ec2RegionClients ec2RegionClients(Ec2AsyncClient ec2Client,
+                                             AwsClientRegistry awsClientRegistry,
+                                             @Value("${aws.ec2.region-timeout-seconds:10}") long regionTimeoutSeconds) {
+        return new Ec2RegionClients(ec2Client, region -> awsClientRegistry.ec2(roleArn, region),
+                Duration.ofSeconds(regionTimeoutSeconds));
+    }
+
+    @Bean(destroyMethod = "")
+    public S3AsyncClient s3Client(AwsClientRegistry awsClientRegistry) {
+        return awsClientRegistry.s3(roleArn, defaultRegion().id());
+    }
+
+    @Bean(destroyMethod = "")
+    public S3Presigner s3Presigner(AwsClientRegistry awsClientRegistry) {
+        return awsClientRegistry.s3Presigner(roleArn, defaultRegion().id());
+    }
+
+    /**
+     * Base STS client: resolves the account for cache keys and assumes the configured roles.
+     */
+    @Bean
+    public StsClient stsClient(ClientOverrideConfiguration awsOverrideConfiguration,
+                               MeterRegistry meterRegistry,
+                               @Value("${aws.client.sts.max-connections:20}") int maxConnections) {
+        return StsClient.builder()
+                .region(defaultRegion())
+                .credentialsProvider(DefaultCredentialsProvider.builder().build())
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections)
+                        .connectionTimeout(Duration.ofSeconds(2))
+                        .socketTimeout(Duration.ofSeconds(30))
+                        .connectionMaxIdleTime(Duration.ofSeconds(60))
+                        .tcpKeepAlive(true))
+                .overrideConfiguration(awsOverrideConfiguration.toBuilder()
+                        .addMetricPublisher(new MicrometerMetricPublisher(meterRegistry,
+                                Tags.of("account", "default", "region", defaultRegion().id())))
+                        .build())
+                .build();
+    }
+
+    private static Region defaultRegion() {
+        return Region.of(System.getProperty("AWS_REGION",
+                System.getenv().getOrDefault("AWS_REGION", "us-east-1")));
     }
 }
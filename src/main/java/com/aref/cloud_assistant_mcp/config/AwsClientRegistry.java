@@ -0,0 +1,115 @@
+package com.aref.cloud_assistant_mcp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.core.client.builder.SdkAsyncClientBuilder;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.sts.StsClient;
+import software.amazon.awssdk.services.sts.auth.StsAssumeRoleCredentialsProvider;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * AwsClientRegistry
+ * ------------------------------
+ * Builds AWS clients lazily per (role, region) and keeps them for the life of the application, so tool
+ * calls reuse warm connections instead of creating clients. A null role means the default credential
+ * chain; any other role is assumed through STS, with the session refreshed in the background. All
+ * clients share the pooled async transport, the retry configuration and a metrics publisher tagged
+ * with their role and region.
+ */
+public class AwsClientRegistry implements AutoCloseable {
+
+    private static final String DEFAULT_ACCOUNT = "default";
+
+    private final SdkAsyncHttpClient httpClient;
+    private final StsClient sts;
+    private final AwsCredentialsProvider defaultCredentials;
+    private final ClientOverrideConfiguration overrideConfiguration;
+    private final MeterRegistry meterRegistry;
+    private final String roleSessionName;
+
+    private final Map<ClientKey, SdkAutoCloseable> clients = new ConcurrentHashMap<>();
+    private final Map<String, StsAssumeRoleCredentialsProvider> roleCredentials = new ConcurrentHashMap<>();
+
+    public AwsClientRegistry(SdkAsyncHttpClient httpClient,
+                             StsClient sts,
+                             AwsCredentialsProvider defaultCredentials,
+                             ClientOverrideConfiguration overrideConfiguration,
+                             MeterRegistry meterRegistry,
+                             String roleSessionName) {
+        this.httpClient = httpClient;
+        this.sts = sts;
+        this.defaultCredentials = defaultCredentials;
+        this.overrideConfiguration = overrideConfiguration;
+        this.meterRegistry = meterRegistry;
+        this.roleSessionName = roleSessionName;
+    }
+
+    public Ec2AsyncClient ec2(String roleArn, String region) {
+        return client(new ClientKey("ec2", roleArn, region),
+                key -> configure(Ec2AsyncClient.builder(), key).build());
+    }
+
+    public S3AsyncClient s3(String roleArn, String region) {
+        return client(new ClientKey("s3", roleArn, region),
+                key -> configure(S3AsyncClient.builder(), key).build());
+    }
+
+    public S3Presigner s3Presigner(String roleArn, String region) {
+        return client(new ClientKey("s3-presigner", roleArn, region),
+                key -> S3Presigner.builder()
+                        .region(Region.of(key.region()))
+                        .credentialsProvider(credentials(key.roleArn()))
+                        .build());
+    }
+
+    @Override
+    public void close() {
+        clients.values().forEach(SdkAutoCloseable::close);
+        clients.clear();
+        roleCredentials.values().forEach(StsAssumeRoleCredentialsProvider::close);
+        roleCredentials.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <C extends SdkAutoCloseable> C client(ClientKey key, Function<ClientKey, C> factory) {
+        return (C) clients.computeIfAbsent(key, factory);
+    }
+
+    private <B extends AwsClientBuilder<B, ?> & SdkAsyncClientBuilder<B, ?>> B configure(B builder, ClientKey key) {
+        Tags tags = Tags.of("account", key.roleArn() == null ? DEFAULT_ACCOUNT : key.roleArn(), "region", key.region());
+        return builder
+                .region(Region.of(key.region()))
+                .credentialsProvider(credentials(key.roleArn()))
+                .httpClient(httpClient)
+                .overrideConfiguration(overrideConfiguration.toBuilder()
+                        .addMetricPublisher(new MicrometerMetricPublisher(meterRegistry, tags))
+                        .build());
+    }
+
+    private AwsCredentialsProvider credentials(String roleArn) {
+        if (roleArn == null) return defaultCredentials;
+        return roleCredentials.computeIfAbsent(roleArn, role -> StsAssumeRoleCredentialsProvider.builder()
+                .stsClient(sts)
+                .refreshRequest(r -> r.roleArn(role).roleSessionName(roleSessionName))
+                .asyncCredentialUpdateEnabled(true)
+                .build());
+    }
+
+    private record ClientKey(String service, String roleArn, String region) {
+        private ClientKey {
+            if (roleArn != null && roleArn.isBlank()) roleArn = null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.aref.cloud_assistant_mcp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MicrometerMetricPublisher
+ * ------------------------------
+ * Forwards the SDK's per-call metrics of one client to Micrometer: call latency by operation and outcome,
+ * retries, and the state of the connection pool (leased, pending, available, max) as the last call saw it.
+ */
+public class MicrometerMetricPublisher implements MetricPublisher {
+
+    private final MeterRegistry meterRegistry;
+    private final Tags tags;
+    private final Map<String, AtomicInteger> poolGauges = new ConcurrentHashMap<>();
+
+    public MicrometerMetricPublisher(MeterRegistry meterRegistry, Tags tags) {
+        this.meterRegistry = meterRegistry;
+        this.tags = tags;
+    }
+
+    @Override
+    public void publish(MetricCollection metrics) {
+        Tags callTags = tags
+                .and("service", String.valueOf(first(metrics, CoreMetric.SERVICE_ID)))
+                .and("operation", String.valueOf(first(metrics, CoreMetric.OPERATION_NAME)));
+
+        Duration duration = first(metrics, CoreMetric.API_CALL_DURATION);
+        if (duration != null) {
+            String outcome = Boolean.TRUE.equals(first(metrics, CoreMetric.API_CALL_SUCCESSFUL)) ? "success" : "error";
+            Timer.builder("aws.client.calls").tags(callTags).tag("outcome", outcome).register(meterRegistry).record(duration);
+        }
+        Integer retries = first(metrics, CoreMetric.RETRY_COUNT);
+        if (retries != null && retries > 0) meterRegistry.counter("aws.client.retries", callTags).increment(retries);
+
+        Tags poolTags = tags.and("service", String.valueOf(first(metrics, CoreMetric.SERVICE_ID)));
+        metrics.childrenWithName("ApiCallAttempt")
+                .flatMap(attempt -> attempt.childrenWithName("HttpClient"))
+                .reduce((earlier, later) -> later)
+                .ifPresent(http -> {
+                    pool("aws.client.pool.leased", poolTags, first(http, HttpMetric.LEASED_CONCURRENCY));
+                    pool("aws.client.pool.pending", poolTags, first(http, HttpMetric.PENDING_CONCURRENCY_ACQUIRES));
+                    pool("aws.client.pool.available", poolTags, first(http, HttpMetric.AVAILABLE_CONCURRENCY));
+                    pool("aws.client.pool.max", poolTags, first(http, HttpMetric.MAX_CONCURRENCY));
+                });
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void pool(String name, Tags poolTags, Integer value) {
+        if (value == null) return;
+        poolGauges.computeIfAbsent(name + poolTags, key -> meterRegistry.gauge(name, poolTags, new AtomicInteger()))
+                .set(value);
+    }
+
+    private static <T> T first(MetricCollection metrics, SdkMetric<T> metric) {
+        List<T> values = metrics.metricValues(metric);
+        return values.isEmpty() ? null : values.getFirst();
+    }
+}
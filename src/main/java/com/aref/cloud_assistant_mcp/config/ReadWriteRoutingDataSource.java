@@ -0,0 +1,17 @@
+package com.aref.cloud_assistant_mcp.config;
+
+import com.aref.cloud_assistant_mcp.repository.ReplicaReadRouting;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * ReadWriteRoutingDataSource
+ * ------------------------------
+ * Hands out replica connections for reads routed by {@link ReplicaReadRouting}, primary connections otherwise.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ReplicaReadRouting.current();
+    }
+}
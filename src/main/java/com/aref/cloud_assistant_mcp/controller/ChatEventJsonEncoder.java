@@ -0,0 +1,55 @@
+package com.aref.cloud_assistant_mcp.controller;
+
+import com.aref.cloud_assistant_mcp.dto.ChatEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.StringWriter;
+
+/**
+ * ChatEventJsonEncoder
+ * ------------------------------
+ * Serializes {@link ChatEvent}s for the SSE endpoint with a shared streaming JSON generator
+ * factory, writing fields directly instead of building an intermediate JSON tree.
+ * Null fields are left out, as the JSONObject payloads this replaced did.
+ */
+@Component
+public class ChatEventJsonEncoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public String encode(ChatEvent event) {
+        StringWriter out = new StringWriter(64);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("type", event.type().getValue());
+            switch (event) {
+                case ChatEvent.MessageEvent e -> writeString(json, "message", e.message());
+                case ChatEvent.ToolCallingEvent e -> {
+                    writeString(json, "toolId", e.toolId());
+                    writeString(json, "toolName", e.toolName());
+                    writeString(json, "arguments", e.arguments());
+                    writeString(json, "toolResponse", e.toolResponse());
+                    json.writeBooleanField("completed", e.completed());
+                }
+                case ChatEvent.ConversationMetadataEvent e -> {
+                    writeString(json, "conversationId", e.conversationId());
+                    writeString(json, "title", e.title());
+                    json.writeBooleanField("titleUpdate", e.titleUpdate());
+                }
+                case ChatEvent.ErrorEvent e -> writeString(json, "message", e.message());
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static void writeString(JsonGenerator json, String name, String value) throws IOException {
+        if (value != null) json.writeStringField(name, value);
+    }
+}
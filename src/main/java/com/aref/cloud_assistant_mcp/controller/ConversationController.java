@@ -1,31 +1,44 @@
 package com.aref.cloud_assistant_mcp.controller;
 
+import com.aref.cloud_assistant_mcp.dto.ChatEvent;
 import com.aref.cloud_assistant_mcp.dto.ConversationCreateDto;
 import com.aref.cloud_assistant_mcp.dto.ConversationDto;
+import com.aref.cloud_assistant_mcp.dto.CursorPageDto;
 import com.aref.cloud_assistant_mcp.dto.MessageDto;
+import com.aref.cloud_assistant_mcp.dto.SearchHitDto;
 import com.aref.cloud_assistant_mcp.service.ConversationService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 
+import java.util.List;
+
 
 @RestController
 @RequestMapping("v1/conversation")
 public class ConversationController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final ConversationService conversationService;
+    private final ChatEventJsonEncoder chatEventJsonEncoder;
 
-    public ConversationController(ConversationService conversationService) {
+    public ConversationController(ConversationService conversationService, ChatEventJsonEncoder chatEventJsonEncoder) {
         this.conversationService = conversationService;
+        this.chatEventJsonEncoder = chatEventJsonEncoder;
     }
 
     @PostMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<String> create(@RequestBody ConversationCreateDto conversationCreateDto) {
-        return conversationService.create(conversationCreateDto);
+        return conversationService.create(conversationCreateDto)
+                .onErrorResume(e -> Flux.just(new ChatEvent.ErrorEvent("Something went wrong. Please try again.")))
+                .map(chatEventJsonEncoder::encode);
     }
 
     @GetMapping
@@ -34,9 +47,55 @@ public class ConversationController {
     }
 
     @GetMapping("/{conversationId}/messages")
-    public Page<MessageDto> getMessages(@PathVariable String conversationId, Pageable page) {
+    public Page<MessageDto> getMessages(@AuthenticationPrincipal User user,
+                                        @PathVariable String conversationId,
+                                        Pageable page) {
+        requireOwner(user, conversationId);
         return conversationService.getMessages(conversationId, page);
     }
 
+    @GetMapping("/scroll")
+    public CursorPageDto<ConversationDto> scrollConversations(@AuthenticationPrincipal User user,
+                                                              @RequestParam(required = false) String after,
+                                                              @RequestParam(defaultValue = "20") int size) {
+        try {
+            return conversationService.getConversations(user.getUsername(), after, pageSize(size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{conversationId}/messages/scroll")
+    public CursorPageDto<MessageDto> scrollMessages(@AuthenticationPrincipal User user,
+                                                    @PathVariable String conversationId,
+                                                    @RequestParam(required = false) String after,
+                                                    @RequestParam(defaultValue = "50") int size) {
+        requireOwner(user, conversationId);
+        try {
+            return conversationService.getMessages(conversationId, after, pageSize(size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/search")
+    public List<SearchHitDto> search(@AuthenticationPrincipal User user,
+                                     @RequestParam("q") String query,
+                                     @RequestParam(defaultValue = "20") int size) {
+        return conversationService.search(user.getUsername(), query, pageSize(size));
+    }
+
+    /**
+     * Answers 404 rather than 403 for someone else's conversation, so conversation ids cannot be probed.
+     */
+    private void requireOwner(User user, String conversationId) {
+        if (!conversationService.isOwner(user.getUsername(), conversationId))
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+    }
+
+    private static int pageSize(int size) {
+        return Math.clamp(size, 1, MAX_PAGE_SIZE);
+    }
+
 
 }
@@ -0,0 +1,44 @@
+package com.aref.cloud_assistant_mcp.dto;
+
+/**
+ * ChatEvent
+ * ------------------------------
+ * Typed events emitted by the chat stream. They flow through the Flux as objects and are
+ * only serialized to JSON at the SSE boundary.
+ */
+public sealed interface ChatEvent {
+
+    ResponseType type();
+
+    record MessageEvent(String message) implements ChatEvent {
+        @Override
+        public ResponseType type() {
+            return ResponseType.MESSAGE;
+        }
+    }
+
+    record ToolCallingEvent(String toolId, String toolName, String arguments, String toolResponse) implements ChatEvent {
+        @Override
+        public ResponseType type() {
+            return ResponseType.TOOL_CALLING;
+        }
+
+        public boolean completed() {
+            return toolResponse != null;
+        }
+    }
+
+    record ConversationMetadataEvent(String conversationId, String title, boolean titleUpdate) implements ChatEvent {
+        @Override
+        public ResponseType type() {
+            return ResponseType.CONVERSATION_DETAIL_METADATA;
+        }
+    }
+
+    record ErrorEvent(String message) implements ChatEvent {
+        @Override
+        public ResponseType type() {
+            return ResponseType.ERROR;
+        }
+    }
+}
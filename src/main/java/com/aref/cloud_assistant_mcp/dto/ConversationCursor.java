@@ -0,0 +1,32 @@
+package com.aref.cloud_assistant_mcp.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * ConversationCursor
+ * ------------------------------
+ * Opaque keyset position in a user's conversation list: the (lastActivityAt, id) of the last conversation returned.
+ */
+public record ConversationCursor(LocalDateTime lastActivityAt, String id) {
+
+    public static ConversationCursor of(ConversationDto conversation) {
+        return new ConversationCursor(conversation.getLastActivityAt(), conversation.getConversationId());
+    }
+
+    public String encode() {
+        String raw = lastActivityAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ConversationCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('_');
+            return new ConversationCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package com.aref.cloud_assistant_mcp.dto;
 
+import java.time.LocalDateTime;
+
 public class ConversationDto {
     private String conversationId;
     private String title;
+    private LocalDateTime lastActivityAt;
 
     public ConversationDto(String conversationId, String title) {
         this.conversationId = conversationId;
         this.title = title;
     }
 
+    public ConversationDto(String conversationId, String title, LocalDateTime lastActivityAt) {
+        this(conversationId, title);
+        this.lastActivityAt = lastActivityAt;
+    }
+
     public String getConversationId() {
         return conversationId;
     }
@@ -16,4 +24,8 @@ public class ConversationDto {
     public String getTitle() {
         return title;
     }
+
+    public LocalDateTime getLastActivityAt() {
+        return lastActivityAt;
+    }
 }
@@ -0,0 +1,27 @@
+package com.aref.cloud_assistant_mcp.dto;
+
+import java.util.List;
+
+public class CursorPageDto<T> {
+
+    private final List<T> items;
+
+    private final String nextCursor;
+
+    public CursorPageDto(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
@@ -1,8 +1,13 @@
 package com.aref.cloud_assistant_mcp.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import dev.langchain4j.data.message.ChatMessageType;
 
+import java.time.LocalDateTime;
+
 public class MessageDto {
+    private Long id;
+
     private String conversationId;
 
     private String content;
@@ -15,7 +20,13 @@ public class MessageDto {
 
     private String toolResponse;
 
-    public MessageDto(String conversationId, String content, ChatMessageType type, String toolName, String toolId, String toolResponse) {
+    private String toolExecutionRequests;
+
+    private LocalDateTime timestamp;
+
+    private String chatId;
+
+    public MessageDto(String conversationId, String content, ChatMessageType type, String toolId, String toolName, String toolResponse) {
         this.conversationId = conversationId;
         this.content = content;
         this.type = type;
@@ -24,6 +35,28 @@ public class MessageDto {
         this.toolResponse = toolResponse;
     }
 
+    public MessageDto(Long id, String conversationId, String content, ChatMessageType type, String toolId, String toolName,
+                      String toolResponse, String toolExecutionRequests, LocalDateTime timestamp) {
+        this(conversationId, content, type, toolId, toolName, toolResponse);
+        this.id = id;
+        this.toolExecutionRequests = toolExecutionRequests;
+        this.timestamp = timestamp;
+    }
+
+    public MessageDto(Long id, String conversationId, String content, ChatMessageType type, String toolId, String toolName,
+                      String toolResponse, String toolExecutionRequests, LocalDateTime timestamp, String chatId) {
+        this(id, conversationId, content, type, toolId, toolName, toolResponse, toolExecutionRequests, timestamp);
+        this.chatId = chatId;
+    }
+
+    public MessageDto withToolResponse(String toolResponse) {
+        return new MessageDto(id, conversationId, content, type, toolId, toolName, toolResponse, toolExecutionRequests, timestamp, chatId);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
     public String getConversationId() {
         return conversationId;
     }
@@ -47,4 +80,17 @@ public class MessageDto {
     public String getToolId() {
         return toolId;
     }
+
+    public String getToolExecutionRequests() {
+        return toolExecutionRequests;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonIgnore
+    public String getChatId() {
+        return chatId;
+    }
 }
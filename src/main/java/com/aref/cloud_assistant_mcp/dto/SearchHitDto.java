@@ -0,0 +1,43 @@
+package com.aref.cloud_assistant_mcp.dto;
+
+import java.time.LocalDateTime;
+
+public class SearchHitDto {
+    private final String conversationId;
+    private final String title;
+    private final String snippet;
+    private final LocalDateTime timestamp;
+    private final double score;
+
+    public SearchHitDto(String conversationId, String title, String snippet, LocalDateTime timestamp, double score) {
+        this.conversationId = conversationId;
+        this.title = title;
+        this.snippet = snippet;
+        this.timestamp = timestamp;
+        this.score = score;
+    }
+
+    public SearchHitDto withTitle(String title) {
+        return new SearchHitDto(conversationId, title, snippet, timestamp, score);
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,58 @@
+package com.aref.cloud_assistant_mcp.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity(name = "conversation")
+@Table(name = "conversation", indexes = {
+        @Index(name = "conversation_username_last_activity_idx", columnList = "username, last_activity_at, id, title")
+})
+public class ChatConversation {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "username", nullable = false, columnDefinition = "VARCHAR(191)")
+    private String username;
+
+    @Column(name = "title", nullable = false, columnDefinition = "VARCHAR(191)")
+    private String title;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_activity_at", nullable = false)
+    private LocalDateTime lastActivityAt;
+
+    @Column(name = "message_count", nullable = false)
+    private long messageCount;
+
+    protected ChatConversation() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getLastActivityAt() {
+        return lastActivityAt;
+    }
+
+    public long getMessageCount() {
+        return messageCount;
+    }
+}
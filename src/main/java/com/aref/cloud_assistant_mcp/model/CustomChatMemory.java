@@ -9,8 +9,11 @@ import java.time.LocalDateTime;
 @Table(name = "chatmemory")
 public class CustomChatMemory {
 
+    // Table-backed pooled ids let Hibernate batch inserts; IDENTITY forces one round-trip per row.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "chatmemory_id")
+    @TableGenerator(name = "chatmemory_id", table = "id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "chatmemory", allocationSize = 50)
     private Long id;
 
     @Column(name = "conversation_id", nullable = false, length = 36)
@@ -125,4 +128,36 @@ public class CustomChatMemory {
         return id;
     }
 
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getToolExecutionRequests() {
+        return toolExecutionRequests;
+    }
+
+    public String getToolId() {
+        return toolId;
+    }
+
+    public String getToolName() {
+        return toolName;
+    }
+
+    public String getToolResponse() {
+        return toolResponse;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
 }
@@ -0,0 +1,206 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.dto.MessageDto;
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * ChatHistoryCache
+ * ------------------------------
+ * Bounded LRU cache of the most recent messages of each conversation (newest first), weighted by
+ * message size. Entries are updated in place as rows are written, so follow-up prompts on the node
+ * that produced the history do not read it back from the database. A load runs outside the lock and is
+ * cached only if no row of its conversation was written meanwhile. Entries expire after a TTL to bound
+ * staleness when other nodes write to the same conversation.
+ */
+@Component
+public class ChatHistoryCache {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Fill token of the load in flight per conversation; a write removes it, so the load is not cached.
+    private final Map<String, Long> loading = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final int windowSize;
+    private final long maxWeight;
+    private final long ttlMs;
+    private long weight;
+    private long fills;
+
+    public ChatHistoryCache(MeterRegistry meterRegistry,
+                            @Value("${chat.history.max-messages:200}") int windowSize,
+                            @Value("${chat.history.cache.max-chars:33554432}") long maxWeight,
+                            @Value("${chat.history.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.windowSize = windowSize;
+        this.maxWeight = maxWeight;
+        this.ttlMs = ttlSeconds * 1000;
+
+        FunctionCounter.builder("chat.history.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("chat.history.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("chat.history.cache.conversations", this, ChatHistoryCache::size).register(meterRegistry);
+        Gauge.builder("chat.history.cache.chars", this, ChatHistoryCache::weight).register(meterRegistry);
+    }
+
+    public List<MessageDto> getRecent(String conversationId, int limit, Supplier<List<MessageDto>> loader) {
+        long fill;
+        synchronized (this) {
+            if (limit <= windowSize) {
+                Entry entry = entries.get(conversationId);
+                if (entry != null && !entry.isExpired(ttlMs)) {
+                    hits.incrementAndGet();
+                    return entry.messages.stream().limit(limit).map(CachedMessage::dto).toList();
+                }
+                if (entry != null) remove(conversationId);
+            }
+            fill = ++fills;
+            loading.put(conversationId, fill);
+        }
+
+        misses.incrementAndGet();
+        List<MessageDto> loaded = null;
+        try {
+            loaded = loader.get();
+            return loaded;
+        } finally {
+            // Only a load that holds the whole window, or the whole conversation, can serve later reads.
+            boolean complete = loaded != null && (limit >= windowSize || loaded.size() < limit);
+            put(conversationId, fill, complete ? loaded : null);
+        }
+    }
+
+    public synchronized void onSaved(CustomChatMemory entity) {
+        loading.remove(entity.getConversationId());
+        Entry entry = entries.get(entity.getConversationId());
+        if (entry == null) return;
+
+        CachedMessage message = new CachedMessage(entity.getChatId(), toDto(entity, entity.getText()));
+        ListIterator<CachedMessage> position = entry.messages.listIterator();
+        while (position.hasNext()) {
+            LocalDateTime timestamp = position.next().dto().getTimestamp();
+            if (timestamp == null || !timestamp.isAfter(entity.getTimestamp())) {
+                position.previous();
+                break;
+            }
+        }
+        position.add(message);
+        entry.weight += message.weight();
+        weight += message.weight();
+
+        while (entry.messages.size() > windowSize) {
+            CachedMessage oldest = entry.messages.removeLast();
+            entry.weight -= oldest.weight();
+            weight -= oldest.weight();
+        }
+        evictOverweight();
+    }
+
+    public synchronized void onTextAppended(CustomChatMemory entity) {
+        loading.remove(entity.getConversationId());
+        Entry entry = entries.get(entity.getConversationId());
+        String chatId = entity.getChatId();
+        if (entry == null || chatId == null) return;
+
+        ListIterator<CachedMessage> it = entry.messages.listIterator();
+        while (it.hasNext()) {
+            CachedMessage cached = it.next();
+            if (chatId.equals(cached.chatId())) {
+                MessageDto dto = cached.dto();
+                String content = (dto.getContent() == null ? "" : dto.getContent()) + entity.getText();
+                CachedMessage updated = new CachedMessage(chatId, new MessageDto(dto.getId(), dto.getConversationId(),
+                        content, dto.getType(), dto.getToolId(), dto.getToolName(), dto.getToolResponse(),
+                        dto.getToolExecutionRequests(), dto.getTimestamp(), chatId));
+                it.set(updated);
+                entry.weight += updated.weight() - cached.weight();
+                weight += updated.weight() - cached.weight();
+            }
+        }
+        evictOverweight();
+    }
+
+    public synchronized void invalidate(String conversationId) {
+        loading.remove(conversationId);
+        remove(conversationId);
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    private synchronized void put(String conversationId, long fill, List<MessageDto> newestFirst) {
+        // A row written since the load started is missing from it; the next read loads again instead.
+        if (!loading.remove(conversationId, fill) || newestFirst == null) return;
+        remove(conversationId);
+        Entry entry = new Entry();
+        newestFirst.stream().limit(windowSize).forEach(dto -> {
+            CachedMessage message = new CachedMessage(dto.getChatId(), dto);
+            entry.messages.addLast(message);
+            entry.weight += message.weight();
+        });
+        entries.put(conversationId, entry);
+        weight += entry.weight;
+        evictOverweight();
+    }
+
+    private void remove(String conversationId) {
+        Entry removed = entries.remove(conversationId);
+        if (removed != null) weight -= removed.weight;
+    }
+
+    private void evictOverweight() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            weight -= it.next().getValue().weight;
+            it.remove();
+        }
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized long weight() {
+        return weight;
+    }
+
+    private static MessageDto toDto(CustomChatMemory entity, String text) {
+        return new MessageDto(entity.getId(), entity.getConversationId(), text, entity.getType(), entity.getToolId(),
+                entity.getToolName(), entity.getToolResponse(), entity.getToolExecutionRequests(), entity.getTimestamp(),
+                entity.getChatId());
+    }
+
+    private record CachedMessage(String chatId, MessageDto dto) {
+        long weight() {
+            return 64L + length(dto.getContent()) + length(dto.getToolResponse()) + length(dto.getToolExecutionRequests());
+        }
+
+        private static long length(String s) {
+            return s == null ? 0 : s.length();
+        }
+    }
+
+    private static final class Entry {
+        private final LinkedList<CachedMessage> messages = new LinkedList<>();
+        private final long createdAt = System.currentTimeMillis();
+        private long weight;
+
+        private boolean isExpired(long ttlMs) {
+            return System.currentTimeMillis() - createdAt > ttlMs;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.model.ChatConversation;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ChatMemoryArchiveRepository extends Repository<ChatConversation, String> {
+
+    @Query(value = """
+            SELECT id FROM conversation WHERE archived_at IS NULL AND last_activity_at < :cutoff
+            ORDER BY last_activity_at LIMIT :limit
+    """, nativeQuery = true)
+    List<String> findArchiveCandidates(LocalDateTime cutoff, int limit);
+
+    @Query(value = """
+            SELECT COUNT(*) FROM conversation WHERE id = :conversationId AND archived_at IS NOT NULL
+    """, nativeQuery = true)
+    long countArchived(String conversationId);
+
+    @Query(value = """
+            UPDATE conversation SET archived_at = CURRENT_TIMESTAMP
+            WHERE id = :conversationId AND archived_at IS NULL AND last_activity_at < :cutoff
+    """, nativeQuery = true)
+    @Modifying
+    int markArchived(String conversationId, LocalDateTime cutoff);
+
+    @Query(value = """
+            UPDATE conversation SET archived_at = NULL WHERE id = :conversationId AND archived_at IS NOT NULL
+    """, nativeQuery = true)
+    @Modifying
+    int markHot(String conversationId);
+
+    @Query(value = """
+            INSERT INTO chatmemory_archive (id, conversation_id, chat_id, username, title, text, tool_execution_requests,
+                                            type, tool_id, tool_name, tool_response, timestamp)
+            SELECT id, conversation_id, chat_id, username, title, text, tool_execution_requests,
+                   type, tool_id, tool_name, tool_response, timestamp
+            FROM chatmemory WHERE conversation_id = :conversationId
+    """, nativeQuery = true)
+    @Modifying
+    int copyToArchive(String conversationId);
+
+    @Query(value = """
+            INSERT INTO chatmemory (id, conversation_id, chat_id, username, title, text, tool_execution_requests,
+                                    type, tool_id, tool_name, tool_response, timestamp)
+            SELECT id, conversation_id, chat_id, username, title, text, tool_execution_requests,
+                   type, tool_id, tool_name, tool_response, timestamp
+            FROM chatmemory_archive WHERE conversation_id = :conversationId
+    """, nativeQuery = true)
+    @Modifying
+    int copyToHot(String conversationId);
+
+    @Query(value = """
+            DELETE FROM chatmemory WHERE conversation_id = :conversationId
+    """, nativeQuery = true)
+    @Modifying
+    int deleteHot(String conversationId);
+
+    @Query(value = """
+            DELETE FROM chatmemory_archive WHERE conversation_id = :conversationId
+    """, nativeQuery = true)
+    @Modifying
+    int deleteArchived(String conversationId);
+
+    @Query(value = """
+            SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'chatmemory_archive'
+    """, nativeQuery = true)
+    List<String> findArchivePartitions();
+}
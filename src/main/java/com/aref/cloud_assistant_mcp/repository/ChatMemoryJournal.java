@@ -0,0 +1,139 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatMemoryJournal
+ * ------------------------------
+ * Local journal files of the write-behind buffer, one per turn. All file work runs in submission order on
+ * one background thread that keeps each turn's journal open between appends, so the streaming and tool
+ * callback threads that feed the buffer only enqueue and never touch the filesystem.
+ */
+final class ChatMemoryJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMemoryJournal.class);
+
+    static final String SUFFIX = ".jsonl";
+
+    private final Path dir;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("chat-memory-journal").daemon().factory());
+    // Only touched by the writer thread.
+    private final Map<String, BufferedWriter> open = new HashMap<>();
+
+    ChatMemoryJournal(Path dir) {
+        this.dir = dir;
+    }
+
+    Path dir() {
+        return dir;
+    }
+
+    void append(String chatId, String line) {
+        writer.execute(() -> {
+            try {
+                BufferedWriter out = open.get(chatId);
+                if (out == null) {
+                    Files.createDirectories(dir);
+                    out = Files.newBufferedWriter(file(chatId), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    open.put(chatId, out);
+                }
+                out.write(line);
+                out.newLine();
+                out.flush();
+            } catch (IOException e) {
+                log.warn("Could not journal chatId {}: {}", chatId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Moves everything journaled for the turn so far to {@code part}; later appends start a new journal.
+     */
+    void rotate(String chatId, Path part) {
+        writer.execute(() -> {
+            close(chatId);
+            try {
+                if (Files.exists(file(chatId))) Files.move(file(chatId), part, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.warn("Could not rotate journal for chatId {}: {}", chatId, e.getMessage());
+            }
+        });
+    }
+
+    void delete(List<Path> parts) {
+        if (parts.isEmpty()) return;
+        writer.execute(() -> parts.forEach(ChatMemoryJournal::deleteFile));
+    }
+
+    /**
+     * Drops the live journal of a turn whose rows are all written.
+     */
+    void discard(String chatId) {
+        writer.execute(() -> {
+            close(chatId);
+            deleteFile(file(chatId));
+        });
+    }
+
+    /**
+     * Waits until everything submitted so far has reached the files.
+     */
+    void await() {
+        try {
+            writer.submit(() -> {}).get();
+        } catch (Exception e) {
+            throw new IllegalStateException("Chat memory journal writer failed", e);
+        }
+    }
+
+    void shutdown(Duration timeout) {
+        writer.execute(() -> List.copyOf(open.keySet()).forEach(this::close));
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS))
+                log.warn("Chat memory journal writer did not finish within {}", timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    Path file(String chatId) {
+        return dir.resolve(chatId + SUFFIX);
+    }
+
+    private void close(String chatId) {
+        BufferedWriter out = open.remove(chatId);
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.warn("Could not close journal for chatId {}: {}", chatId, e.getMessage());
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete journal {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.dto.MessageDto;
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ChatMemoryStore
+ * ------------------------------
+ * Non-blocking access to chat memory for the streaming path. Implementations must never block the
+ * subscribing thread, so callers can compose these calls into a chat {@code Flux} directly.
+ */
+public interface ChatMemoryStore {
+
+    Mono<List<MessageDto>> findRecentMessages(String conversationId, int limit);
+
+    Mono<Void> saveTurn(List<CustomChatMemory> inserts, List<CustomChatMemory> appended);
+
+    Mono<Set<String>> findExistingChatIds(Collection<String> chatIds);
+
+    /**
+     * Stores the title on the conversation, creating its row if the conversation's first turn is not written yet.
+     */
+    Mono<Void> updateTitle(String conversationId, String username, String title);
+}
@@ -0,0 +1,443 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import com.google.gson.Gson;
+import dev.langchain4j.data.message.ChatMessageType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ChatMemoryWriteBuffer
+ * ------------------------------
+ * Write-behind buffer for one chat turn. The USER row and TOOL_EXECUTION_RESULT rows are staged, and
+ * the streamed text of every agent step is accumulated into one AI row per step, in turn order;
+ * everything is written with one batched insert in one transaction when the turn completes. Turns that
+ * grow past the size limit or outlive the age limit are flushed early. Writes go through the non-blocking
+ * {@link ChatMemoryStore}, one at a time per turn, each taking a snapshot under the turn lock when it
+ * starts; rows and text count as written only once a write succeeded, so a failed flush is retried by the
+ * next one. A completed turn stays in the buffer until all of it is written; the sweeper retries it. Every staged row and append is journaled to a local file by the {@link ChatMemoryJournal}
+ * writer thread; each write rotates the journal and deletes its parts only once it succeeded, so a crashed
+ * node replays unwritten turns on the next start.
+ */
+@Component
+public class ChatMemoryWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMemoryWriteBuffer.class);
+
+    private static final Gson GSON = new Gson();
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ChatMemoryStore chatMemoryStore;
+    private final Map<String, PendingTurn> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("chat-memory-write-behind").daemon().factory());
+
+    private final int maxBufferedChars;
+    private final long maxAgeMs;
+    private final ChatMemoryJournal journal;
+
+    public ChatMemoryWriteBuffer(ChatMemoryStore chatMemoryStore,
+                                 @Value("${chat.memory.write-behind.max-buffered-chars:16384}") int maxBufferedChars,
+                                 @Value("${chat.memory.write-behind.max-age-ms:5000}") long maxAgeMs,
+                                 @Value("${chat.memory.write-behind.journal-dir:${user.home}/.cloud-assistant/chat-journal}") String journalDir) {
+        this.chatMemoryStore = chatMemoryStore;
+        this.maxBufferedChars = maxBufferedChars;
+        this.maxAgeMs = maxAgeMs;
+        this.journal = new ChatMemoryJournal(LocalDirectories.requireWritable(journalDir, "chat.memory.write-behind.journal-dir"));
+
+        long sweepMs = Math.max(100, maxAgeMs / 2);
+        sweeper.scheduleWithFixedDelay(this::flushExpired, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stage(String chatId, CustomChatMemory row) {
+        PendingTurn turn = pending.computeIfAbsent(chatId,
+                id -> new PendingTurn(row.getConversationId(), row.getTitle(), row.getUsername(), id));
+
+        synchronized (turn) {
+            turn.items.add(new StagedRow(row));
+            journal.append(turn.chatId, GSON.toJson(JournalEntry.row(turn, row)));
+        }
+    }
+
+    /**
+     * Appends text of one agent step. Each step (stepId) becomes its own AI row carrying the tool calls it
+     * requested, timestamped when the step is first seen so it sorts before the tool results staged after it.
+     */
+    public void append(String conversationId,
+                       String title,
+                       String username,
+                       String chatId,
+                       String stepId,
+                       String text,
+                       String toolExecutionRequests) {
+        PendingTurn turn = pending.computeIfAbsent(chatId, id -> new PendingTurn(conversationId, title, username, id));
+
+        synchronized (turn) {
+            PendingStep step = turn.step(stepId, LocalDateTime.now(), toolExecutionRequests);
+            if (text != null) step.text.append(text);
+            journal.append(turn.chatId, GSON.toJson(JournalEntry.text(turn, step, text)));
+
+            if (turn.bufferedChars() >= maxBufferedChars) flush(turn);
+        }
+    }
+
+    /**
+     * Flushes what is left of the turn. The returned Mono completes once this attempt has finished; a
+     * failure is logged, never signalled, and the turn stays buffered until the sweeper has written it.
+     */
+    public Mono<Void> complete(String chatId) {
+        PendingTurn turn = pending.get(chatId);
+        if (turn == null) return Mono.empty();
+        synchronized (turn) {
+            turn.completed = true;
+            flush(turn);
+            return turn.writes;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sweeper.shutdownNow();
+        pending.keySet().forEach(chatId -> complete(chatId).block(SHUTDOWN_TIMEOUT));
+        journal.shutdown(SHUTDOWN_TIMEOUT);
+    }
+
+    /**
+     * Waits until the journal writer has caught up, for tests.
+     */
+    void awaitJournal() {
+        journal.await();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void recover() {
+        if (!Files.isDirectory(journal.dir())) return;
+        try (Stream<Path> files = Files.list(journal.dir())) {
+            // Rotated parts (<chatId>.<seq>.jsonl) sort before the live journal of the same turn.
+            Map<String, List<Path>> turns = files
+                    .filter(f -> f.getFileName().toString().endsWith(ChatMemoryJournal.SUFFIX))
+                    .sorted()
+                    .collect(Collectors.groupingBy(ChatMemoryWriteBuffer::turnOf, TreeMap::new, Collectors.toList()));
+            turns.forEach(this::replay);
+        } catch (IOException e) {
+            log.error("Could not scan chat memory journal {}", journal.dir(), e);
+        }
+    }
+
+    private void flushExpired() {
+        long now = System.currentTimeMillis();
+        pending.values().forEach(turn -> {
+            synchronized (turn) {
+                if (now - turn.bufferedAt >= maxAgeMs) flush(turn);
+            }
+        });
+    }
+
+    private void flush(PendingTurn turn) {
+        if (!turn.hasUnwritten() && !turn.completed) return;
+        turn.bufferedAt = System.currentTimeMillis();
+
+        turn.writes = turn.writes
+                .then(Mono.defer(() -> write(turn)))
+                .onErrorResume(e -> {
+                    log.error("Write-behind flush failed for chatId {}, retrying in {} ms", turn.chatId, maxAgeMs, e);
+                    return Mono.empty();
+                })
+                .then(Mono.fromRunnable(() -> retireIfWritten(turn)))
+                .cache();
+        turn.writes.subscribe();
+    }
+
+    private void retireIfWritten(PendingTurn turn) {
+        synchronized (turn) {
+            if (turn.completed && !turn.hasUnwritten() && pending.remove(turn.chatId, turn))
+                journal.discard(turn.chatId);
+        }
+    }
+
+    /**
+     * Writes whatever the turn has not had confirmed yet. The snapshot is taken when the previous write
+     * has finished, so a step is inserted until a write of it succeeded and appended to only after that;
+     * a failed write confirms nothing and the next flush retries it.
+     */
+    private Mono<Void> write(PendingTurn turn) {
+        Snapshot snapshot;
+        synchronized (turn) {
+            if (!turn.hasUnwritten()) return Mono.empty();
+            turn.journalParts.add(rotateJournal(turn));
+            snapshot = turn.snapshot();
+        }
+        return save(turn, snapshot);
+    }
+
+    private Mono<Void> save(PendingTurn turn, Snapshot snapshot) {
+        return chatMemoryStore.saveTurn(snapshot.inserts(), snapshot.appended())
+                .then(Mono.fromRunnable(() -> {
+                    synchronized (turn) {
+                        turn.confirm(snapshot);
+                    }
+                    journal.delete(snapshot.journalParts());
+                }));
+    }
+
+    /**
+     * Rebuilds a turn from all its journal files. Rows and steps already in the database (a write that
+     * committed before its journal was deleted) are not inserted again; text of an existing step is appended.
+     */
+    private void replay(String chatId, List<Path> files) {
+        try {
+            PendingTurn turn = null;
+            for (Path file : files) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (line.isBlank()) continue;
+                    JournalEntry entry = GSON.fromJson(line, JournalEntry.class);
+                    if (turn == null) turn = new PendingTurn(entry.conversationId(), entry.title(), entry.username(), chatId);
+                    if (entry.type() != null) {
+                        turn.items.add(new StagedRow(entry.toRow()));
+                    } else {
+                        // Entries written before steps were journaled separately carry no step id.
+                        String stepId = entry.rowChatId() != null ? entry.rowChatId() : entry.chatId();
+                        PendingStep step = turn.step(stepId, LocalDateTime.parse(entry.timestamp()), entry.toolExecutionRequests());
+                        if (entry.text() != null) step.text.append(entry.text());
+                    }
+                }
+            }
+            if (turn == null) {
+                journal.delete(files);
+                return;
+            }
+
+            Set<String> existing = chatMemoryStore.findExistingChatIds(turn.chatIds()).block();
+            turn.items.removeIf(item -> item instanceof StagedRow staged && existing.contains(staged.row().getChatId()));
+            for (TurnItem item : turn.items) {
+                if (item instanceof PendingStep step) step.persisted = existing.contains(step.stepId);
+            }
+            turn.journalParts.addAll(files);
+            try {
+                save(turn, turn.snapshot()).block();
+                log.info("Recovered unflushed chat memory for chatId {}", chatId);
+            } catch (RuntimeException e) {
+                // Keep the recovered turn buffered, so the sweeper retries it without another restart.
+                log.error("Could not replay chat memory of chatId {}, retrying in {} ms", chatId, maxAgeMs, e);
+                turn.completed = true;
+                pending.put(chatId, turn);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not replay chat memory journal of chatId {}", chatId, e);
+        }
+    }
+
+    /**
+     * Queues the rotation behind the entries journaled so far; the part may turn out empty, which is fine
+     * because deleting and replaying a missing part are no-ops.
+     */
+    private Path rotateJournal(PendingTurn turn) {
+        Path part = journal.dir().resolve(String.format("%s.%04d%s", turn.chatId, turn.flushes++, ChatMemoryJournal.SUFFIX));
+        journal.rotate(turn.chatId, part);
+        return part;
+    }
+
+    private static String turnOf(Path journal) {
+        String name = journal.getFileName().toString();
+        return name.substring(0, name.indexOf('.'));
+    }
+
+    private record JournalEntry(String conversationId,
+                                String title,
+                                String username,
+                                String chatId,
+                                String toolExecutionRequests,
+                                String text,
+                                String timestamp,
+                                String type,
+                                String rowChatId,
+                                String toolId,
+                                String toolName,
+                                String toolResponse) {
+
+        private static JournalEntry text(PendingTurn turn, PendingStep step, String text) {
+            return new JournalEntry(turn.conversationId, turn.title, turn.username, turn.chatId,
+                    step.toolExecutionRequests, text, step.timestamp.toString(),
+                    null, step.stepId, null, null, null);
+        }
+
+        private static JournalEntry row(PendingTurn turn, CustomChatMemory row) {
+            return new JournalEntry(turn.conversationId, turn.title, turn.username, turn.chatId,
+                    row.getToolExecutionRequests(), row.getText(), row.getTimestamp().toString(),
+                    row.getType().name(), row.getChatId(), row.getToolId(), row.getToolName(), row.getToolResponse());
+        }
+
+        private CustomChatMemory toRow() {
+            CustomChatMemory row = new CustomChatMemory(conversationId, username, title, toolId, toolName, toolResponse,
+                    ChatMessageType.valueOf(type), LocalDateTime.parse(timestamp), rowChatId);
+            row.setText(text);
+            row.setToolExecutionRequests(toolExecutionRequests);
+            return row;
+        }
+    }
+
+    private static final class PendingTurn {
+        private final String conversationId;
+        private final String title;
+        private final String username;
+        private final String chatId;
+        private final List<TurnItem> items = new ArrayList<>();
+        private final List<Path> journalParts = new ArrayList<>();
+        private long bufferedAt = System.currentTimeMillis();
+        private int flushes;
+        private boolean completed;
+        private Mono<Void> writes = Mono.empty();
+
+        private PendingTurn(String conversationId, String title, String username, String chatId) {
+            this.conversationId = conversationId;
+            this.title = title;
+            this.username = username;
+            this.chatId = chatId;
+        }
+
+        private PendingStep step(String stepId, LocalDateTime timestamp, String toolExecutionRequests) {
+            for (TurnItem item : items) {
+                if (item instanceof PendingStep step && step.stepId.equals(stepId)) return step;
+            }
+            PendingStep step = new PendingStep(stepId, timestamp, toolExecutionRequests);
+            items.add(step);
+            return step;
+        }
+
+        private int bufferedChars() {
+            int chars = 0;
+            for (TurnItem item : items) {
+                if (item instanceof PendingStep step) chars += step.text.length();
+            }
+            return chars;
+        }
+
+        private boolean hasUnwritten() {
+            for (TurnItem item : items) {
+                if (!(item instanceof PendingStep step) || !step.persisted || !step.text.isEmpty()) return true;
+            }
+            return false;
+        }
+
+        private Set<String> chatIds() {
+            Set<String> chatIds = new HashSet<>();
+            for (TurnItem item : items) {
+                switch (item) {
+                    case StagedRow staged -> chatIds.add(staged.row().getChatId());
+                    case PendingStep step -> chatIds.add(step.stepId);
+                }
+            }
+            chatIds.remove(null);
+            return chatIds;
+        }
+
+        /**
+         * Rows are inserted in the order they were produced, so ids follow the turn even where timestamps tie.
+         */
+        private Snapshot snapshot() {
+            List<StagedRow> rows = new ArrayList<>();
+            Map<PendingStep, Integer> writtenChars = new IdentityHashMap<>();
+            List<CustomChatMemory> inserts = new ArrayList<>();
+            List<CustomChatMemory> appended = new ArrayList<>();
+            for (TurnItem item : items) {
+                switch (item) {
+                    case StagedRow staged -> {
+                        rows.add(staged);
+                        inserts.add(staged.row());
+                    }
+                    case PendingStep step when !step.persisted -> {
+                        writtenChars.put(step, step.text.length());
+                        inserts.add(toEntity(step));
+                    }
+                    case PendingStep step when !step.text.isEmpty() -> {
+                        writtenChars.put(step, step.text.length());
+                        appended.add(toEntity(step));
+                    }
+                    case PendingStep ignored -> {
+                    }
+                }
+            }
+            return new Snapshot(rows, writtenChars, inserts, appended, List.copyOf(journalParts));
+        }
+
+        /**
+         * Marks a successful write: its rows are dropped, its steps exist from now on and keep only text
+         * appended since. Steps stay in the turn so later text of them is appended, never inserted twice.
+         */
+        private void confirm(Snapshot snapshot) {
+            Set<TurnItem> written = Collections.newSetFromMap(new IdentityHashMap<>());
+            written.addAll(snapshot.rows());
+            items.removeIf(written::contains);
+            snapshot.writtenChars().forEach((step, chars) -> {
+                step.persisted = true;
+                step.text.delete(0, chars);
+            });
+            journalParts.removeAll(snapshot.journalParts());
+        }
+
+        private CustomChatMemory toEntity(PendingStep step) {
+            CustomChatMemory entity = new CustomChatMemory(conversationId, title, step.text.toString(), username,
+                    ChatMessageType.AI, step.timestamp);
+            entity.setToolExecutionRequests(step.toolExecutionRequests);
+            entity.setChatId(step.stepId);
+            return entity;
+        }
+    }
+
+    /**
+     * A staged row or an AI step, kept in the order the turn produced them.
+     */
+    private sealed interface TurnItem permits StagedRow, PendingStep {
+    }
+
+    private record StagedRow(CustomChatMemory row) implements TurnItem {
+    }
+
+    private record Snapshot(List<StagedRow> rows,
+                            Map<PendingStep, Integer> writtenChars,
+                            List<CustomChatMemory> inserts,
+                            List<CustomChatMemory> appended,
+                            List<Path> journalParts) {
+    }
+
+    private static final class PendingStep implements TurnItem {
+        private final String stepId;
+        private final LocalDateTime timestamp;
+        private final String toolExecutionRequests;
+        private final StringBuilder text = new StringBuilder();
+        private boolean persisted;
+
+        private PendingStep(String stepId, LocalDateTime timestamp, String toolExecutionRequests) {
+            this.stepId = stepId;
+            this.timestamp = timestamp;
+            this.toolExecutionRequests = toolExecutionRequests;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConversationArchiver
+ * ------------------------------
+ * Periodically moves conversations idle for longer than the configured age to the archive tier,
+ * a bounded batch at a time, keeping the hot chatmemory table and its indexes proportional to
+ * recent activity rather than total history.
+ */
+@Component
+public class ConversationArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationArchiver.class);
+
+    private final ConversationTiering tiering;
+    private final ChatMemoryArchiveRepository archiveRepository;
+    private final ChatHistoryCache historyCache;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("chat-memory-archiver").daemon().factory());
+
+    private final boolean enabled;
+    private final long archiveAfterDays;
+    private final long intervalMinutes;
+    private final int batchSize;
+
+    public ConversationArchiver(ConversationTiering tiering,
+                                ChatMemoryArchiveRepository archiveRepository,
+                                ChatHistoryCache historyCache,
+                                @Value("${chat.tiering.enabled:true}") boolean enabled,
+                                @Value("${chat.tiering.archive-after-days:90}") long archiveAfterDays,
+                                @Value("${chat.tiering.interval-minutes:60}") long intervalMinutes,
+                                @Value("${chat.tiering.batch-size:100}") int batchSize) {
+        this.tiering = tiering;
+        this.archiveRepository = archiveRepository;
+        this.historyCache = historyCache;
+        this.enabled = enabled;
+        this.archiveAfterDays = archiveAfterDays;
+        this.intervalMinutes = intervalMinutes;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (enabled) scheduler.scheduleWithFixedDelay(this::run, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    void run() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(archiveAfterDays);
+            tiering.ensurePartition(YearMonth.from(cutoff));
+
+            List<String> candidates;
+            do {
+                candidates = archiveRepository.findArchiveCandidates(cutoff, batchSize);
+                for (String conversationId : candidates) {
+                    if (tiering.archive(conversationId, cutoff)) historyCache.invalidate(conversationId);
+                }
+                log.info("Archived {} conversations idle since before {}", candidates.size(), cutoff);
+            } while (candidates.size() == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException e) {
+            log.error("Conversation archiving failed", e);
+        }
+    }
+}
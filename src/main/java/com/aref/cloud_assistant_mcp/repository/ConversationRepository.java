@@ -0,0 +1,65 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.dto.ConversationDto;
+import com.aref.cloud_assistant_mcp.model.ChatConversation;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ConversationRepository extends JpaRepository<ChatConversation, String> {
+
+    @Query(value = """
+            SELECT id, title, lastActivityAt FROM conversation WHERE username = :username
+            ORDER BY lastActivityAt DESC, id DESC
+    """)
+    Page<ConversationDto> getConversationsByUsername(String username, Pageable page);
+
+    @Query(value = """
+            SELECT id, title, lastActivityAt FROM conversation WHERE username = :username
+            ORDER BY lastActivityAt DESC, id DESC
+    """)
+    List<ConversationDto> getFirstConversationsByUsername(String username, Pageable page);
+
+    @Query(value = """
+            SELECT id, title, lastActivityAt FROM conversation WHERE username = :username
+                AND (lastActivityAt < :lastActivityAt OR (lastActivityAt = :lastActivityAt AND id < :id))
+            ORDER BY lastActivityAt DESC, id DESC
+    """)
+    List<ConversationDto> getConversationsByUsernameBefore(String username, LocalDateTime lastActivityAt, String id, Pageable page);
+
+    boolean existsByIdAndUsername(String id, String username);
+
+    @Query(value = """
+            INSERT INTO conversation (id, username, title, created_at, last_activity_at, message_count)
+            VALUES (:conversationId, :username, :title, :timestamp, :timestamp, :messages)
+            ON DUPLICATE KEY UPDATE
+                last_activity_at = GREATEST(last_activity_at, VALUES(last_activity_at)),
+                message_count = message_count + VALUES(message_count)
+    """, nativeQuery = true)
+    @Transactional
+    @Modifying
+    void recordActivity(String conversationId, String username, String title, LocalDateTime timestamp, int messages);
+
+    @Query(value = """
+            UPDATE conversation SET title = :title WHERE id = :conversationId
+    """)
+    @Transactional
+    @Modifying
+    void updateTitle(String conversationId, String title);
+
+    @Query(value = """
+            INSERT INTO conversation (id, username, title, created_at, last_activity_at, message_count)
+            VALUES (:conversationId, :username, :title, :timestamp, :timestamp, 0)
+            ON DUPLICATE KEY UPDATE title = VALUES(title)
+    """, nativeQuery = true)
+    @Transactional
+    @Modifying
+    void saveTitle(String conversationId, String username, String title, LocalDateTime timestamp);
+
+}
@@ -0,0 +1,96 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.regex.Pattern;
+
+/**
+ * ConversationTiering
+ * ------------------------------
+ * Moves a whole conversation between the hot chatmemory table and the partitioned
+ * chatmemory_archive table. Each move is one transaction guarded by the conversation's
+ * archived_at flag, so a conversation is never visible in both tiers or in neither.
+ */
+@Component
+public class ConversationTiering {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationTiering.class);
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("p\\d{6}");
+    // Upper bound of p_history in V6__chatmemory_archive.sql.
+    private static final YearMonth FIRST_MONTHLY_PARTITION = YearMonth.of(2025, 1);
+
+    private final ChatMemoryArchiveRepository archiveRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ConversationTiering(ChatMemoryArchiveRepository archiveRepository) {
+        this.archiveRepository = archiveRepository;
+    }
+
+    @Transactional
+    public boolean archive(String conversationId, LocalDateTime cutoff) {
+        if (archiveRepository.markArchived(conversationId, cutoff) == 0) return false;
+        int moved = archiveRepository.copyToArchive(conversationId);
+        archiveRepository.deleteHot(conversationId);
+        log.debug("Archived {} messages of conversation {}", moved, conversationId);
+        return true;
+    }
+
+    public boolean isArchived(String conversationId) {
+        return archiveRepository.countArchived(conversationId) > 0;
+    }
+
+    @Transactional
+    public boolean rehydrate(String conversationId) {
+        if (archiveRepository.markHot(conversationId) == 0) return false;
+        int moved = archiveRepository.copyToHot(conversationId);
+        archiveRepository.deleteArchived(conversationId);
+        log.info("Rehydrated {} messages of conversation {}", moved, conversationId);
+        return true;
+    }
+
+    @Transactional
+    public void deleteArchived(String conversationId) {
+        archiveRepository.deleteArchived(conversationId);
+    }
+
+    /**
+     * Splits monthly partitions off p_future for every month from the last split one (or from the p_history
+     * bound) up to and including {@code month}, so each archived month lands in its own partition. Months
+     * before the p_history bound already land in p_history.
+     */
+    @Transactional
+    public void ensurePartition(YearMonth month) {
+        YearMonth next = archiveRepository.findArchivePartitions().stream()
+                .filter(name -> MONTHLY_PARTITION.matcher(name).matches())
+                .map(name -> YearMonth.parse(name, PARTITION_NAME))
+                .max(Comparator.naturalOrder())
+                .map(last -> last.plusMonths(1))
+                .orElse(FIRST_MONTHLY_PARTITION);
+        if (month.isBefore(next)) return;
+
+        StringBuilder partitions = new StringBuilder();
+        for (YearMonth m = next; !m.isAfter(month); m = m.plusMonths(1)) {
+            String upperBound = m.plusMonths(1).atDay(1).atStartOfDay().toString().replace('T', ' ');
+            partitions.append("PARTITION %s VALUES LESS THAN (UNIX_TIMESTAMP('%s')), "
+                    .formatted(m.format(PARTITION_NAME), upperBound));
+        }
+        entityManager.createNativeQuery("""
+                ALTER TABLE chatmemory_archive REORGANIZE PARTITION p_future INTO (
+                    %sPARTITION p_future VALUES LESS THAN MAXVALUE)
+                """.formatted(partitions)).executeUpdate();
+        log.info("Added archive partitions {} to {}", next.format(PARTITION_NAME), month.format(PARTITION_NAME));
+    }
+}
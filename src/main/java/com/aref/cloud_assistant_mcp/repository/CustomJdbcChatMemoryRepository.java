@@ -1,8 +1,8 @@
 package com.aref.cloud_assistant_mcp.repository;
 
-import com.aref.cloud_assistant_mcp.dto.ConversationDto;
 import com.aref.cloud_assistant_mcp.dto.MessageDto;
 import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import dev.langchain4j.data.message.ChatMessageType;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,6 +10,10 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 public interface CustomJdbcChatMemoryRepository extends JpaRepository<CustomChatMemory, Long> {
 
     @Query(value = """
@@ -19,10 +23,34 @@ public interface CustomJdbcChatMemoryRepository extends JpaRepository<CustomChat
     Page<MessageDto> getMessagesByConversationId(String conversationId, Pageable page);
 
     @Query(value = """
-            SELECT conversationId, title FROM chatmemory WHERE username = :username
-            GROUP BY conversationId, title
+            SELECT id, conversationId, text, type, toolId, toolName, toolResponse, toolExecutionRequests, timestamp, chatId
+            FROM chatmemory WHERE conversationId = :conversationId
+            ORDER BY timestamp DESC, id DESC
+    """)
+    List<MessageDto> getRecentMessagesByConversationId(String conversationId, Pageable page);
+
+    @Query(value = """
+            SELECT id, conversationId, text, type, toolId, toolName, toolResponse, toolExecutionRequests, timestamp, chatId
+            FROM chatmemory WHERE conversationId = :conversationId
+            ORDER BY timestamp, id
+    """)
+    List<MessageDto> getFirstMessagesByConversationId(String conversationId, Pageable page);
+
+    @Query(value = """
+            SELECT id, conversationId, text, type, toolId, toolName, toolResponse, toolExecutionRequests, timestamp, chatId
+            FROM chatmemory WHERE conversationId = :conversationId
+                AND (timestamp > :timestamp OR (timestamp = :timestamp AND id > :id))
+            ORDER BY timestamp, id
     """)
-    Page<ConversationDto> getConversationsByUsername(String username, Pageable page);
+    List<MessageDto> getMessagesByConversationIdAfter(String conversationId, LocalDateTime timestamp, long id, Pageable page);
+
+    @Query(value = """
+            SELECT id, conversationId, text, type, toolId, toolName, toolResponse, toolExecutionRequests, timestamp, chatId
+            FROM chatmemory WHERE conversationId = :conversationId
+                AND (timestamp < :timestamp OR (timestamp = :timestamp AND id < :id))
+            ORDER BY timestamp DESC, id DESC
+    """)
+    List<MessageDto> getMessagesByConversationIdBefore(String conversationId, LocalDateTime timestamp, long id, Pageable page);
 
     @Modifying
     @Query(value = """
@@ -31,6 +59,13 @@ public interface CustomJdbcChatMemoryRepository extends JpaRepository<CustomChat
     @Transactional
     void deleteByConversationId(String conversationId);
 
+    @Query(value = """
+            UPDATE chatmemory SET title = :title WHERE conversationId = :conversationId
+    """)
+    @Transactional
+    @Modifying
+    void updateTitle(String conversationId, String title);
+
     @Query(value = """
             UPDATE chatmemory SET
                 text = CONCAT(text, :#{#entity.text})
@@ -38,6 +73,29 @@ public interface CustomJdbcChatMemoryRepository extends JpaRepository<CustomChat
             """)
     @Transactional
     @Modifying
-    void update(CustomChatMemory entity);
+    int update(CustomChatMemory entity);
+
+    @Query(value = """
+            SELECT chatId FROM chatmemory WHERE chatId IN :chatIds
+    """)
+    List<String> findExistingChatIds(Collection<String> chatIds);
+
+    @Query(value = """
+            SELECT c FROM chatmemory c WHERE c.id > :afterId AND c.type IN :types ORDER BY c.id
+    """)
+    List<CustomChatMemory> findByIdAfterAndTypeIn(long afterId, Collection<ChatMessageType> types, Pageable page);
+
+    List<CustomChatMemory> findByConversationIdAndTypeIn(String conversationId, Collection<ChatMessageType> types);
+
+    // The archive table has the same columns as chatmemory, so its rows map onto the entity as well.
+    @Query(value = """
+            SELECT * FROM chatmemory_archive WHERE id > :afterId AND type IN :types ORDER BY id LIMIT :limit
+    """, nativeQuery = true)
+    List<CustomChatMemory> findArchivedByIdAfterAndTypeIn(long afterId, Collection<String> types, int limit);
+
+    @Query(value = """
+            SELECT * FROM chatmemory_archive WHERE conversation_id = :conversationId AND type IN :types
+    """, nativeQuery = true)
+    List<CustomChatMemory> findArchivedByConversationIdAndTypeIn(String conversationId, Collection<String> types);
 
 }
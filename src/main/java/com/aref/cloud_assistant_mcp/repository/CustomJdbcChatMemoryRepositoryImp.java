@@ -1,45 +1,249 @@
 package com.aref.cloud_assistant_mcp.repository;
 
+import com.aref.cloud_assistant_mcp.dto.ConversationCursor;
 import com.aref.cloud_assistant_mcp.dto.ConversationDto;
+import com.aref.cloud_assistant_mcp.dto.MessageCursor;
 import com.aref.cloud_assistant_mcp.dto.MessageDto;
+import com.aref.cloud_assistant_mcp.dto.SearchHitDto;
+import com.aref.cloud_assistant_mcp.model.ChatConversation;
 import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import com.aref.cloud_assistant_mcp.repository.payload.ToolResponseOffloader;
+import com.aref.cloud_assistant_mcp.repository.search.ChatSearchIndex;
+import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.aref.cloud_assistant_mcp.repository.ReplicaReadRouting.conversation;
+import static com.aref.cloud_assistant_mcp.repository.ReplicaReadRouting.user;
 
 @Repository
 public class CustomJdbcChatMemoryRepositoryImp {
 
     private final CustomJdbcChatMemoryRepository repository;
+    private final ConversationRepository conversationRepository;
+    private final ChatHistoryCache historyCache;
+    private final ToolResponseOffloader toolResponseOffloader;
+    private final ConversationTiering tiering;
+    private final ChatSearchIndex searchIndex;
+    private final ReplicaReadRouting readRouting;
 
 
-    public CustomJdbcChatMemoryRepositoryImp(CustomJdbcChatMemoryRepository repository) {
+    public CustomJdbcChatMemoryRepositoryImp(CustomJdbcChatMemoryRepository repository,
+                                             ConversationRepository conversationRepository,
+                                             ChatHistoryCache historyCache,
+                                             ToolResponseOffloader toolResponseOffloader,
+                                             ConversationTiering tiering,
+                                             ChatSearchIndex searchIndex,
+                                             ReplicaReadRouting readRouting) {
         this.repository = repository;
+        this.conversationRepository = conversationRepository;
+        this.historyCache = historyCache;
+        this.toolResponseOffloader = toolResponseOffloader;
+        this.tiering = tiering;
+        this.searchIndex = searchIndex;
+        this.readRouting = readRouting;
     }
 
+    @Transactional
     public void save(CustomChatMemory chatMemory) {
+        toolResponseOffloader.offload(chatMemory);
         repository.save(chatMemory);
+        conversationRepository.recordActivity(chatMemory.getConversationId(), chatMemory.getUsername(),
+                chatMemory.getTitle(), chatMemory.getTimestamp(), 1);
+        readRouting.recordWrite(conversation(chatMemory.getConversationId()), user(chatMemory.getUsername()));
+        afterCommit(() -> {
+            historyCache.onSaved(chatMemory);
+            searchIndex.onSaved(chatMemory);
+        });
+    }
+
+    /**
+     * Writes the rows of one turn with a single batched insert, appends text to AI rows written by an
+     * earlier flush of the same turn, and records the activity once per conversation, all in one transaction.
+     * An append that finds no row fails the whole write, so the caller keeps the text instead of losing it.
+     * The history cache and search index only see the rows once the transaction has committed.
+     */
+    @Transactional
+    public void saveTurn(List<CustomChatMemory> inserts, List<CustomChatMemory> appended) {
+        inserts.forEach(toolResponseOffloader::offload);
+        repository.saveAll(inserts);
+        appended.forEach(this::append);
+
+        inserts.stream()
+                .collect(Collectors.groupingBy(CustomChatMemory::getConversationId, LinkedHashMap::new, Collectors.toList()))
+                .forEach((conversationId, rows) -> {
+                    CustomChatMemory latest = rows.stream().max(Comparator.comparing(CustomChatMemory::getTimestamp)).orElseThrow();
+                    conversationRepository.recordActivity(conversationId, latest.getUsername(), latest.getTitle(),
+                            latest.getTimestamp(), rows.size());
+                    readRouting.recordWrite(conversation(conversationId), user(latest.getUsername()));
+                });
+
+        appended.forEach(row -> readRouting.recordWrite(conversation(row.getConversationId())));
+        afterCommit(() -> {
+            inserts.forEach(historyCache::onSaved);
+            inserts.forEach(searchIndex::onSaved);
+            for (CustomChatMemory row : appended) {
+                historyCache.onTextAppended(row);
+                searchIndex.onTextAppended(row);
+            }
+        });
     }
 
+    @Transactional
     public void deleteByConversationId(String conversationId) {
         repository.deleteByConversationId(conversationId);
+        tiering.deleteArchived(conversationId);
+        conversationRepository.deleteById(conversationId);
+        readRouting.recordWrite(conversation(conversationId));
+        afterCommit(() -> {
+            historyCache.invalidate(conversationId);
+            searchIndex.deleteConversation(conversationId);
+        });
     }
 
     public Page<MessageDto> getMessagesByConversationId(String conversationId, Pageable page) {
-        return repository.getMessagesByConversationId(conversationId, page);
+        rehydrateIfArchived(conversationId);
+        return readRouting.read(() -> repository.getMessagesByConversationId(conversationId, page),
+                conversation(conversationId)).map(this::withFullToolResponse);
+    }
+
+    public List<MessageDto> getRecentMessagesByConversationId(String conversationId, int limit) {
+        return historyCache.getRecent(conversationId, limit, () -> {
+            rehydrateIfArchived(conversationId);
+            return readRouting.read(() -> repository.getRecentMessagesByConversationId(conversationId, PageRequest.of(0, limit)),
+                    conversation(conversationId));
+        });
+    }
+
+    public boolean isOwnedBy(String conversationId, String username) {
+        return readRouting.read(() -> conversationRepository.existsByIdAndUsername(conversationId, username),
+                conversation(conversationId), user(username));
     }
 
     public Page<ConversationDto> getConversationsByUsername(String username, Pageable page) {
-        return repository.getConversationsByUsername(username, page);
+        return readRouting.read(() -> conversationRepository.getConversationsByUsername(username, page), user(username));
+    }
+
+    public List<MessageDto> getMessagesByConversationIdAfter(String conversationId, MessageCursor after, int limit) {
+        if (after == null) rehydrateIfArchived(conversationId);
+        PageRequest page = PageRequest.of(0, limit);
+        List<MessageDto> messages = readRouting.read(() -> after == null
+                ? repository.getFirstMessagesByConversationId(conversationId, page)
+                : repository.getMessagesByConversationIdAfter(conversationId, after.timestamp(), after.id(), page),
+                conversation(conversationId));
+        return messages.stream().map(this::withFullToolResponse).toList();
+    }
+
+    /**
+     * Newest-first page of a conversation, starting from its newest message or from just before the cursor.
+     */
+    public List<MessageDto> getMessagesByConversationIdBefore(String conversationId, MessageCursor before, int limit) {
+        if (before == null) rehydrateIfArchived(conversationId);
+        PageRequest page = PageRequest.of(0, limit);
+        List<MessageDto> messages = readRouting.read(() -> before == null
+                ? repository.getRecentMessagesByConversationId(conversationId, page)
+                : repository.getMessagesByConversationIdBefore(conversationId, before.timestamp(), before.id(), page),
+                conversation(conversationId));
+        return messages.stream().map(this::withFullToolResponse).toList();
+    }
+
+    public List<ConversationDto> getConversationsByUsernameAfter(String username, ConversationCursor after, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        return readRouting.read(() -> after == null
+                ? conversationRepository.getFirstConversationsByUsername(username, page)
+                : conversationRepository.getConversationsByUsernameBefore(username, after.lastActivityAt(), after.id(), page),
+                user(username));
     }
 
     public void update(CustomChatMemory entity) {
-        repository.update(entity);
+        append(entity);
+        readRouting.recordWrite(conversation(entity.getConversationId()));
+        afterCommit(() -> {
+            historyCache.onTextAppended(entity);
+            searchIndex.onTextAppended(entity);
+        });
+    }
+
+    public List<SearchHitDto> searchConversations(String username, String query, int size) {
+        List<SearchHitDto> hits = searchIndex.search(username, query, size);
+        List<String> conversationIds = hits.stream().map(SearchHitDto::getConversationId).toList();
+        Map<String, String> titles = readRouting.read(() -> conversationRepository.findAllById(conversationIds), user(username))
+                .stream()
+                .collect(Collectors.toMap(ChatConversation::getId, ChatConversation::getTitle));
+        // Hits for conversations deleted since they were indexed are dropped here.
+        return hits.stream()
+                .filter(hit -> titles.containsKey(hit.getConversationId()))
+                .map(hit -> hit.withTitle(titles.get(hit.getConversationId())))
+                .toList();
+    }
+
+    /**
+     * Renames the conversation. The conversation row is created when missing, because a generated title can
+     * arrive before the first turn is flushed; the turn's activity upsert then keeps this title.
+     */
+    @Transactional
+    public void updateTitle(String conversationId, String username, String title) {
+        repository.updateTitle(conversationId, title);
+        conversationRepository.saveTitle(conversationId, username, title, LocalDateTime.now());
+        readRouting.recordWrite(conversation(conversationId));
+    }
+
+    private void rehydrateIfArchived(String conversationId) {
+        // The flag is routed like any read, so the primary only sees the rare rehydration, where markHot checks
+        // the flag again; the rehydrated conversation is then read back from the primary.
+        if (readRouting.read(() -> tiering.isArchived(conversationId), conversation(conversationId))
+                && tiering.rehydrate(conversationId))
+            readRouting.recordWrite(conversation(conversationId));
+    }
+
+    private MessageDto withFullToolResponse(MessageDto message) {
+        String toolResponse = toolResponseOffloader.resolve(message.getToolResponse());
+        return toolResponse == message.getToolResponse() ? message : message.withToolResponse(toolResponse);
     }
 
     public boolean existByChatId(String chatId) {
         Example<CustomChatMemory> example = Example.of(new CustomChatMemory(chatId));
         return repository.exists(example);
     }
+
+    public Set<String> findExistingChatIds(Collection<String> chatIds) {
+        return chatIds.isEmpty() ? Set.of() : new HashSet<>(repository.findExistingChatIds(chatIds));
+    }
+
+    /**
+     * Runs the notification once the surrounding transaction commits, or right away outside one,
+     * so a rolled-back write never reaches the cache or the search index.
+     */
+    private static void afterCommit(Runnable notification) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notification.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                notification.run();
+            }
+        });
+    }
+
+    private void append(CustomChatMemory entity) {
+        if (repository.update(entity) == 0)
+            throw new IllegalStateException("No chat memory row " + entity.getChatId() + " to append to");
+    }
 }
@@ -0,0 +1,63 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.dto.MessageDto;
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JpaChatMemoryStore
+ * ------------------------------
+ * {@link ChatMemoryStore} over the blocking JPA repository. Every call runs on a dedicated, bounded
+ * scheduler, so a slow database delays only chat memory I/O and never the model streaming threads.
+ */
+@Component
+public class JpaChatMemoryStore implements ChatMemoryStore {
+
+    private final CustomJdbcChatMemoryRepositoryImp repository;
+    private final Scheduler scheduler;
+
+    public JpaChatMemoryStore(CustomJdbcChatMemoryRepositoryImp repository,
+                              @Value("${chat.memory.io.threads:16}") int threads,
+                              @Value("${chat.memory.io.max-queued-tasks:10000}") int maxQueuedTasks) {
+        this.repository = repository;
+        this.scheduler = Schedulers.newBoundedElastic(threads, maxQueuedTasks, "chat-memory-io");
+    }
+
+    @Override
+    public Mono<List<MessageDto>> findRecentMessages(String conversationId, int limit) {
+        return Mono.fromCallable(() -> repository.getRecentMessagesByConversationId(conversationId, limit))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> saveTurn(List<CustomChatMemory> inserts, List<CustomChatMemory> appended) {
+        return Mono.<Void>fromRunnable(() -> repository.saveTurn(inserts, appended))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Set<String>> findExistingChatIds(Collection<String> chatIds) {
+        return Mono.fromCallable(() -> repository.findExistingChatIds(chatIds))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> updateTitle(String conversationId, String username, String title) {
+        return Mono.<Void>fromRunnable(() -> repository.updateTitle(conversationId, username, title))
+                .subscribeOn(scheduler);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,32 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * LocalDirectories
+ * ------------------------------
+ * Startup checks for the local directories that hold durable chat data (offloaded payloads, the
+ * write-behind journal), so a missing or read-only directory stops the application instead of
+ * surfacing later as lost history.
+ */
+public final class LocalDirectories {
+
+    private LocalDirectories() {
+    }
+
+    /**
+     * Creates the directory if needed and proves it is writable with a probe file.
+     */
+    public static Path requireWritable(String dir, String property) {
+        Path path = Path.of(dir);
+        try {
+            Files.createDirectories(path);
+            Files.delete(Files.createTempFile(path, ".probe", ".tmp"));
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Directory " + path + " (" + property + ") is not writable", e);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,95 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * ReplicaReadRouting
+ * ------------------------------
+ * Decides which pool a read runs on when a replica is configured. Reads go to the replica unless one
+ * of their keys (a conversation or a username) was written by this node within the sticky window, in
+ * which case they stay on the primary so a user never reads back less than they just wrote. The
+ * routing datasource picks up the decision from the current thread; reads inside a transaction keep
+ * the connection the transaction already holds.
+ */
+@Component
+public class ReplicaReadRouting {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Target> CURRENT = new ThreadLocal<>();
+    private static final int MAX_TRACKED_KEYS = 10_000;
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long stickyMs;
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+
+    public ReplicaReadRouting(MeterRegistry meterRegistry,
+                              @Value("${spring.datasource.replica.url:}") String replicaUrl,
+                              @Value("${chat.datasource.replica.sticky-seconds:10}") long stickySeconds) {
+        this.enabled = !replicaUrl.isBlank();
+        this.stickyMs = stickySeconds * 1000;
+        this.replicaReads = Counter.builder("chat.datasource.reads").tag("target", "replica").register(meterRegistry);
+        this.primaryReads = Counter.builder("chat.datasource.reads").tag("target", "primary").register(meterRegistry);
+    }
+
+    public static Target current() {
+        Target target = CURRENT.get();
+        return target == null ? Target.PRIMARY : target;
+    }
+
+    public void recordWrite(String... keys) {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+        for (String key : keys) {
+            if (key != null) lastWrites.put(key, now);
+        }
+        if (lastWrites.size() > MAX_TRACKED_KEYS) lastWrites.values().removeIf(at -> now - at > stickyMs);
+    }
+
+    public <T> T read(Supplier<T> query, String... keys) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) return query.get();
+        if (isSticky(keys)) {
+            primaryReads.increment();
+            return query.get();
+        }
+
+        Target previous = CURRENT.get();
+        CURRENT.set(Target.REPLICA);
+        try {
+            replicaReads.increment();
+            return query.get();
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+    }
+
+    public static String conversation(String conversationId) {
+        return "conversation:" + conversationId;
+    }
+
+    public static String user(String username) {
+        return "user:" + username;
+    }
+
+    private boolean isSticky(String... keys) {
+        long now = System.currentTimeMillis();
+        for (String key : keys) {
+            Long writtenAt = key == null ? null : lastWrites.get(key);
+            if (writtenAt == null) continue;
+            if (now - writtenAt < stickyMs) return true;
+            lastWrites.remove(key, writtenAt);
+        }
+        return false;
+    }
+}
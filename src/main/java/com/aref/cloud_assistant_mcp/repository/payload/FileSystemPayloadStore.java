@@ -0,0 +1,83 @@
+package com.aref.cloud_assistant_mcp.repository.payload;
+
+import com.aref.cloud_assistant_mcp.repository.LocalDirectories;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * FileSystemPayloadStore
+ * ------------------------------
+ * Content-addressed, gzip-compressed payload files under a local directory. Identical payloads
+ * share one file, so writing the same tool output twice costs nothing.
+ */
+@Component
+public class FileSystemPayloadStore implements PayloadStore {
+
+    private static final String REFERENCE_PREFIX = "sha256:";
+
+    private final Path root;
+
+    public FileSystemPayloadStore(@Value("${chat.memory.payload.dir:${user.home}/.cloud-assistant/payloads}") String root) {
+        // Offloaded payloads exist nowhere else, so they must not live in a directory the OS cleans up.
+        this.root = LocalDirectories.requireWritable(root, "chat.memory.payload.dir");
+    }
+
+    @Override
+    public String put(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(bytes);
+        Path file = fileOf(hash);
+        if (Files.exists(file)) return REFERENCE_PREFIX + hash;
+
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), hash, ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                out.write(bytes);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store payload " + hash, e);
+        }
+        return REFERENCE_PREFIX + hash;
+    }
+
+    @Override
+    public String get(String reference) {
+        if (!reference.startsWith(REFERENCE_PREFIX))
+            throw new IllegalArgumentException("Unknown payload reference: " + reference);
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(fileOf(reference.substring(REFERENCE_PREFIX.length()))))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read payload " + reference, e);
+        }
+    }
+
+    private Path fileOf(String hash) {
+        if (!hash.matches("[0-9a-f]{64}")) throw new IllegalArgumentException("Invalid payload hash: " + hash);
+        return root.resolve(hash.substring(0, 2)).resolve(hash + ".gz");
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
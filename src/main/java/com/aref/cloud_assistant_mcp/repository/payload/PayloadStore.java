@@ -0,0 +1,14 @@
+package com.aref.cloud_assistant_mcp.repository.payload;
+
+/**
+ * PayloadStore
+ * ------------------------------
+ * Stores large message payloads outside the chatmemory table. {@link #put} returns an opaque
+ * reference that {@link #get} resolves back to the original payload.
+ */
+public interface PayloadStore {
+
+    String put(String payload);
+
+    String get(String reference);
+}
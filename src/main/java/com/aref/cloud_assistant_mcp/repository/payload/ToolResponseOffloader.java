@@ -0,0 +1,85 @@
+package com.aref.cloud_assistant_mcp.repository.payload;
+
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * ToolResponseOffloader
+ * ------------------------------
+ * Moves tool responses above a size threshold into the {@link PayloadStore}. The row keeps a small
+ * JSON envelope with the reference, the original length and a summary; history building uses the
+ * summary, and only the message display path reads the full payload back.
+ */
+@Component
+public class ToolResponseOffloader {
+
+    private static final Logger log = LoggerFactory.getLogger(ToolResponseOffloader.class);
+
+    static final String REF_KEY = "_payloadRef";
+    private static final String CHARS_KEY = "_payloadChars";
+    private static final String SUMMARY_KEY = "_payloadSummary";
+
+    private final PayloadStore store;
+    private final int thresholdChars;
+    private final int summaryChars;
+
+    public ToolResponseOffloader(PayloadStore store,
+                                 @Value("${chat.memory.payload.offload-threshold-chars:8192}") int thresholdChars,
+                                 @Value("${chat.memory.payload.summary-chars:2000}") int summaryChars) {
+        this.store = store;
+        this.thresholdChars = thresholdChars;
+        this.summaryChars = summaryChars;
+    }
+
+    public void offload(CustomChatMemory row) {
+        String response = row.getToolResponse();
+        if (response == null || response.length() <= thresholdChars || isEnvelope(response)) return;
+
+        try {
+            String reference = store.put(response);
+            row.setToolResponse(new JSONObject()
+                    .put(REF_KEY, reference)
+                    .put(CHARS_KEY, response.length())
+                    .put(SUMMARY_KEY, response.substring(0, Math.min(summaryChars, response.length())) + "... [truncated]")
+                    .toString());
+        } catch (RuntimeException e) {
+            log.warn("Keeping tool response of {} inline, payload store failed: {}", row.getToolName(), e.getMessage());
+        }
+    }
+
+    public String resolve(String toolResponse) {
+        JSONObject envelope = envelopeOf(toolResponse);
+        if (envelope == null) return toolResponse;
+        try {
+            return store.get(envelope.getString(REF_KEY));
+        } catch (RuntimeException e) {
+            log.warn("Payload {} unavailable, returning summary: {}", envelope.optString(REF_KEY), e.getMessage());
+            return envelope.optString(SUMMARY_KEY);
+        }
+    }
+
+    public static String summaryOf(String toolResponse) {
+        JSONObject envelope = envelopeOf(toolResponse);
+        if (envelope == null) return toolResponse;
+        return envelope.optString(SUMMARY_KEY) + " (full output: " + envelope.optLong(CHARS_KEY) + " chars)";
+    }
+
+    private static boolean isEnvelope(String toolResponse) {
+        return envelopeOf(toolResponse) != null;
+    }
+
+    private static JSONObject envelopeOf(String toolResponse) {
+        if (toolResponse == null || !toolResponse.contains(REF_KEY)) return null;
+        try {
+            JSONObject json = new JSONObject(toolResponse);
+            return json.has(REF_KEY) && json.has(SUMMARY_KEY) ? json : null;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.aref.cloud_assistant_mcp.repository.search;
+
+import com.aref.cloud_assistant_mcp.dto.SearchHitDto;
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import dev.langchain4j.data.message.ChatMessageType;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatSearchIndex
+ * ------------------------------
+ * Local Lucene index over USER and AI message text, fed from the chat memory write path. Every
+ * written row (or appended chunk of an AI row) becomes one document; searches are filtered to
+ * the caller's username, ranked by relevance weighted by recency, and grouped per conversation.
+ * New documents become searchable after the next refresh (sub-second) and durable after the next commit.
+ * A completed rebuild from the database stamps the index with its layout version; an index without the
+ * current stamp (new, lost, or from an older layout) is rebuilt by {@link ChatSearchIndexBootstrap}.
+ * While a rebuild runs, write-path events only mark their conversation, which the rebuild then reindexes
+ * from the database, so a row is never indexed both by the rebuild and by the write path.
+ */
+@Component
+public class ChatSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatSearchIndex.class);
+
+    private static final String USERNAME = "username";
+    private static final String CONVERSATION_ID = "conversationId";
+    private static final String TEXT = "text";
+    private static final String SNIPPET_SOURCE = "snippetSource";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String VERSION_KEY = "indexVersion";
+    // Bump when the document layout changes, so existing indexes are rebuilt on the next start.
+    static final String INDEX_VERSION = "2";
+
+    private static final int MAX_STORED_CHARS = 2_000;
+    private static final int SNIPPET_CHARS = 160;
+    private static final int CANDIDATES_PER_RESULT = 10;
+    private static final long DAY_MS = 86_400_000L;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("chat-search-index").daemon().factory());
+    private final double recencyDays;
+    private final Object rebuildLock = new Object();
+    // Conversations written while a rebuild runs; null when no rebuild runs. Guarded by rebuildLock.
+    private Set<String> touchedDuringRebuild;
+
+    public ChatSearchIndex(@Value("${chat.search.index-dir:${java.io.tmpdir}/cloud-assistant/search-index}") String indexDir,
+                           @Value("${chat.search.refresh-ms:500}") long refreshMs,
+                           @Value("${chat.search.commit-seconds:30}") long commitSeconds,
+                           @Value("${chat.search.recency-days:30}") double recencyDays) {
+        this.recencyDays = recencyDays;
+        try {
+            this.writer = new IndexWriter(FSDirectory.open(Path.of(indexDir)),
+                    new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open search index " + indexDir, e);
+        }
+
+        maintenance.scheduleWithFixedDelay(this::refresh, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::commit, commitSeconds, commitSeconds, TimeUnit.SECONDS);
+    }
+
+    public void onSaved(CustomChatMemory row) {
+        if (row.getType() != ChatMessageType.USER && row.getType() != ChatMessageType.AI) return;
+        if (deferToRebuild(row.getConversationId())) return;
+        add(row.getUsername(), row.getConversationId(), row.getText(), row.getTimestamp());
+    }
+
+    public void onTextAppended(CustomChatMemory row) {
+        if (deferToRebuild(row.getConversationId())) return;
+        add(row.getUsername(), row.getConversationId(), row.getText(), row.getTimestamp());
+    }
+
+    public boolean needsRebuild() {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (VERSION_KEY.equals(entry.getKey())) return !INDEX_VERSION.equals(entry.getValue());
+            }
+        }
+        return true;
+    }
+
+    void startRebuild() {
+        synchronized (rebuildLock) {
+            touchedDuringRebuild = new HashSet<>();
+        }
+        try {
+            writer.deleteAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not clear search index", e);
+        }
+    }
+
+    /**
+     * Indexes a row read by the rebuild.
+     */
+    void index(CustomChatMemory row) {
+        add(row.getUsername(), row.getConversationId(), row.getText(), row.getTimestamp());
+    }
+
+    /**
+     * Replaces everything indexed for the conversation with its rows as read from the database.
+     */
+    void reindexConversation(String conversationId, List<CustomChatMemory> rows) {
+        try {
+            writer.deleteDocuments(new Term(CONVERSATION_ID, conversationId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not clear conversation " + conversationId + " from search index", e);
+        }
+        rows.forEach(this::index);
+    }
+
+    /**
+     * Returns the conversations the write path touched since the last call. Once none were, the write path
+     * indexes directly again, so the rebuild must not read anything after an empty result.
+     */
+    Set<String> takeTouchedDuringRebuild() {
+        synchronized (rebuildLock) {
+            Set<String> touched = touchedDuringRebuild;
+            if (touched == null || touched.isEmpty()) {
+                touchedDuringRebuild = null;
+                return Set.of();
+            }
+            touchedDuringRebuild = new HashSet<>();
+            return touched;
+        }
+    }
+
+    void finishRebuild() {
+        writer.setLiveCommitData(Map.of(VERSION_KEY, INDEX_VERSION).entrySet());
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not commit rebuilt search index", e);
+        }
+        refresh();
+    }
+
+    public void deleteConversation(String conversationId) {
+        if (deferToRebuild(conversationId)) return;
+        try {
+            writer.deleteDocuments(new Term(CONVERSATION_ID, conversationId));
+        } catch (IOException e) {
+            log.warn("Could not remove conversation {} from search index: {}", conversationId, e.getMessage());
+        }
+    }
+
+    public List<SearchHitDto> search(String username, String queryText, int size) {
+        if (username == null || queryText == null || queryText.isBlank()) return List.of();
+
+        // Titles are left out: rows keep the quick title they were written with, so matching them would rank stale text.
+        Query text = new SimpleQueryParser(analyzer, TEXT).parse(queryText);
+        if (text == null) return List.of();
+        Query query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(USERNAME, username)), BooleanClause.Occur.FILTER)
+                .add(text, BooleanClause.Occur.MUST)
+                .build();
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query, size * CANDIDATES_PER_RESULT);
+                StoredFields storedFields = searcher.storedFields();
+                long now = System.currentTimeMillis();
+
+                Map<String, SearchHitDto> best = new HashMap<>();
+                for (ScoreDoc scoreDoc : top.scoreDocs) {
+                    Document doc = storedFields.document(scoreDoc.doc);
+                    long timestamp = doc.getField(TIMESTAMP).numericValue().longValue();
+                    double score = scoreDoc.score / (1.0 + Math.max(0, now - timestamp) / (recencyDays * DAY_MS));
+                    String conversationId = doc.get(CONVERSATION_ID);
+
+                    SearchHitDto current = best.get(conversationId);
+                    if (current == null || current.getScore() < score) {
+                        best.put(conversationId, new SearchHitDto(conversationId, null,
+                                snippet(doc.get(SNIPPET_SOURCE), queryText),
+                                LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()), score));
+                    }
+                }
+                return best.values().stream()
+                        .sorted(Comparator.comparingDouble(SearchHitDto::getScore).reversed())
+                        .limit(size)
+                        .toList();
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Search failed", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        maintenance.shutdownNow();
+        try {
+            searcherManager.close();
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Could not close search index: {}", e.getMessage());
+        }
+    }
+
+    int documents() {
+        return writer.getDocStats().numDocs;
+    }
+
+    void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Search index refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) writer.commit();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Search index commit failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean deferToRebuild(String conversationId) {
+        synchronized (rebuildLock) {
+            if (touchedDuringRebuild == null) return false;
+            touchedDuringRebuild.add(conversationId);
+            return true;
+        }
+    }
+
+    private void add(String username, String conversationId, String text, LocalDateTime timestamp) {
+        if (username == null || text == null || text.isBlank()) return;
+
+        Document doc = new Document();
+        doc.add(new StringField(USERNAME, username, Field.Store.NO));
+        doc.add(new StringField(CONVERSATION_ID, conversationId, Field.Store.YES));
+        doc.add(new TextField(TEXT, text, Field.Store.NO));
+        doc.add(new StoredField(SNIPPET_SOURCE, text.length() > MAX_STORED_CHARS ? text.substring(0, MAX_STORED_CHARS) : text));
+        doc.add(new StoredField(TIMESTAMP, (timestamp != null ? timestamp : LocalDateTime.now())
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        try {
+            writer.addDocument(doc);
+        } catch (IOException e) {
+            log.warn("Could not index message of conversation {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    private static String snippet(String source, String queryText) {
+        if (source == null) return "";
+        String lower = source.toLowerCase(Locale.ROOT);
+        int at = Arrays.stream(queryText.toLowerCase(Locale.ROOT).split("\\W+"))
+                .filter(term -> !term.isEmpty())
+                .mapToInt(lower::indexOf)
+                .filter(i -> i >= 0)
+                .min()
+                .orElse(0);
+        int start = Math.max(0, at - SNIPPET_CHARS / 4);
+        int end = Math.min(source.length(), start + SNIPPET_CHARS);
+        return (start > 0 ? "…" : "") + source.substring(start, end).strip() + (end < source.length() ? "…" : "");
+    }
+}
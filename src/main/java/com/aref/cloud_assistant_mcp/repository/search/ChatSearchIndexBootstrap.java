@@ -0,0 +1,93 @@
+package com.aref.cloud_assistant_mcp.repository.search;
+
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import com.aref.cloud_assistant_mcp.repository.CustomJdbcChatMemoryRepository;
+import dev.langchain4j.data.message.ChatMessageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * ChatSearchIndexBootstrap
+ * ------------------------------
+ * Rebuilds the search index from the archive and the hot chatmemory table when it has no current version
+ * stamp, e.g. on first start, after the index directory was lost, or after the document layout changed.
+ * Runs in the background after startup. Conversations written meanwhile are reindexed from the database
+ * once both tables are read, until no more writes come in; only then does the write path index directly.
+ */
+@Component
+public class ChatSearchIndexBootstrap {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatSearchIndexBootstrap.class);
+
+    private static final List<ChatMessageType> INDEXED_TYPES = List.of(ChatMessageType.USER, ChatMessageType.AI);
+    private static final List<String> INDEXED_TYPE_NAMES = INDEXED_TYPES.stream().map(Enum::name).toList();
+
+    private final CustomJdbcChatMemoryRepository repository;
+    private final ChatSearchIndex searchIndex;
+    private final int batchSize;
+
+    public ChatSearchIndexBootstrap(CustomJdbcChatMemoryRepository repository,
+                                    ChatSearchIndex searchIndex,
+                                    @Value("${chat.search.rebuild-batch-size:500}") int batchSize) {
+        this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        Thread.ofVirtual().name("chat-search-index-rebuild").start(() -> {
+            try {
+                rebuildIfNeeded();
+            } catch (RuntimeException e) {
+                log.warn("Search index rebuild failed, retrying on the next start", e);
+            }
+        });
+    }
+
+    void rebuildIfNeeded() {
+        if (!searchIndex.needsRebuild()) return;
+
+        log.info("Rebuilding search index from chat memory");
+        searchIndex.startRebuild();
+        // Archive first: rehydration moves rows back to the hot table, which is read after it.
+        long indexed = indexAll(afterId -> repository.findArchivedByIdAfterAndTypeIn(afterId, INDEXED_TYPE_NAMES, batchSize))
+                + indexAll(afterId -> repository.findByIdAfterAndTypeIn(afterId, INDEXED_TYPES, PageRequest.of(0, batchSize)));
+        for (Set<String> touched = searchIndex.takeTouchedDuringRebuild(); !touched.isEmpty();
+             touched = searchIndex.takeTouchedDuringRebuild()) {
+            touched.forEach(conversationId -> searchIndex.reindexConversation(conversationId, rowsOf(conversationId)));
+        }
+        searchIndex.finishRebuild();
+        log.info("Rebuilt search index with {} messages", indexed);
+    }
+
+    private long indexAll(LongFunction<List<CustomChatMemory>> pageAfter) {
+        long afterId = 0;
+        long indexed = 0;
+        List<CustomChatMemory> rows;
+        do {
+            rows = pageAfter.apply(afterId);
+            rows.forEach(searchIndex::index);
+            if (!rows.isEmpty()) afterId = rows.getLast().getId();
+            indexed += rows.size();
+        } while (rows.size() == batchSize);
+        return indexed;
+    }
+
+    private List<CustomChatMemory> rowsOf(String conversationId) {
+        List<CustomChatMemory> rows = new ArrayList<>(
+                repository.findArchivedByConversationIdAndTypeIn(conversationId, INDEXED_TYPE_NAMES));
+        rows.addAll(repository.findByConversationIdAndTypeIn(conversationId, INDEXED_TYPES));
+        return rows;
+    }
+}
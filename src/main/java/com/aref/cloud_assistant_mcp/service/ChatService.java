@@ -1,14 +1,17 @@
 package com.aref.cloud_assistant_mcp.service;
 
-import com.aref.cloud_assistant_mcp.dto.MessageDto;
+import com.aref.cloud_assistant_mcp.dto.ChatEvent;
 import com.aref.cloud_assistant_mcp.dto.PromptDto;
-import com.aref.cloud_assistant_mcp.dto.ResponseType;
 import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
-import com.aref.cloud_assistant_mcp.repository.CustomJdbcChatMemoryRepositoryImp;
+import com.aref.cloud_assistant_mcp.repository.ChatMemoryWriteBuffer;
+import com.aref.cloud_assistant_mcp.service.agent.AgentLoopScheduler;
+import com.aref.cloud_assistant_mcp.service.agent.AgentTurn;
+import com.aref.cloud_assistant_mcp.service.history.ConversationContextBuilder;
 import com.aref.cloud_assistant_mcp.service.strategy.AwsToolCallStrategy;
 import com.aref.cloud_assistant_mcp.service.strategy.ToolCallContext;
 import com.aref.cloud_assistant_mcp.service.tools.AWSEc2Tools;
 import com.aref.cloud_assistant_mcp.service.tools.AWSS3Tools;
+import com.aref.cloud_assistant_mcp.service.tools.AsyncToolInvoker;
 import com.google.gson.Gson;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.agent.tool.ToolSpecification;
@@ -18,29 +21,32 @@ import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.*;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
-import dev.langchain4j.service.tool.DefaultToolExecutor;
-import dev.langchain4j.service.tool.ToolExecutor;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class ChatService {
 
     private static final Logger log = LoggerFactory.getLogger(ChatService.class);
 
-    private static final int HISTORY_PAGE_SIZE = 8;
+    private static final String STEP_LIMIT_MESSAGE =
+            "\n\nI stopped here because this request needed more tool steps or time than allowed for a single turn.";
     private final List<ToolSpecification> toolSpecs;
 
 
@@ -71,12 +77,13 @@ public class ChatService {
 
     private final OpenAiStreamingChatModel streamingChatModel;
     private final OpenAiChatModel openAiChatModel;
-    private final CustomJdbcChatMemoryRepositoryImp chatMemoryRepo;
+    private final ChatMemoryWriteBuffer chatMemoryWriteBuffer;
+    private final AgentLoopScheduler agentLoopScheduler;
+    private final ConversationContextBuilder contextBuilder;
     private final ToolCallContext toolCallContext;
-
-
-    private final AWSS3Tools awss3Tools;
-    private final AWSEc2Tools awsEc2Tools;
+    private final int maxAgentSteps;
+    private final Duration turnTimeout;
+    private final AsyncToolInvoker toolInvoker;
 
     private static final Gson GSON = new Gson();
 
@@ -84,15 +91,21 @@ public class ChatService {
                        OpenAiChatModel syncModel,
                        AWSEc2Tools awsEc2Tools,
                        AWSS3Tools awss3Tools,
-                       CustomJdbcChatMemoryRepositoryImp chatMemoryRepo) {
+                       ChatMemoryWriteBuffer chatMemoryWriteBuffer,
+                       AgentLoopScheduler agentLoopScheduler,
+                       ConversationContextBuilder contextBuilder,
+                       @Value("${chat.agent.max-steps:8}") int maxAgentSteps,
+                       @Value("${chat.agent.turn-timeout-seconds:120}") long turnTimeoutSeconds) {
 
         this.streamingChatModel = Objects.requireNonNull(streamingModel);
         this.openAiChatModel = Objects.requireNonNull(syncModel);
-        this.chatMemoryRepo = Objects.requireNonNull(chatMemoryRepo);
+        this.chatMemoryWriteBuffer = Objects.requireNonNull(chatMemoryWriteBuffer);
+        this.agentLoopScheduler = Objects.requireNonNull(agentLoopScheduler);
+        this.contextBuilder = Objects.requireNonNull(contextBuilder);
+        this.maxAgentSteps = maxAgentSteps;
+        this.turnTimeout = Duration.ofSeconds(turnTimeoutSeconds);
         this.toolCallContext = new ToolCallContext(List.of(new AwsToolCallStrategy()));
-
-        this.awss3Tools = awss3Tools;
-        this.awsEc2Tools = awsEc2Tools;
+        this.toolInvoker = new AsyncToolInvoker(List.of(awss3Tools, awsEc2Tools));
 
         this.toolSpecs = new ArrayList<>();
         this.toolSpecs.addAll(ToolSpecifications.toolSpecificationsFrom(awss3Tools));
@@ -100,68 +113,97 @@ public class ChatService {
     }
 
 
-    public Flux<String> prompt(PromptDto prompt) {
+    public Flux<ChatEvent> prompt(PromptDto prompt) {
         final User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        final Sinks.Many<String> sink = Sinks.many().multicast().onBackpressureBuffer();
 
-        saveChatMemory(
-                prompt.getConversationId(),
-                prompt.getMessage(),
-                prompt.getTitle(),
-                user.getUsername(),
-                ChatMessageType.USER,
-                null,
-                UUID.randomUUID().toString());
+        return createConversationHistory(prompt.getConversationId(), prompt.getMessage()).flatMapMany(history -> {
+            final Sinks.Many<ChatEvent> sink = Sinks.many().multicast().onBackpressureBuffer();
 
-        LinkedList<ChatMessage> history = createConversationHistory(prompt.getConversationId(), prompt.getMessage());
-        ChatRequest chatRequest = buildRequest(history, toolSpecs);
+            String turnChatId = UUID.randomUUID().toString();
+            saveChatMemory(
+                    turnChatId,
+                    prompt.getConversationId(),
+                    prompt.getMessage(),
+                    prompt.getTitle(),
+                    user.getUsername(),
+                    ChatMessageType.USER,
+                    UUID.randomUUID().toString());
+            AgentTurn turn = new AgentTurn(prompt, history, user, sink, turnChatId,
+                    maxAgentSteps, Instant.now().plus(turnTimeout));
 
-        startStreaming(prompt, chatRequest, history, user, sink, UUID.randomUUID().toString());
+            scheduleStep(turn);
 
-        return sink.asFlux();
+            return sink.asFlux();
+        });
     }
 
+    private void scheduleStep(AgentTurn turn) {
+        if (!turn.hasStepsLeft() || turn.isExpired()) {
+            log.warn("Agent turn {} stopped after {} steps (expired: {})", turn.getChatId(), turn.getSteps(), turn.isExpired());
+            safeEmit(turn.getSink(), buildMessageEvent(STEP_LIMIT_MESSAGE));
+            finishTurn(turn, null);
+            return;
+        }
+
+        ChatRequest chatRequest = buildRequest(turn.getHistory(), toolSpecs);
+        agentLoopScheduler.submit(turn, release -> {
+            try {
+                startStreaming(turn, chatRequest, release);
+            } catch (RuntimeException e) {
+                log.error("Could not start streaming", e);
+                release.run();
+                finishTurn(turn, e);
+            }
+        }, () -> finishTurn(turn, new TimeoutException("The agent turn did not finish within " + turnTimeout.toSeconds() + "s")));
+    }
 
-    void startStreaming(PromptDto prompt,
-                        ChatRequest chatRequest,
-                        LinkedList<ChatMessage> history,
-                        User user,
-                        Sinks.Many<String> sink,
-                        String chatId) {
+    void startStreaming(AgentTurn turn, ChatRequest chatRequest, Runnable release) {
+        final Sinks.Many<ChatEvent> sink = turn.getSink();
+        final PromptDto prompt = turn.getPrompt();
+        final String chatId = turn.getChatId();
+        turn.nextStep();
 
         streamingChatModel.chat(chatRequest, new StreamingChatResponseHandler() {
             @Override
             public void onPartialResponse(String partialResponse) {
+                if (turn.isFinished()) return;
                 safeEmit(sink, buildMessageEvent(partialResponse));
             }
 
             @Override
             public void onCompleteResponse(ChatResponse completeResponse) {
+                // The deadline watchdog already failed the turn and released the slot.
+                if (turn.isFinished()) return;
                 AiMessage ai = completeResponse.aiMessage();
                 String text = ai.text();
 
-                history.addLast(ai);
+                turn.getHistory().addLast(ai);
 
-                if (text != null)
-                    saveChatMemory(
+                // Every step is its own row, also when it only requested tools, so its results keep their request.
+                if (text != null || ai.hasToolExecutionRequests())
+                    chatMemoryWriteBuffer.append(
                             prompt.getConversationId(),
-                            text,
                             prompt.getTitle(),
-                            user.getUsername(),
-                            ChatMessageType.AI,
-                            ai.toolExecutionRequests(),
-                            chatId
+                            turn.getUser().getUsername(),
+                            chatId,
+                            UUID.randomUUID().toString(),
+                            text,
+                            ai.hasToolExecutionRequests() ? GSON.toJson(ai.toolExecutionRequests()) : null
                     );
 
                 if (ai.toolExecutionRequests() == null || ai.toolExecutionRequests().isEmpty()) {
-                    sink.tryEmitComplete();
+                    release.run();
+                    finishTurn(turn, null);
+                } else {
+                    callingTools(ai.toolExecutionRequests(), turn, release);
                 }
             }
 
             @Override
             public void onError(Throwable error) {
                 log.error("Streaming error", error);
-                sink.tryEmitError(error);
+                release.run();
+                finishTurn(turn, error);
             }
 
             @Override
@@ -171,7 +213,7 @@ public class ChatService {
 
             @Override
             public void onPartialToolCall(PartialToolCall partialToolCall) {
-                String handle = toolCallContext.handle(
+                ChatEvent handle = toolCallContext.handle(
                         ToolExecutionRequest.builder()
                                 .name(partialToolCall.name())
                                 .id(partialToolCall.id())
@@ -184,12 +226,26 @@ public class ChatService {
 
             @Override
             public void onCompleteToolCall(CompleteToolCall completeToolCall) {
-                ToolExecutionRequest toolExecutionRequest = completeToolCall.toolExecutionRequest();
-                callingTool(toolExecutionRequest, prompt, history, user, sink, chatId);
+                log.debug("Tool call completed: {}", completeToolCall.toolExecutionRequest().name());
             }
         });
     }
 
+    /**
+     * Completes the turn's Flux only after its rows are written, so a follow-up prompt always sees them.
+     */
+    private void finishTurn(AgentTurn turn, Throwable error) {
+        if (!turn.finish()) return;
+        chatMemoryWriteBuffer.complete(turn.getChatId())
+                .doFinally(signal -> {
+                    if (error == null)
+                        turn.getSink().tryEmitComplete();
+                    else
+                        turn.getSink().tryEmitError(error);
+                })
+                .subscribe();
+    }
+
     private ChatRequest buildRequest(LinkedList<ChatMessage> history, List<ToolSpecification> toolSpecs) {
         return ChatRequest.builder()
                 .messages(history)
@@ -197,41 +253,71 @@ public class ChatService {
                 .build();
     }
 
-    private void callingTool(ToolExecutionRequest req,
-                             PromptDto prompt,
-                             LinkedList<ChatMessage> history,
-                             User user,
-                             Sinks.Many<String> sink,
-                             String chatId) {
-        ToolExecutor executor = null;
-
-        if (req.name().startsWith("aws_ec2"))
-            executor = new DefaultToolExecutor(awsEc2Tools, req);
-        else
-            executor = new DefaultToolExecutor(awss3Tools, req);
-
-        log.info("Executing tool: {}", req.name());
-        String result = executor.execute(req, UUID.randomUUID().toString());
+    private void callingTools(List<ToolExecutionRequest> requests, AgentTurn turn, Runnable release) {
+        if (turn.isExpired()) {
+            release.run();
+            scheduleStep(turn);
+            return;
+        }
 
-        ToolExecutionResultMessage toolMsg = ToolExecutionResultMessage.from(req, result);
-        safeEmit(sink, toolCallContext.handle(req, toolMsg.text()));
+        List<CompletableFuture<ToolExecutionResultMessage>> results = requests.stream()
+                .map(req -> executeTool(req, turn))
+                .toList();
+
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> {
+            release.run();
+            if (turn.isFinished()) return;
+            if (error != null) {
+                log.error("Tool execution failed", error);
+                finishTurn(turn, error);
+                return;
+            }
 
-        saveChatMemoryToolCalling(
-                prompt.getConversationId(),
-                user.getUsername(),
-                prompt.getTitle(),
-                toolMsg.id(),
-                toolMsg.toolName(),
-                toolMsg.text(),
-                UUID.randomUUID().toString());
+            for (CompletableFuture<ToolExecutionResultMessage> result : results) {
+                ToolExecutionResultMessage toolMsg = result.join();
+                saveChatMemoryToolCalling(
+                        turn.getChatId(),
+                        turn.getPrompt().getConversationId(),
+                        turn.getUser().getUsername(),
+                        turn.getPrompt().getTitle(),
+                        toolMsg.id(),
+                        toolMsg.toolName(),
+                        toolMsg.text(),
+                        UUID.randomUUID().toString());
+                turn.getHistory().addLast(toolMsg);
+            }
 
-        history.addLast(toolMsg);
+            scheduleStep(turn);
+        });
+    }
 
-        ChatRequest nextReq = buildRequest(history, toolSpecs);
-        startStreaming(prompt, nextReq, history, user, sink, chatId);
+    /**
+     * Starts the tool call and returns without waiting; the AWS tools complete on the SDK's event loop,
+     * so concurrent calls do not hold a thread each. A call still running at the turn's deadline is
+     * answered with an error result, so the model sees the timeout instead of the turn hanging.
+     */
+    private CompletableFuture<ToolExecutionResultMessage> executeTool(ToolExecutionRequest req, AgentTurn turn) {
+        log.info("Executing tool: {}", req.name());
+        return toolInvoker.invoke(req)
+                .orTimeout(turn.remaining().toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        log.warn("Tool {} did not answer before the turn deadline", req.name());
+                        return "Error: the tool did not answer in time.";
+                    }
+                    log.error("Tool {} failed", req.name(), cause);
+                    return "Error: " + cause.getMessage();
+                })
+                .thenApply(result -> {
+                    ToolExecutionResultMessage toolMsg = ToolExecutionResultMessage.from(req, result);
+                    safeEmit(turn.getSink(), toolCallContext.handle(req, toolMsg.text()));
+                    return toolMsg;
+                });
     }
 
-    private void saveChatMemoryToolCalling(String conversationId,
+    private void saveChatMemoryToolCalling(String turnChatId,
+                                           String conversationId,
                                            String username,
                                            String title,
                                            String toolId,
@@ -246,34 +332,35 @@ public class ChatService {
                 toolName,
                 toolResponse,
                 ChatMessageType.TOOL_EXECUTION_RESULT,
-                LocalDateTime.now().plusSeconds(1),
+                LocalDateTime.now(),
                 chatId
         );
-        chatMemoryRepo.save(entity);
+        entity.setText("");
+        chatMemoryWriteBuffer.stage(turnChatId, entity);
     }
 
-    private void safeEmit(Sinks.Many<String> sink, String payload) {
-        Sinks.EmitResult r = sink.tryEmitNext(payload);
-        if (r.isFailure()) {
-            log.warn("Emit failed: {}", r);
-            sink.emitNext(payload, Sinks.EmitFailureHandler.FAIL_FAST);
+    private void safeEmit(Sinks.Many<ChatEvent> sink, ChatEvent payload) {
+        if (payload == null) return;
+        synchronized (sink) {
+            Sinks.EmitResult r = sink.tryEmitNext(payload);
+            if (r.isFailure()) {
+                log.warn("Emit failed: {}", r);
+                sink.emitNext(payload, Sinks.EmitFailureHandler.FAIL_FAST);
+            }
         }
     }
 
 
-    private String buildMessageEvent(String text) {
-        return new JSONObject()
-                .put("type", ResponseType.MESSAGE.getValue())
-                .put("message", text)
-                .toString();
+    private ChatEvent buildMessageEvent(String text) {
+        return new ChatEvent.MessageEvent(text);
     }
 
-    private void saveChatMemory(String conversationId,
+    private void saveChatMemory(String turnChatId,
+                                String conversationId,
                                 String content,
                                 String title,
                                 String username,
                                 ChatMessageType type,
-                                List<ToolExecutionRequest> toolExecutionRequests,
                                 String chatId) {
 
         CustomChatMemory entity = new CustomChatMemory(
@@ -285,16 +372,8 @@ public class ChatService {
                 LocalDateTime.now()
         );
 
-        if (toolExecutionRequests != null) entity.setToolExecutionRequests(GSON.toJson(toolExecutionRequests));
-
         entity.setChatId(chatId);
-
-
-
-        if (chatId != null && chatMemoryRepo.existByChatId(chatId))
-            chatMemoryRepo.update(entity);
-        else
-            chatMemoryRepo.save(entity);
+        chatMemoryWriteBuffer.stage(turnChatId, entity);
     }
 
     public String generateTitle(String message) {
@@ -308,24 +387,7 @@ public class ChatService {
         )).aiMessage().text();
     }
 
-    private LinkedList<ChatMessage> createConversationHistory(String conversationId, String latestUserMessage) {
-        LinkedList<ChatMessage> history = chatMemoryRepo
-                .getMessagesByConversationId(conversationId, PageRequest.of(0, HISTORY_PAGE_SIZE, Sort.by("timestamp").ascending()))
-                .stream()
-                .map(this::getChatMessage)
-                .collect(Collectors.toCollection(LinkedList::new));
-
-        history.addLast(new UserMessage(latestUserMessage));
-        history.addFirst(new SystemMessage(SYSTEM_PROMPT));
-        return history;
-    }
-
-    private ChatMessage getChatMessage(MessageDto dto) {
-        if (dto.getType() == ChatMessageType.USER)
-            return new UserMessage(dto.getContent());
-        else if (dto.getType() == ChatMessageType.TOOL_EXECUTION_RESULT) {
-            return new ToolExecutionResultMessage(dto.getToolId(), dto.getToolName(), dto.getToolResponse());
-        } else
-            return new AiMessage(dto.getContent());
+    private Mono<LinkedList<ChatMessage>> createConversationHistory(String conversationId, String latestUserMessage) {
+        return contextBuilder.build(conversationId, SYSTEM_PROMPT, latestUserMessage);
     }
 }
@@ -1,49 +1,106 @@
 package com.aref.cloud_assistant_mcp.service;
 
 import com.aref.cloud_assistant_mcp.dto.*;
+import com.aref.cloud_assistant_mcp.repository.ChatMemoryStore;
 import com.aref.cloud_assistant_mcp.repository.CustomJdbcChatMemoryRepositoryImp;
-import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
 import java.util.UUID;
 
 @Service
 public class ConversationService {
 
+    private static final Logger log = LoggerFactory.getLogger(ConversationService.class);
+
+    private static final int QUICK_TITLE_MAX_LENGTH = 28;
+
     private final CustomJdbcChatMemoryRepositoryImp chatMemoryRepository;
+    private final ChatMemoryStore chatMemoryStore;
     private final ChatService chatService;
 
-    public ConversationService(CustomJdbcChatMemoryRepositoryImp chatMemoryRepository, ChatService chatService) {
+    public ConversationService(CustomJdbcChatMemoryRepositoryImp chatMemoryRepository,
+                               ChatMemoryStore chatMemoryStore,
+                               ChatService chatService) {
         this.chatMemoryRepository = chatMemoryRepository;
+        this.chatMemoryStore = chatMemoryStore;
         this.chatService = chatService;
     }
 
-    public Flux<String> create(ConversationCreateDto conversationCreateDto) {
+    public Flux<ChatEvent> create(ConversationCreateDto conversationCreateDto) {
         if(conversationCreateDto.isNew()) {
             String conversationId = UUID.randomUUID().toString();
             conversationCreateDto.setConversationId(conversationId);
         }
 
+        Mono<String> generatedTitle = Mono.empty();
         if(conversationCreateDto.getTitle() == null) {
-            String generateTitle = chatService.generateTitle(conversationCreateDto.getMessage());
-            conversationCreateDto.setTitle(generateTitle);
+            conversationCreateDto.setTitle(quickTitle(conversationCreateDto.getMessage()));
+            generatedTitle = generateTitle(conversationCreateDto.getMessage());
         }
 
-        PromptDto prompt = new PromptDto(conversationCreateDto.getMessage(), conversationCreateDto.getConversationId(), conversationCreateDto.getTitle());
+        String conversationId = conversationCreateDto.getConversationId();
+        PromptDto prompt = new PromptDto(conversationCreateDto.getMessage(), conversationId, conversationCreateDto.getTitle());
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 
-        return Flux.concat(
-                Flux.just(new JSONObject()
-                        .put("title", conversationCreateDto.getTitle())
-                        .put("conversationId", conversationCreateDto.getConversationId())
-                        .put("type", ResponseType.CONVERSATION_DETAIL_METADATA.getValue())
-                        .toString()),
-                chatService.prompt(prompt)
+        // The title is stored as soon as it is generated and independently of the chat stream, so it is
+        // kept when the model fails or the client goes away before the answer is complete.
+        Mono<String> storedTitle = generatedTitle
+                .flatMap(title -> chatMemoryStore.updateTitle(conversationId, user.getUsername(), title)
+                        .onErrorResume(e -> {
+                            log.warn("Could not store generated title of conversation {}: {}", conversationId, e.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(title))
+                .cache();
+        storedTitle.subscribe();
 
+        return Flux.concat(
+                Flux.just(buildMetadataEvent(conversationId, conversationCreateDto.getTitle(), false)),
+                Flux.merge(
+                        chatService.prompt(prompt),
+                        storedTitle.map(title -> buildMetadataEvent(conversationId, title, true))
+                )
         );
     }
 
+    private Mono<String> generateTitle(String message) {
+        return Mono.fromCallable(() -> chatService.generateTitle(message))
+                .subscribeOn(Schedulers.boundedElastic())
+                .filter(title -> title != null && !title.isBlank())
+                .onErrorResume(e -> {
+                    log.warn("Title generation failed, keeping quick title: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .cache();
+    }
+
+    private ChatEvent buildMetadataEvent(String conversationId, String title, boolean titleUpdate) {
+        return new ChatEvent.ConversationMetadataEvent(conversationId, title, titleUpdate);
+    }
+
+    static String quickTitle(String message) {
+        String text = message == null ? "" : message.strip().replaceAll("\\s+", " ");
+        if (text.length() <= QUICK_TITLE_MAX_LENGTH) return text;
+
+        int cut = text.lastIndexOf(' ', QUICK_TITLE_MAX_LENGTH - 1);
+        if (cut < QUICK_TITLE_MAX_LENGTH / 2) cut = QUICK_TITLE_MAX_LENGTH - 1;
+        return text.substring(0, cut).strip() + "…";
+    }
+
+    public boolean isOwner(String username, String conversationId) {
+        return chatMemoryRepository.isOwnedBy(conversationId, username);
+    }
+
     public Page<MessageDto> getMessages(String conversationId, Pageable page) {
         return chatMemoryRepository.getMessagesByConversationId(conversationId, page);
     }
@@ -51,4 +108,35 @@ public class ConversationService {
     public Page<ConversationDto> getConversations(String username, Pageable page) {
         return chatMemoryRepository.getConversationsByUsername(username, page);
     }
+
+    public CursorPageDto<MessageDto> getMessages(String conversationId, String after, int size) {
+        MessageCursor cursor = after == null || after.isBlank() ? null : MessageCursor.decode(after);
+        List<MessageDto> rows = chatMemoryRepository.getMessagesByConversationIdAfter(conversationId, cursor, size + 1);
+        List<MessageDto> items = rows.subList(0, Math.min(size, rows.size()));
+        String next = rows.size() > size ? MessageCursor.of(items.getLast()).encode() : null;
+        return new CursorPageDto<>(items, next);
+    }
+
+    /**
+     * Pages backwards from the newest message: items are newest-first and the cursor leads to older ones.
+     */
+    public CursorPageDto<MessageDto> getMessagesBefore(String conversationId, String before, int size) {
+        MessageCursor cursor = before == null || before.isBlank() ? null : MessageCursor.decode(before);
+        List<MessageDto> rows = chatMemoryRepository.getMessagesByConversationIdBefore(conversationId, cursor, size + 1);
+        List<MessageDto> items = rows.subList(0, Math.min(size, rows.size()));
+        String next = rows.size() > size ? MessageCursor.of(items.getLast()).encode() : null;
+        return new CursorPageDto<>(items, next);
+    }
+
+    public CursorPageDto<ConversationDto> getConversations(String username, String after, int size) {
+        ConversationCursor cursor = after == null || after.isBlank() ? null : ConversationCursor.decode(after);
+        List<ConversationDto> rows = chatMemoryRepository.getConversationsByUsernameAfter(username, cursor, size + 1);
+        List<ConversationDto> items = rows.subList(0, Math.min(size, rows.size()));
+        String next = rows.size() > size ? ConversationCursor.of(items.getLast()).encode() : null;
+        return new CursorPageDto<>(items, next);
+    }
+
+    public List<SearchHitDto> search(String username, String query, int size) {
+        return chatMemoryRepository.searchConversations(username, query, size);
+    }
 }
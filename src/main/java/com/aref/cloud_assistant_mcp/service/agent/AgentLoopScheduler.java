@@ -0,0 +1,116 @@
+package com.aref.cloud_assistant_mcp.service.agent;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * AgentLoopScheduler
+ * ------------------------------
+ * Runs agent loop steps (one model call plus the tools it requests) on a bounded number of slots.
+ * Waiting steps are ordered by how many steps their turn has already taken, so fresh turns are
+ * served before long-running tool loops. A step holds its slot until it calls the release callback,
+ * or until its turn's deadline passes: then a watchdog frees the slot and hands the turn to the
+ * step's expiry callback, so a hung model stream or tool call cannot keep a slot forever.
+ */
+@Component
+public class AgentLoopScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(AgentLoopScheduler.class);
+
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("agent-step-watchdog").daemon().factory());
+    private final PriorityQueue<PendingStep> queue = new PriorityQueue<>(
+            Comparator.comparingInt(PendingStep::priority).thenComparingLong(PendingStep::sequence));
+    private final AtomicLong sequence = new AtomicLong();
+
+    private int availableSlots;
+
+    public AgentLoopScheduler(@Value("${chat.agent.max-concurrent-steps:32}") int maxConcurrentSteps) {
+        this.availableSlots = maxConcurrentSteps;
+    }
+
+    public void submit(AgentTurn turn, Consumer<Runnable> step, Runnable onExpired) {
+        synchronized (queue) {
+            queue.add(new PendingStep(turn.getSteps(), sequence.getAndIncrement(), turn, step, onExpired));
+        }
+        dispatch();
+    }
+
+    public int queuedSteps() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void dispatch() {
+        while (true) {
+            PendingStep next;
+            synchronized (queue) {
+                if (availableSlots == 0 || queue.isEmpty()) return;
+                next = queue.poll();
+                availableSlots--;
+            }
+            workers.execute(() -> run(next));
+        }
+    }
+
+    private void run(PendingStep pending) {
+        AtomicBoolean released = new AtomicBoolean();
+        if (pending.turn().isExpired()) {
+            // Expired while queued: give the slot straight back instead of starting the step.
+            free(released);
+            pending.onExpired().run();
+            return;
+        }
+
+        ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+            if (free(released)) {
+                log.warn("Agent step of turn {} still running at its deadline, releasing its slot", pending.turn().getChatId());
+                pending.onExpired().run();
+            }
+        }, pending.turn().remaining().toMillis(), TimeUnit.MILLISECONDS);
+        Runnable release = () -> {
+            timeout.cancel(false);
+            free(released);
+        };
+        try {
+            pending.step().accept(release);
+        } catch (RuntimeException e) {
+            log.error("Agent step failed", e);
+            release.run();
+        }
+    }
+
+    private boolean free(AtomicBoolean released) {
+        if (!released.compareAndSet(false, true)) return false;
+        synchronized (queue) {
+            availableSlots++;
+        }
+        dispatch();
+        return true;
+    }
+
+    private record PendingStep(int priority, long sequence, AgentTurn turn, Consumer<Runnable> step, Runnable onExpired) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.aref.cloud_assistant_mcp.service.agent;
+
+import com.aref.cloud_assistant_mcp.dto.ChatEvent;
+import com.aref.cloud_assistant_mcp.dto.PromptDto;
+import dev.langchain4j.data.message.ChatMessage;
+import org.springframework.security.core.userdetails.User;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AgentTurn
+ * ------------------------------
+ * State of one user turn in the agent loop: the prompt, the growing message history,
+ * the output sink and the step budget (number of model calls and wall-clock deadline).
+ */
+public class AgentTurn {
+
+    private final PromptDto prompt;
+    private final LinkedList<ChatMessage> history;
+    private final User user;
+    private final Sinks.Many<ChatEvent> sink;
+    private final String chatId;
+    private final int maxSteps;
+    private final Instant deadline;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private int steps;
+
+    public AgentTurn(PromptDto prompt,
+                     LinkedList<ChatMessage> history,
+                     User user,
+                     Sinks.Many<ChatEvent> sink,
+                     String chatId,
+                     int maxSteps,
+                     Instant deadline) {
+        this.prompt = prompt;
+        this.history = history;
+        this.user = user;
+        this.sink = sink;
+        this.chatId = chatId;
+        this.maxSteps = maxSteps;
+        this.deadline = deadline;
+    }
+
+    public PromptDto getPrompt() {
+        return prompt;
+    }
+
+    public LinkedList<ChatMessage> getHistory() {
+        return history;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Sinks.Many<ChatEvent> getSink() {
+        return sink;
+    }
+
+    public String getChatId() {
+        return chatId;
+    }
+
+    public synchronized int getSteps() {
+        return steps;
+    }
+
+    public synchronized void nextStep() {
+        steps++;
+    }
+
+    public synchronized boolean hasStepsLeft() {
+        return steps < maxSteps;
+    }
+
+    public boolean isExpired() {
+        return Instant.now().isAfter(deadline);
+    }
+
+    public Duration remaining() {
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    /**
+     * Marks the turn finished; true only for the first caller, so a turn is completed exactly once
+     * even when a late model or tool callback races the deadline watchdog.
+     */
+    public boolean finish() {
+        return finished.compareAndSet(false, true);
+    }
+
+    public boolean isFinished() {
+        return finished.get();
+    }
+}
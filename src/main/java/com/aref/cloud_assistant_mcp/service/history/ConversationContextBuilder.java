@@ -0,0 +1,246 @@
+package com.aref.cloud_assistant_mcp.service.history;
+
+import com.aref.cloud_assistant_mcp.dto.MessageDto;
+import com.aref.cloud_assistant_mcp.repository.ChatMemoryStore;
+import com.aref.cloud_assistant_mcp.repository.payload.ToolResponseOffloader;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.*;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import jakarta.annotation.PreDestroy;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ConversationContextBuilder
+ * ------------------------------
+ * Builds the prompt history for a conversation within a token budget. Messages are taken
+ * newest-first; an AI message that requested tools is kept or dropped together with its tool
+ * results. Older messages that do not fit are replaced by a cached rolling summary, which is
+ * refreshed in the background so the prompt path never waits on the summarizer.
+ */
+@Service
+public class ConversationContextBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationContextBuilder.class);
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+    private static final int MAX_CACHED_SUMMARIES = 1_000;
+    private static final String SUMMARY_PREFIX = "Summary of the earlier part of this conversation:\n";
+
+    private final ChatMemoryStore chatMemoryStore;
+    private final OpenAiChatModel summaryModel;
+    private final ExecutorService summaryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<String> summariesInFlight = ConcurrentHashMap.newKeySet();
+    private final Map<String, Summary> summaries = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Summary> eldest) {
+                    return size() > MAX_CACHED_SUMMARIES;
+                }
+            });
+
+    private final int tokenBudget;
+    private final int maxMessages;
+    private final int maxToolResultChars;
+    private final boolean summariesEnabled;
+
+    public ConversationContextBuilder(ChatMemoryStore chatMemoryStore,
+                                      OpenAiChatModel summaryModel,
+                                      @Value("${chat.history.token-budget:6000}") int tokenBudget,
+                                      @Value("${chat.history.max-messages:200}") int maxMessages,
+                                      @Value("${chat.history.max-tool-result-chars:8000}") int maxToolResultChars,
+                                      @Value("${chat.history.summary.enabled:true}") boolean summariesEnabled) {
+        this.chatMemoryStore = chatMemoryStore;
+        this.summaryModel = summaryModel;
+        this.tokenBudget = tokenBudget;
+        this.maxMessages = maxMessages;
+        this.maxToolResultChars = maxToolResultChars;
+        this.summariesEnabled = summariesEnabled;
+    }
+
+    public Mono<LinkedList<ChatMessage>> build(String conversationId, String systemPrompt, String latestUserMessage) {
+        return chatMemoryStore.findRecentMessages(conversationId, maxMessages)
+                .map(newestFirst -> build(conversationId, newestFirst, systemPrompt, latestUserMessage));
+    }
+
+    LinkedList<ChatMessage> build(String conversationId,
+                                  List<MessageDto> newestFirst,
+                                  String systemPrompt,
+                                  String latestUserMessage) {
+        Summary summary = summaries.get(conversationId);
+        int budget = tokenBudget - estimateTokens(systemPrompt) - estimateTokens(latestUserMessage)
+                - (summary != null ? estimateTokens(summary.text()) : 0);
+
+        List<Unit> units = groupIntoUnits(newestFirst);
+        LinkedList<ChatMessage> history = new LinkedList<>();
+        int used = 0;
+        int kept = 0;
+        for (Unit unit : units) {
+            if (used + unit.tokens() > budget) break;
+            history.addAll(0, unit.messages());
+            used += unit.tokens();
+            kept++;
+        }
+
+        List<Unit> dropped = units.subList(kept, units.size());
+        if (!dropped.isEmpty()) refreshSummary(conversationId, summary, dropped);
+
+        if (summary != null && !dropped.isEmpty()) history.addFirst(new SystemMessage(SUMMARY_PREFIX + summary.text()));
+        history.addLast(new UserMessage(latestUserMessage));
+        history.addFirst(new SystemMessage(systemPrompt));
+        return history;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        summaryExecutor.shutdownNow();
+    }
+
+    private List<Unit> groupIntoUnits(List<MessageDto> newestFirst) {
+        List<Unit> units = new ArrayList<>();
+        LinkedList<ToolExecutionResultMessage> pendingToolResults = new LinkedList<>();
+        int pendingTokens = 0;
+        long pendingNewestId = -1;
+
+        for (MessageDto dto : newestFirst) {
+            if (dto.getType() == ChatMessageType.TOOL_EXECUTION_RESULT) {
+                String response = truncate(ToolResponseOffloader.summaryOf(dto.getToolResponse()));
+                pendingToolResults.addFirst(new ToolExecutionResultMessage(dto.getToolId(), dto.getToolName(), response));
+                pendingTokens += estimateTokens(response);
+                if (pendingNewestId < 0) pendingNewestId = idOf(dto);
+                continue;
+            }
+
+            boolean blank = dto.getContent() == null || dto.getContent().isBlank();
+            List<ToolExecutionRequest> requests = dto.getType() == ChatMessageType.AI
+                    ? answered(parseToolRequests(dto.getToolExecutionRequests()), pendingToolResults)
+                    : List.of();
+            if (!requests.isEmpty()) {
+                // The API rejects a tool call without its result and a result without its call, so only matched pairs are kept.
+                Set<String> requestIds = new HashSet<>();
+                requests.forEach(request -> requestIds.add(request.id()));
+                LinkedList<ChatMessage> messages = new LinkedList<>();
+                messages.add(blank ? AiMessage.from(requests) : AiMessage.from(dto.getContent(), requests));
+                pendingToolResults.stream().filter(result -> requestIds.contains(result.id())).forEach(messages::add);
+                units.add(new Unit(messages,
+                        pendingTokens + estimateTokens(dto.getContent()) + estimateTokens(dto.getToolExecutionRequests()),
+                        Math.max(pendingNewestId, idOf(dto))));
+            } else if (!blank) {
+                // Tool results whose requesting AI message is gone cannot be sent on their own.
+                ChatMessage message = dto.getType() == ChatMessageType.USER
+                        ? new UserMessage(dto.getContent())
+                        : new AiMessage(dto.getContent());
+                units.add(new Unit(List.of(message), estimateTokens(dto.getContent()), idOf(dto)));
+            }
+            pendingToolResults.clear();
+            pendingTokens = 0;
+            pendingNewestId = -1;
+        }
+        return units;
+    }
+
+    private static List<ToolExecutionRequest> answered(List<ToolExecutionRequest> requests,
+                                                       List<ToolExecutionResultMessage> results) {
+        Set<String> resultIds = new HashSet<>();
+        results.forEach(result -> resultIds.add(result.id()));
+        return requests.stream().filter(request -> resultIds.contains(request.id())).toList();
+    }
+
+    private void refreshSummary(String conversationId, Summary current, List<Unit> droppedNewestFirst) {
+        if (!summariesEnabled) return;
+
+        long newestDroppedId = droppedNewestFirst.getFirst().newestId();
+        if (current != null && current.coveredUpToId() >= newestDroppedId) return;
+        if (!summariesInFlight.add(conversationId)) return;
+
+        long coveredUpToId = current != null ? current.coveredUpToId() : -1;
+        List<Unit> uncovered = droppedNewestFirst.stream().filter(u -> u.newestId() > coveredUpToId).toList();
+
+        summaryExecutor.execute(() -> {
+            try {
+                String text = summarize(current, uncovered);
+                if (text != null && !text.isBlank())
+                    summaries.put(conversationId, new Summary(newestDroppedId, text.strip()));
+            } catch (RuntimeException e) {
+                log.warn("Summarizing history of {} failed: {}", conversationId, e.getMessage());
+            } finally {
+                summariesInFlight.remove(conversationId);
+            }
+        });
+    }
+
+    private String summarize(Summary current, List<Unit> uncoveredNewestFirst) {
+        StringBuilder transcript = new StringBuilder();
+        for (int i = uncoveredNewestFirst.size() - 1; i >= 0; i--) {
+            for (ChatMessage message : uncoveredNewestFirst.get(i).messages()) {
+                transcript.append(message.type()).append(": ").append(textOf(message)).append('\n');
+            }
+        }
+
+        return summaryModel.chat(List.of(new SystemMessage(String.format("""
+                Update the running summary of a conversation between a user and an AWS assistant.
+                Keep resource IDs, names, regions and decisions. Maximum 150 words. Don't use any tools.
+                Current summary:
+                %s
+                New messages:
+                %s
+                """, current != null ? current.text() : "(none)", truncate(transcript.toString()))))).aiMessage().text();
+    }
+
+    private static String textOf(ChatMessage message) {
+        if (message instanceof UserMessage user) return user.singleText();
+        if (message instanceof AiMessage ai) return ai.text();
+        if (message instanceof ToolExecutionResultMessage tool) return tool.toolName() + " -> " + tool.text();
+        return "";
+    }
+
+    private static List<ToolExecutionRequest> parseToolRequests(String json) {
+        if (json == null || json.isBlank()) return List.of();
+        try {
+            JSONArray array = new JSONArray(json);
+            List<ToolExecutionRequest> requests = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject obj = array.getJSONObject(i);
+                requests.add(ToolExecutionRequest.builder()
+                        .id(obj.optString("id", null))
+                        .name(obj.optString("name", null))
+                        .arguments(obj.optString("arguments", null))
+                        .build());
+            }
+            return requests;
+        } catch (RuntimeException e) {
+            log.warn("Ignoring unreadable tool execution requests: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private String truncate(String text) {
+        if (text == null || text.length() <= maxToolResultChars) return text;
+        return text.substring(0, maxToolResultChars) + "... [truncated]";
+    }
+
+    private static long idOf(MessageDto dto) {
+        return dto.getId() != null ? dto.getId() : -1;
+    }
+
+    static int estimateTokens(String text) {
+        return (text == null ? 0 : text.length() / CHARS_PER_TOKEN) + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    private record Unit(List<ChatMessage> messages, int tokens, long newestId) {
+    }
+
+    private record Summary(long coveredUpToId, String text) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.aref.cloud_assistant_mcp.service.strategy;
 
+import com.aref.cloud_assistant_mcp.dto.ChatEvent;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 
 import java.util.List;
@@ -15,7 +16,7 @@ public class ToolCallContext {
     }
 
 
-    public String handle(ToolExecutionRequest toolExecutionRequest, String response) {
+    public ChatEvent handle(ToolExecutionRequest toolExecutionRequest, String response) {
         String toolId = toolExecutionRequest.id();
         return strategies.stream()
                 .filter(strategy -> strategy.supports(toolId))
@@ -1,5 +1,6 @@
 package com.aref.cloud_assistant_mcp.service.strategy;
 
+import com.aref.cloud_assistant_mcp.dto.ChatEvent;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 
 
@@ -8,5 +9,5 @@ public interface ToolCallStrategy {
 
     boolean supports(String toolId);
 
-    String handleToolCall(ToolExecutionRequest toolExecutionRequest, String response);
+    ChatEvent handleToolCall(ToolExecutionRequest toolExecutionRequest, String response);
 }
@@ -5,25 +5,57 @@ import dev.langchain4j.agent.tool.Tool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.exception.SdkException;
-import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
 import software.amazon.awssdk.services.ec2.model.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class AWSEc2Tools {
 
     private static final Logger log = LoggerFactory.getLogger(AWSEc2Tools.class);
-    private final Ec2Client ec2;
+    private static final String CACHE_SCOPE = "ec2";
+    private static final int DEFAULT_LIST_LIMIT = 50;
+    private static final int MIN_LIST_LIMIT = 5;
+    private static final int MAX_LIST_LIMIT = 1000;
+    private static final String INSTANCE_NOT_FOUND = "InvalidInstanceID.NotFound";
+    private static final int BULK_CHUNK_SIZE = 100;
+    private static final int MAX_BULK_INSTANCES = 500;
+    private static final List<String> LIVE_STATES = List.of("pending", "running", "stopping", "stopped", "shutting-down");
 
-    public AWSEc2Tools(Ec2Client ec2) {
+    private static final Map<String, Function<Instance, Object>> FIELDS = new LinkedHashMap<>();
+    static {
+        FIELDS.put("instanceId", Instance::instanceId);
+        FIELDS.put("instanceType", Instance::instanceTypeAsString);
+        FIELDS.put("instanceState", i -> i.state() != null ? i.state().nameAsString() : "UNKNOWN");
+        FIELDS.put("privateIp", Instance::privateIpAddress);
+        FIELDS.put("publicIp", i -> i.publicIpAddress() != null ? i.publicIpAddress() : "UNKNOWN");
+        FIELDS.put("launchTime", i -> i.launchTime() != null ? i.launchTime().toString() : "UNKNOWN");
+        FIELDS.put("tags", AWSEc2Tools::tags);
+        FIELDS.put("name", i -> tags(i).getOrDefault("Name", "UNKNOWN"));
+        FIELDS.put("az", i -> i.placement() != null ? i.placement().availabilityZone() : "UNKNOWN");
+        FIELDS.put("imageId", Instance::imageId);
+    }
+    private static final List<String> DEFAULT_FIELDS = List.of("instanceId", "name", "instanceType", "instanceState", "az");
+
+    private final Ec2AsyncClient ec2;
+    private final Ec2RegionClients regionClients;
+    private final AwsToolResultCache cache;
+
+    public AWSEc2Tools(Ec2AsyncClient ec2, Ec2RegionClients regionClients, AwsToolResultCache cache) {
         this.ec2 = ec2;
+        this.regionClients = regionClients;
+        this.cache = cache;
     }
 
     @Tool(name = "aws_ec2_create",
             value = "Create an AWS EC2 instance and return its details (id & name).")
-    public Map<String, Object> aws_create_ec2(
+    public CompletableFuture<Map<String, Object>> aws_create_ec2(
             @P(value = "EC2 Name") String name,
             @P(value = "Instance type, e.g. t3.micro", required = false) String instanceType,
             @P(value = "AMI ID (optional). If null uses default Amazon Linux 2023", required = false) String amiId,
@@ -33,194 +65,607 @@ public class AWSEc2Tools {
     ) {
         String type = (instanceType == null || instanceType.isBlank()) ? "t3.micro" : instanceType.trim();
         String image = (amiId == null || amiId.isBlank()) ? "ami-0c101f26f147fa7fd" : amiId.trim();
-        try {
-            List<String> sgIds = (securityGroupIds == null || securityGroupIds.isBlank())
-                    ? Collections.emptyList()
-                    : Arrays.stream(securityGroupIds.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
-
-            RunInstancesRequest.Builder rb = RunInstancesRequest.builder()
-                    .imageId(image)
-                    .instanceType(InstanceType.fromValue(type))
-                    .minCount(1)
-                    .maxCount(1);
-
-            if (keyName != null && !keyName.isBlank()) rb.keyName(keyName.trim());
-            if (!sgIds.isEmpty()) rb.securityGroupIds(sgIds);
-            if (subnetId != null && !subnetId.isBlank()) rb.subnetId(subnetId.trim());
-
-            String nameVal = nameTagSpec(name);
-            if (nameVal != null) {
-                rb.tagSpecifications(TagSpecification.builder()
-                        .resourceType(ResourceType.INSTANCE)
-                        .tags(Tag.builder().key("Name").value(nameVal).build())
-                        .build());
-            }
-
-            RunInstancesResponse run = ec2.runInstances(rb.build());
-            String id = run.instances().getFirst().instanceId();
-
-            if (nameVal != null) {
-                ec2.createTags(CreateTagsRequest.builder()
-                        .resources(id)
-                        .tags(Tag.builder().key("Name").value(nameVal).build())
-                        .build());
-            }
-
-            return ok(Map.of("instanceId", id, "instanceName", nameVal, "instanceState", "PENDING"));
-        } catch (Ec2Exception e) {
-            log.error("EC2 error on create: {}", e.awsErrorDetails() != null ? e.awsErrorDetails().errorMessage() : e.getMessage(), e);
-            return err(e.awsErrorDetails() != null ? e.awsErrorDetails().errorMessage() : e.getMessage());
-        } catch (SdkException e) {
-            log.error("SDK error on create: {}", e.getMessage(), e);
-            return err(e.getMessage());
+        List<String> sgIds = (securityGroupIds == null || securityGroupIds.isBlank())
+                ? Collections.emptyList()
+                : Arrays.stream(securityGroupIds.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+
+        RunInstancesRequest.Builder rb = RunInstancesRequest.builder()
+                .imageId(image)
+                .instanceType(InstanceType.fromValue(type))
+                .minCount(1)
+                .maxCount(1);
+
+        if (keyName != null && !keyName.isBlank()) rb.keyName(keyName.trim());
+        if (!sgIds.isEmpty()) rb.securityGroupIds(sgIds);
+        if (subnetId != null && !subnetId.isBlank()) rb.subnetId(subnetId.trim());
+
+        String nameVal = nameTagSpec(name);
+        if (nameVal != null) {
+            rb.tagSpecifications(TagSpecification.builder()
+                    .resourceType(ResourceType.INSTANCE)
+                    .tags(Tag.builder().key("Name").value(nameVal).build())
+                    .build());
         }
+
+        return ec2.runInstances(rb.build())
+                .thenCompose(run -> {
+                    invalidateCache();
+                    String id = run.instances().getFirst().instanceId();
+                    CompletableFuture<?> tagged = nameVal == null
+                            ? CompletableFuture.completedFuture(null)
+                            : ec2.createTags(CreateTagsRequest.builder()
+                                    .resources(id)
+                                    .tags(Tag.builder().key("Name").value(nameVal).build())
+                                    .build());
+                    return tagged.thenApply(ignored -> {
+                        Map<String, Object> body = new LinkedHashMap<>();
+                        body.put("instanceId", id);
+                        body.put("instanceName", nameVal);
+                        body.put("instanceState", "PENDING");
+                        return ok(body);
+                    });
+                })
+                .exceptionally(recover("Create"));
     }
 
     @Tool(name = "aws_ec2_list",
-            value = "Returns the list of EC2 instances. Optional filter: RUNNING, STOPPED, TERMINATED, PENDING, SHUTTING-DOWN, STOPPING.")
-    public List<Map<String, Object>> aws_ec2_list(
-            @P(value = "Optional filter for EC2 state", required = false) String ec2State
+            value = "Lists EC2 instances one bounded page at a time. Optional state filter: RUNNING, STOPPED, TERMINATED, "
+                    + "PENDING, SHUTTING-DOWN, STOPPING. Pass nextToken from a previous result to get the next page. "
+                    + "Use mode SUMMARY to get only counts by state, type and availability zone over the whole fleet. "
+                    + "Set regions to a list of regions or ALL to query them in parallel; regions that fail are listed in failedRegions.")
+    public CompletableFuture<Map<String, Object>> aws_ec2_list(
+            @P(value = "Optional filter for EC2 state", required = false) String ec2State,
+            @P(value = "Max instances to return (optional, default 50, 5-1000), per region", required = false) Integer limit,
+            @P(value = "nextToken of the previous page (optional, single region only)", required = false) String nextToken,
+            @P(value = "Comma-separated fields to return (optional): instanceId, name, instanceType, instanceState, "
+                    + "az, privateIp, publicIp, launchTime, imageId, tags. Default: instanceId, name, instanceType, "
+                    + "instanceState, az", required = false) String fields,
+            @P(value = "LIST (default) or SUMMARY", required = false) String mode,
+            @P(value = "Regions (optional): comma-separated, e.g. us-east-1,eu-west-1, or ALL. Default: the configured region",
+                    required = false) String regions
     ) {
-        try {
-            DescribeInstancesRequest.Builder db = DescribeInstancesRequest.builder();
-            if (ec2State != null && !ec2State.isBlank()) {
-                db.filters(Filter.builder()
-                        .name("instance-state-name")
-                        .values(ec2State.trim().toLowerCase())
-                        .build());
-            }
-
-            String token = null;
-            List<Map<String, Object>> out = new ArrayList<>();
-            do {
-                DescribeInstancesResponse resp = ec2.describeInstances(db.nextToken(token).build());
-                resp.reservations().forEach(r ->
-                        r.instances().forEach(i -> out.add(instanceToMap(i))));
-                token = resp.nextToken();
-            } while (token != null && !token.isEmpty());
-
-            return out;
-        } catch (SdkException e) {
-            log.error("List error: {}", e.getMessage(), e);
-            return List.of(Map.of("ok", false, "error", e.getMessage()));
+        boolean summary = "SUMMARY".equalsIgnoreCase(mode == null ? null : mode.trim());
+        List<String> projection = summary ? List.of() : projection(fields);
+        if (projection == null) {
+            return CompletableFuture.completedFuture(
+                    err("Unknown field in '" + fields + "'. Allowed: " + String.join(", ", FIELDS.keySet())));
+        }
+        int pageLimit = limit == null ? DEFAULT_LIST_LIMIT : Math.clamp(limit, MIN_LIST_LIMIT, MAX_LIST_LIMIT);
+
+        if (regions == null || regions.isBlank())
+            return listIn(region(), ec2State, summary, pageLimit, nextToken, projection);
+
+        boolean all = regions.trim().equalsIgnoreCase(Ec2RegionClients.ALL_REGIONS);
+        if (!all && Ec2RegionClients.parse(regions).size() == 1) {
+            String region = Ec2RegionClients.parse(regions).getFirst();
+            return listIn(region, ec2State, summary, pageLimit, nextToken, projection).thenApply(result -> withRegion(result, region));
         }
+        if (nextToken != null && !nextToken.isBlank())
+            return CompletableFuture.completedFuture(err("nextToken can only be used with a single region."));
+
+        return regionClients.resolve(regions)
+                .thenCompose(resolved -> regionClients.fanOut(resolved,
+                        region -> listIn(region, ec2State, summary, pageLimit, null, projection)))
+                .thenApply(results -> summary ? mergeSummaries(results) : mergeLists(results))
+                .exceptionally(recover("List"));
+    }
+
+    private CompletableFuture<Map<String, Object>> listIn(String region, String ec2State, boolean summary, int limit,
+                                                          String nextToken, List<String> projection) {
+        Ec2AsyncClient client = regionClients.client(region);
+        if (summary) {
+            return cache.get("aws_ec2_list", region, CACHE_SCOPE, Arrays.asList(ec2State, "SUMMARY"),
+                    () -> summarizeInstances(client, ec2State));
+        }
+        return cache.get("aws_ec2_list", region, CACHE_SCOPE, Arrays.asList(ec2State, limit, nextToken, projection),
+                () -> listInstances(client, ec2State, limit, nextToken, projection));
+    }
+
+    /**
+     * Follows DescribeInstances pages only until {@code limit} instances are collected and hands EC2's
+     * token back as the cursor, so neither the heap nor the tool result grows with the fleet.
+     */
+    private CompletableFuture<Map<String, Object>> listInstances(Ec2AsyncClient client, String ec2State, int limit,
+                                                                 String nextToken, List<String> projection) {
+        String token = nextToken == null || nextToken.isBlank() ? null : nextToken.trim();
+        List<Map<String, Object>> out = new ArrayList<>();
+        return listPages(client, describeRequest(ec2State), token, limit, projection, out)
+                .thenApply(next -> {
+                    boolean truncated = next != null && !next.isEmpty();
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("count", out.size());
+                    body.put("isTruncated", truncated);
+                    body.put("nextToken", truncated ? next : "");
+                    body.put("instances", out);
+                    return ok(body);
+                })
+                .exceptionally(recover("List"));
+    }
+
+    private CompletableFuture<String> listPages(Ec2AsyncClient client, DescribeInstancesRequest.Builder db, String token,
+                                                int limit, List<String> projection, List<Map<String, Object>> out) {
+        return client.describeInstances(db.nextToken(token).maxResults(limit - out.size()).build())
+                .thenCompose(resp -> {
+                    resp.reservations().forEach(r ->
+                            r.instances().forEach(i -> out.add(project(i, projection))));
+                    String next = resp.nextToken();
+                    // EC2 rejects MaxResults below 5, so a remainder smaller than that is left for the next call.
+                    if (next == null || next.isEmpty() || limit - out.size() < MIN_LIST_LIMIT)
+                        return CompletableFuture.completedFuture(next);
+                    return listPages(client, db, next, limit, projection, out);
+                });
+    }
+
+    private CompletableFuture<Map<String, Object>> summarizeInstances(Ec2AsyncClient client, String ec2State) {
+        Map<String, Integer> byState = new TreeMap<>();
+        Map<String, Integer> byType = new TreeMap<>();
+        Map<String, Integer> byAz = new TreeMap<>();
+        int[] total = {0};
+
+        // The paginator requests the next page only after the previous one was consumed.
+        return client.describeInstancesPaginator(describeRequest(ec2State).maxResults(MAX_LIST_LIMIT).build())
+                .subscribe(resp -> {
+                    for (Reservation r : resp.reservations()) {
+                        for (Instance i : r.instances()) {
+                            total[0]++;
+                            byState.merge(String.valueOf(FIELDS.get("instanceState").apply(i)), 1, Integer::sum);
+                            byType.merge(String.valueOf(FIELDS.get("instanceType").apply(i)), 1, Integer::sum);
+                            byAz.merge(String.valueOf(FIELDS.get("az").apply(i)), 1, Integer::sum);
+                        }
+                    }
+                })
+                .thenApply(done -> ok(Map.of("total", total[0], "byState", byState, "byType", byType, "byAz", byAz)))
+                .exceptionally(recover("Summary"));
+    }
+
+    private static DescribeInstancesRequest.Builder describeRequest(String ec2State) {
+        DescribeInstancesRequest.Builder db = DescribeInstancesRequest.builder();
+        if (ec2State != null && !ec2State.isBlank()) {
+            db.filters(Filter.builder()
+                    .name("instance-state-name")
+                    .values(ec2State.trim().toLowerCase())
+                    .build());
+        }
+        return db;
     }
 
     @Tool(name = "aws_ec2_describe",
-            value = "Describe a single EC2 instance by ID.")
-    public Map<String, Object> aws_ec2_describe(@P(value = "Instance ID") String instanceId) {
-        try {
-            DescribeInstancesResponse resp = ec2.describeInstances(r -> r.instanceIds(instanceId));
-            Instance inst = resp.reservations().stream()
-                    .flatMap(res -> res.instances().stream())
-                    .findFirst().orElse(null);
-            if (inst == null) return err("Instance not found: " + instanceId);
-            return ok(instanceToMap(inst));
-        } catch (SdkException e) {
-            log.error("Describe error: {}", e.getMessage(), e);
-            return err(e.getMessage());
+            value = "Describe a single EC2 instance by ID. Set regions to a list of regions or ALL to search them in parallel.")
+    public CompletableFuture<Map<String, Object>> aws_ec2_describe(
+            @P(value = "Instance ID") String instanceId,
+            @P(value = "Regions to search (optional): comma-separated or ALL. Default: the configured region",
+                    required = false) String regions
+    ) {
+        if (regions == null || regions.isBlank()) {
+            return cache.get("aws_ec2_describe", region(), CACHE_SCOPE, Arrays.asList(instanceId),
+                    () -> describeInstance(instanceId));
         }
+
+        return regionClients.resolve(regions)
+                .thenCompose(resolved -> regionClients.fanOut(resolved,
+                        region -> cache.get("aws_ec2_describe", region, CACHE_SCOPE, Arrays.asList(instanceId, "find"),
+                                () -> findInstance(regionClients.client(region), instanceId))))
+                .thenApply(results -> {
+                    Map<String, Object> out = results.succeeded().entrySet().stream()
+                            .filter(e -> !Boolean.FALSE.equals(e.getValue().get("found")))
+                            .findFirst()
+                            .map(e -> withRegion(e.getValue(), e.getKey()))
+                            .orElseGet(() -> new LinkedHashMap<>(err("Instance not found: " + instanceId)));
+                    out.put("failedRegions", results.failed());
+                    return out;
+                })
+                .exceptionally(recover("Describe"));
     }
 
-    @Tool(name = "aws_ec2_start", value = "Start a STOPPED EC2 instance.")
-    public Map<String, Object> aws_ec2_start(@P(value = "Instance ID") String instanceId) {
-        try {
-            StartInstancesResponse r = ec2.startInstances(StartInstancesRequest.builder()
-                    .instanceIds(instanceId).build());
-            String state = r.startingInstances().isEmpty()
-                    ? "UNKNOWN"
-                    : r.startingInstances().getFirst().currentState().nameAsString();
-            return ok(Map.of("instanceId", instanceId, "instanceState", state));
-        } catch (SdkException e) {
-            log.error("Start error: {}", e.getMessage(), e);
-            return err(e.getMessage());
+    private CompletableFuture<Map<String, Object>> describeInstance(String instanceId) {
+        return ec2.describeInstances(r -> r.instanceIds(instanceId))
+                .thenApply(resp -> resp.reservations().stream()
+                        .flatMap(res -> res.instances().stream())
+                        .findFirst()
+                        .map(inst -> ok(instanceToMap(inst)))
+                        .orElseGet(() -> err("Instance not found: " + instanceId)))
+                .exceptionally(recover("Describe"));
+    }
+
+    /**
+     * Like {@link #describeInstance} for one region of a fan-out, where "not in this region" is a normal result.
+     */
+    private CompletableFuture<Map<String, Object>> findInstance(Ec2AsyncClient client, String instanceId) {
+        return client.describeInstances(r -> r.instanceIds(instanceId))
+                .thenApply(resp -> resp.reservations().stream()
+                        .flatMap(res -> res.instances().stream())
+                        .findFirst()
+                        .map(inst -> ok(instanceToMap(inst)))
+                        .orElseGet(() -> ok(Map.of("found", false))))
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof AwsServiceException ase && ase.awsErrorDetails() != null
+                            && INSTANCE_NOT_FOUND.equals(ase.awsErrorDetails().errorCode()))
+                        return ok(Map.of("found", false));
+                    return recover("Describe").apply(error);
+                });
+    }
+
+    private static Map<String, Object> mergeLists(Ec2RegionClients.RegionResults results) {
+        Map<String, Object> byRegion = new LinkedHashMap<>();
+        int count = 0;
+        for (Map.Entry<String, Map<String, Object>> region : results.succeeded().entrySet()) {
+            Map<String, Object> page = new LinkedHashMap<>(region.getValue());
+            page.remove("ok");
+            count += (Integer) page.get("count");
+            byRegion.put(region.getKey(), page);
         }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("count", count);
+        body.put("regions", byRegion);
+        return regionResult(results, body);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> mergeSummaries(Ec2RegionClients.RegionResults results) {
+        Map<String, Integer> byState = new TreeMap<>();
+        Map<String, Integer> byType = new TreeMap<>();
+        Map<String, Integer> byAz = new TreeMap<>();
+        Map<String, Integer> byRegion = new TreeMap<>();
+        int total = 0;
+        for (Map.Entry<String, Map<String, Object>> region : results.succeeded().entrySet()) {
+            Map<String, Object> summary = region.getValue();
+            int regionTotal = (Integer) summary.get("total");
+            total += regionTotal;
+            byRegion.put(region.getKey(), regionTotal);
+            ((Map<String, Integer>) summary.get("byState")).forEach((k, v) -> byState.merge(k, v, Integer::sum));
+            ((Map<String, Integer>) summary.get("byType")).forEach((k, v) -> byType.merge(k, v, Integer::sum));
+            ((Map<String, Integer>) summary.get("byAz")).forEach((k, v) -> byAz.merge(k, v, Integer::sum));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("total", total);
+        body.put("byRegion", byRegion);
+        body.put("byState", byState);
+        body.put("byType", byType);
+        body.put("byAz", byAz);
+        return regionResult(results, body);
+    }
+
+    private static Map<String, Object> regionResult(Ec2RegionClients.RegionResults results, Map<String, Object> body) {
+        Map<String, Object> out = results.succeeded().isEmpty() && !results.failed().isEmpty()
+                ? new LinkedHashMap<>(err("All regions failed."))
+                : ok(body);
+        out.put("failedRegions", results.failed());
+        return out;
+    }
+
+    private static Map<String, Object> withRegion(Map<String, Object> result, String region) {
+        Map<String, Object> out = new LinkedHashMap<>(result);
+        out.put("region", region);
+        return out;
+    }
+
+    @Tool(name = "aws_ec2_start", value = "Start a STOPPED EC2 instance.")
+    public CompletableFuture<Map<String, Object>> aws_ec2_start(@P(value = "Instance ID") String instanceId) {
+        return ec2.startInstances(StartInstancesRequest.builder().instanceIds(instanceId).build())
+                .thenApply(r -> {
+                    invalidateCache();
+                    String state = r.startingInstances().isEmpty()
+                            ? "UNKNOWN"
+                            : r.startingInstances().getFirst().currentState().nameAsString();
+                    return ok(Map.of("instanceId", instanceId, "instanceState", state));
+                })
+                .exceptionally(recover("Start"));
     }
 
     @Tool(name = "aws_ec2_stop", value = "Stop a RUNNING EC2 instance.")
-    public Map<String, Object> aws_ec2_stop(
+    public CompletableFuture<Map<String, Object>> aws_ec2_stop(
             @P(value = "Instance ID") String instanceId,
             @P(value = "Force stop?", required = false) Boolean force
     ) {
-        try {
-            StopInstancesResponse r = ec2.stopInstances(StopInstancesRequest.builder()
-                    .instanceIds(instanceId)
-                    .force(Boolean.TRUE.equals(force))
-                    .build());
-            String state = r.stoppingInstances().isEmpty()
-                    ? "UNKNOWN"
-                    : r.stoppingInstances().getFirst().currentState().nameAsString();
-            return ok(Map.of("instanceId", instanceId, "instanceState", state));
-        } catch (SdkException e) {
-            log.error("Stop error: {}", e.getMessage(), e);
-            return err(e.getMessage());
-        }
+        return ec2.stopInstances(StopInstancesRequest.builder()
+                        .instanceIds(instanceId)
+                        .force(Boolean.TRUE.equals(force))
+                        .build())
+                .thenApply(r -> {
+                    invalidateCache();
+                    String state = r.stoppingInstances().isEmpty()
+                            ? "UNKNOWN"
+                            : r.stoppingInstances().getFirst().currentState().nameAsString();
+                    return ok(Map.of("instanceId", instanceId, "instanceState", state));
+                })
+                .exceptionally(recover("Stop"));
     }
 
     @Tool(name = "aws_ec2_reboot", value = "Reboot a RUNNING EC2 instance.")
-    public Map<String, Object> aws_ec2_reboot(@P(value = "Instance ID") String instanceId) {
-        try {
-            ec2.rebootInstances(RebootInstancesRequest.builder().instanceIds(instanceId).build());
-            return ok(Map.of("instanceId", instanceId, "message", "Reboot initiated"));
-        } catch (SdkException e) {
-            log.error("Reboot error: {}", e.getMessage(), e);
-            return err(e.getMessage());
-        }
+    public CompletableFuture<Map<String, Object>> aws_ec2_reboot(@P(value = "Instance ID") String instanceId) {
+        return ec2.rebootInstances(RebootInstancesRequest.builder().instanceIds(instanceId).build())
+                .thenApply(r -> {
+                    invalidateCache();
+                    return ok(Map.of("instanceId", instanceId, "message", "Reboot initiated"));
+                })
+                .exceptionally(recover("Reboot"));
     }
 
     @Tool(name = "aws_ec2_terminate", value = "Terminate an EC2 instance.")
-    public Map<String, Object> aws_ec2_terminate(@P(value = "Instance ID") String instanceId) {
-        try {
-            TerminateInstancesResponse r = ec2.terminateInstances(TerminateInstancesRequest.builder()
-                    .instanceIds(instanceId).build());
-            String state = r.terminatingInstances().isEmpty()
-                    ? "UNKNOWN"
-                    : r.terminatingInstances().getFirst().currentState().nameAsString();
-            return ok(Map.of("instanceId", instanceId, "instanceState", state));
-        } catch (SdkException e) {
-            log.error("Terminate error: {}", e.getMessage(), e);
-            return err(e.getMessage());
-        }
+    public CompletableFuture<Map<String, Object>> aws_ec2_terminate(@P(value = "Instance ID") String instanceId) {
+        return ec2.terminateInstances(TerminateInstancesRequest.builder().instanceIds(instanceId).build())
+                .thenApply(r -> {
+                    invalidateCache();
+                    String state = r.terminatingInstances().isEmpty()
+                            ? "UNKNOWN"
+                            : r.terminatingInstances().getFirst().currentState().nameAsString();
+                    return ok(Map.of("instanceId", instanceId, "instanceState", state));
+                })
+                .exceptionally(recover("Terminate"));
     }
 
     @Tool(name = "aws_ec2_tag", value = "Add or update a tag on an EC2 instance. Provide key and value.")
-    public Map<String, Object> aws_ec2_tag(
+    public CompletableFuture<Map<String, Object>> aws_ec2_tag(
             @P(value = "Instance ID") String instanceId,
             @P(value = "Tag key") String key,
             @P(value = "Tag value") String value
     ) {
-        if (key == null || key.isBlank()) return err("Tag key is required.");
-        if (value == null || value.isBlank()) return err("Value key is required.");
-        try {
-            ec2.createTags(CreateTagsRequest.builder()
-                    .resources(instanceId)
-                    .tags(Tag.builder().key(key).value(value).build())
-                    .build());
-            return ok(Map.of("instanceId", instanceId, "tagSet", Map.of(key, value)));
-        } catch (SdkException e) {
-            log.error("Tag error: {}", e.getMessage(), e);
-            return err(e.getMessage());
-        }
+        if (key == null || key.isBlank()) return CompletableFuture.completedFuture(err("Tag key is required."));
+        if (value == null || value.isBlank()) return CompletableFuture.completedFuture(err("Value key is required."));
+        return ec2.createTags(CreateTagsRequest.builder()
+                        .resources(instanceId)
+                        .tags(Tag.builder().key(key).value(value).build())
+                        .build())
+                .thenApply(r -> {
+                    invalidateCache();
+                    return ok(Map.of("instanceId", instanceId, "tagSet", Map.of(key, value)));
+                })
+                .exceptionally(recover("Tag"));
     }
 
     @Tool(name = "aws_ec2_rename", value = "Rename an EC2 instance (sets/updates the Name tag).")
-    public Map<String, Object> aws_ec2_rename(
+    public CompletableFuture<Map<String, Object>> aws_ec2_rename(
             @P(value = "Instance ID") String instanceId,
             @P(value = "New name") String newName
     ) {
-        if (newName == null || newName.isBlank()) return err("New name is required.");
-        try {
-            ec2.createTags(CreateTagsRequest.builder()
-                    .resources(instanceId)
-                    .tags(Tag.builder().key("Name").value(newName.trim()).build())
-                    .build());
-            return ok(Map.of("instanceId", instanceId, "instanceName", newName.trim()));
-        } catch (SdkException e) {
-            log.error("Rename error: {}", e.getMessage(), e);
-            return err(e.getMessage());
+        if (newName == null || newName.isBlank()) return CompletableFuture.completedFuture(err("New name is required."));
+        return ec2.createTags(CreateTagsRequest.builder()
+                        .resources(instanceId)
+                        .tags(Tag.builder().key("Name").value(newName.trim()).build())
+                        .build())
+                .thenApply(r -> {
+                    invalidateCache();
+                    return ok(Map.of("instanceId", instanceId, "instanceName", newName.trim()));
+                })
+                .exceptionally(recover("Rename"));
+    }
+
+    @Tool(name = "aws_ec2_bulk_lifecycle",
+            value = "Start, stop, reboot or terminate many EC2 instances in one call. Select the instances either by "
+                    + "instance IDs or by tags (e.g. Env=dev). Returns the result for every instance. Set dryRun to list "
+                    + "the selected instances without changing them; TERMINATE only accepts explicit instance IDs.")
+    public CompletableFuture<Map<String, Object>> aws_ec2_bulk_lifecycle(
+            @P(value = "START, STOP, REBOOT or TERMINATE") String action,
+            @P(value = "Instance IDs (comma-separated, optional when tags are given)", required = false) String instanceIds,
+            @P(value = "Tag selector (comma-separated key=value pairs, all must match; optional when instanceIds are given)",
+                    required = false) String tags,
+            @P(value = "Force stop? (STOP only)", required = false) Boolean force,
+            @P(value = "Only list the selected instances without changing them?", required = false) Boolean dryRun
+    ) {
+        String op = action == null ? "" : action.trim().toUpperCase(Locale.ROOT);
+        Function<List<String>, CompletableFuture<List<Map<String, Object>>>> call = switch (op) {
+            case "START" -> chunk -> ec2.startInstances(b -> b.instanceIds(chunk))
+                    .thenApply(r -> stateChanges(r.startingInstances()));
+            case "STOP" -> chunk -> ec2.stopInstances(b -> b.instanceIds(chunk).force(Boolean.TRUE.equals(force)))
+                    .thenApply(r -> stateChanges(r.stoppingInstances()));
+            case "REBOOT" -> chunk -> ec2.rebootInstances(b -> b.instanceIds(chunk))
+                    .thenApply(r -> succeeded(chunk, Map.of("message", "Reboot initiated")));
+            case "TERMINATE" -> chunk -> ec2.terminateInstances(b -> b.instanceIds(chunk))
+                    .thenApply(r -> stateChanges(r.terminatingInstances()));
+            default -> null;
+        };
+        if (call == null)
+            return CompletableFuture.completedFuture(err("Unknown action '" + action + "'. Allowed: START, STOP, REBOOT, TERMINATE"));
+        boolean preview = Boolean.TRUE.equals(dryRun);
+        if (op.equals("TERMINATE") && !preview && (instanceIds == null || instanceIds.isBlank())) {
+            return CompletableFuture.completedFuture(err("TERMINATE needs explicit instanceIds. "
+                    + "Preview the tag selection with dryRun first and pass the IDs to terminate."));
+        }
+        return bulk(op, instanceIds, tags, preview ? null : call);
+    }
+
+    @Tool(name = "aws_ec2_bulk_tag",
+            value = "Add or update a tag on many EC2 instances in one call. Select the instances either by instance IDs "
+                    + "or by tags (e.g. Env=dev). Returns the result for every instance.")
+    public CompletableFuture<Map<String, Object>> aws_ec2_bulk_tag(
+            @P(value = "Tag key") String key,
+            @P(value = "Tag value") String value,
+            @P(value = "Instance IDs (comma-separated, optional when tags are given)", required = false) String instanceIds,
+            @P(value = "Tag selector (comma-separated key=value pairs, all must match; optional when instanceIds are given)",
+                    required = false) String tags
+    ) {
+        if (key == null || key.isBlank()) return CompletableFuture.completedFuture(err("Tag key is required."));
+        if (value == null || value.isBlank()) return CompletableFuture.completedFuture(err("Value key is required."));
+        Tag tag = Tag.builder().key(key).value(value).build();
+        return bulk("TAG", instanceIds, tags, chunk -> ec2.createTags(b -> b.resources(chunk).tags(tag))
+                .thenApply(r -> succeeded(chunk, Map.of("tagSet", Map.of(key, value)))));
+    }
+
+    /**
+     * Resolves the selection, runs the call on chunks of up to {@link #BULK_CHUNK_SIZE} IDs in parallel and
+     * merges the per-instance results in selection order. EC2 rejects a whole request when one of its IDs is
+     * bad, so a chunk that fails is retried one instance at a time to tell the bad IDs from the good ones.
+     * Without a call (dry run) only the resolved selection is returned.
+     */
+    private CompletableFuture<Map<String, Object>> bulk(String action, String instanceIds, String tags,
+                                                        Function<List<String>, CompletableFuture<List<Map<String, Object>>>> call) {
+        boolean byIds = instanceIds != null && !instanceIds.isBlank();
+        boolean byTags = tags != null && !tags.isBlank();
+        if (byIds == byTags) return CompletableFuture.completedFuture(err("Provide either instanceIds or tags."));
+
+        CompletableFuture<List<String>> selection;
+        if (byIds) {
+            selection = CompletableFuture.completedFuture(Arrays.stream(instanceIds.split(","))
+                    .map(String::trim).filter(s -> !s.isEmpty()).distinct().toList());
+        } else {
+            List<Filter> filters = tagFilters(tags);
+            if (filters == null)
+                return CompletableFuture.completedFuture(err("Invalid tag selector '" + tags + "'. Expected key=value[,key=value]"));
+            selection = selectInstances(filters);
         }
+
+        return selection.thenCompose(ids -> {
+                    if (ids.isEmpty()) return CompletableFuture.completedFuture(err("No instances match the selection."));
+                    if (ids.size() > MAX_BULK_INSTANCES) {
+                        return CompletableFuture.completedFuture(err("The selection matches " + ids.size()
+                                + " instances; at most " + MAX_BULK_INSTANCES + " can be changed in one call."));
+                    }
+                    if (call == null) return CompletableFuture.completedFuture(preview(action, ids));
+
+                    List<CompletableFuture<List<Map<String, Object>>>> chunks = new ArrayList<>();
+                    for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+                        List<String> chunk = ids.subList(from, Math.min(ids.size(), from + BULK_CHUNK_SIZE));
+                        chunks.add(call.apply(chunk)
+                                .handle((results, error) -> {
+                                    if (error == null) return CompletableFuture.completedFuture(results);
+                                    // Only an error about one of the instances is worth isolating; throttling,
+                                    // auth and the like would fail every single-instance retry the same way.
+                                    if (chunk.size() > 1 && isInstanceSpecific(error)) return oneByOne(chunk, 0, new ArrayList<>(), call);
+                                    return CompletableFuture.completedFuture(chunk.stream().map(id -> failed(id, error)).toList());
+                                })
+                                .thenCompose(Function.identity()));
+                    }
+                    return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new))
+                            .thenApply(done -> {
+                                invalidateCache();
+                                return bulkResult(action, ids, chunks.stream().flatMap(c -> c.join().stream()).toList());
+                            });
+                })
+                .exceptionally(recover(action));
     }
 
+    /**
+     * Retries a failed chunk one instance after the other, so the fallback adds no burst of concurrent calls;
+     * the first error that is not about a single instance fails the rest of the chunk without more calls.
+     */
+    private CompletableFuture<List<Map<String, Object>>> oneByOne(List<String> ids, int next, List<Map<String, Object>> results,
+                                                                  Function<List<String>, CompletableFuture<List<Map<String, Object>>>> call) {
+        if (next == ids.size()) return CompletableFuture.completedFuture(results);
+        String id = ids.get(next);
+        return call.apply(List.of(id))
+                .handle((done, error) -> {
+                    if (error == null) {
+                        results.addAll(done);
+                    } else if (isInstanceSpecific(error)) {
+                        results.add(failed(id, error));
+                    } else {
+                        ids.subList(next, ids.size()).forEach(rest -> results.add(failed(rest, error)));
+                        return CompletableFuture.completedFuture(results);
+                    }
+                    return oneByOne(ids, next + 1, results, call);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private static boolean isInstanceSpecific(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String code = cause instanceof AwsServiceException ase && ase.awsErrorDetails() != null
+                ? ase.awsErrorDetails().errorCode()
+                : null;
+        return code != null && (code.startsWith("InvalidInstanceID.") || code.equals("IncorrectInstanceState"));
+    }
+
+    private CompletableFuture<List<String>> selectInstances(List<Filter> filters) {
+        List<String> ids = new ArrayList<>();
+        return ec2.describeInstancesPaginator(DescribeInstancesRequest.builder()
+                        .filters(filters)
+                        .maxResults(MAX_LIST_LIMIT)
+                        .build())
+                .subscribe(resp -> resp.reservations().forEach(r -> r.instances().forEach(i -> ids.add(i.instanceId()))))
+                .thenApply(done -> ids);
+    }
+
+    /**
+     * Parses "key=value,key=value" into tag filters, limited to instances that are not terminated; null when malformed.
+     */
+    private static List<Filter> tagFilters(String tags) {
+        List<Filter> filters = new ArrayList<>();
+        for (String pair : tags.split(",")) {
+            if (pair.isBlank()) continue;
+            int eq = pair.indexOf('=');
+            if (eq < 0) return null;
+            String key = pair.substring(0, eq).trim();
+            String value = pair.substring(eq + 1).trim();
+            if (key.isEmpty() || value.isEmpty()) return null;
+            filters.add(Filter.builder().name("tag:" + key).values(value).build());
+        }
+        if (filters.isEmpty()) return null;
+        filters.add(Filter.builder().name("instance-state-name").values(LIVE_STATES).build());
+        return filters;
+    }
+
+    private static Map<String, Object> preview(String action, List<String> ids) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("action", action);
+        body.put("dryRun", true);
+        body.put("selected", ids.size());
+        body.put("instanceIds", ids);
+        return ok(body);
+    }
+
+    /**
+     * Per-instance results in selection order. An ID that EC2 accepted but did not report back is
+     * listed as unconfirmed rather than as a success.
+     */
+    private static Map<String, Object> bulkResult(String action, List<String> ids, List<Map<String, Object>> results) {
+        Map<String, Map<String, Object>> byId = new LinkedHashMap<>();
+        ids.forEach(id -> byId.put(id, Map.of("instanceId", id, "ok", false, "unconfirmed", true,
+                "error", "EC2 did not report this instance; check its state.")));
+        results.forEach(result -> byId.replace((String) result.get("instanceId"), result));
+
+        long succeeded = byId.values().stream().filter(result -> Boolean.TRUE.equals(result.get("ok"))).count();
+        long unconfirmed = byId.values().stream().filter(result -> Boolean.TRUE.equals(result.get("unconfirmed"))).count();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("action", action);
+        body.put("requested", ids.size());
+        body.put("succeeded", succeeded);
+        body.put("failed", ids.size() - succeeded - unconfirmed);
+        body.put("unconfirmed", unconfirmed);
+        body.put("instances", List.copyOf(byId.values()));
+
+        if (succeeded > 0) return ok(body);
+        Map<String, Object> out = new LinkedHashMap<>(err("The action failed for every instance."));
+        out.putAll(body);
+        return out;
+    }
+
+    private static List<Map<String, Object>> stateChanges(List<InstanceStateChange> changes) {
+        return changes.stream()
+                .map(change -> {
+                    Map<String, Object> out = new LinkedHashMap<>();
+                    out.put("instanceId", change.instanceId());
+                    out.put("ok", true);
+                    out.put("previousState", change.previousState() != null ? change.previousState().nameAsString() : "UNKNOWN");
+                    out.put("instanceState", change.currentState() != null ? change.currentState().nameAsString() : "UNKNOWN");
+                    return out;
+                })
+                .toList();
+    }
+
+    private static List<Map<String, Object>> succeeded(List<String> ids, Map<String, Object> details) {
+        return ids.stream()
+                .map(id -> {
+                    Map<String, Object> out = new LinkedHashMap<>();
+                    out.put("instanceId", id);
+                    out.put("ok", true);
+                    out.putAll(details);
+                    return out;
+                })
+                .toList();
+    }
+
+    private static Map<String, Object> failed(String instanceId, Throwable error) {
+        return Map.of("instanceId", instanceId, "ok", false, "error", errorMessage(error));
+    }
+
+    private String region() {
+        return String.valueOf(ec2.serviceClientConfiguration().region());
+    }
+
+    private void invalidateCache() {
+        cache.invalidate(region(), CACHE_SCOPE);
+    }
 
     private static Map<String, Object> ok(Map<String, Object> body) {
         Map<String, Object> out = new LinkedHashMap<>();
@@ -233,22 +678,55 @@ public class AWSEc2Tools {
         return Map.of("ok", false, "error", msg);
     }
 
+    /**
+     * Turns a failed AWS call into an error result for the model; anything that is not an SDK error stays a failure.
+     */
+    private static Function<Throwable, Map<String, Object>> recover(String action) {
+        return error -> {
+            String message = errorMessage(error);
+            log.error("{} error: {}", action, message, error);
+            return err(message);
+        };
+    }
+
+    private static String errorMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof SdkException)) throw new CompletionException(cause);
+        return cause instanceof AwsServiceException ase && ase.awsErrorDetails() != null
+                && ase.awsErrorDetails().errorMessage() != null
+                ? ase.awsErrorDetails().errorMessage()
+                : cause.getMessage();
+    }
+
     private static Map<String, Object> instanceToMap(Instance inst) {
-        Map<String, String> tags = inst.tags().stream()
-                .collect(Collectors.toMap(Tag::key, Tag::value, (a, b) -> b, LinkedHashMap::new));
+        return project(inst, List.copyOf(FIELDS.keySet()));
+    }
 
-        return new LinkedHashMap<>(Map.of(
-                "instanceId", inst.instanceId(),
-                "instanceType", inst.instanceTypeAsString(),
-                "instanceState", inst.state() != null ? inst.state().nameAsString() : "UNKNOWN",
-                "privateIp", inst.privateIpAddress(),
-                "publicIp", inst.publicIpAddress() != null ? inst.publicIpAddress() : "UNKNOWN",
-                "launchTime", inst.launchTime().toString(),
-                "tags", tags,
-                "name", tags.getOrDefault("Name", "UNKNOWN"),
-                "az", inst.placement() != null ? inst.placement().availabilityZone() : "UNKNOWN",
-                "imageId", inst.imageId()
-        ));
+    private static Map<String, Object> project(Instance inst, List<String> projection) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        projection.forEach(field -> out.put(field, FIELDS.get(field).apply(inst)));
+        return out;
+    }
+
+    /**
+     * Parses the requested fields; null means one of them is unknown. instanceId is always included.
+     */
+    private static List<String> projection(String fields) {
+        if (fields == null || fields.isBlank()) return DEFAULT_FIELDS;
+        LinkedHashSet<String> out = new LinkedHashSet<>();
+        out.add("instanceId");
+        for (String field : fields.split(",")) {
+            String f = field.trim();
+            if (f.isEmpty()) continue;
+            if (!FIELDS.containsKey(f)) return null;
+            out.add(f);
+        }
+        return List.copyOf(out);
+    }
+
+    private static Map<String, String> tags(Instance inst) {
+        return inst.tags().stream()
+                .collect(Collectors.toMap(Tag::key, Tag::value, (a, b) -> b, LinkedHashMap::new));
     }
 
     private static String nameTagSpec(String name) {
@@ -5,14 +5,18 @@ import dev.langchain4j.agent.tool.Tool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.exception.SdkException;
-import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.model.*;
 import java.net.URL;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,80 +24,86 @@ public class AWSS3Tools {
 
     private static final Logger log = LoggerFactory.getLogger(AWSS3Tools.class);
 
-    private final S3Client s3;
+    private static final String BUCKETS_SCOPE = "s3:buckets";
+    private static final String BUCKET_SCOPE_PREFIX = "s3:bucket:";
+
+    private final S3AsyncClient s3;
     private final S3Presigner presigner;
+    private final AwsToolResultCache cache;
 
-    public AWSS3Tools(S3Client s3, S3Presigner presigner) {
+    public AWSS3Tools(S3AsyncClient s3, S3Presigner presigner, AwsToolResultCache cache) {
         this.s3 = s3;
         this.presigner = presigner;
+        this.cache = cache;
     }
 
 
     @Tool(name = "aws_s3_create_bucket", value = "Create an S3 bucket. Region must match client region.")
-    public Map<String, Object> aws_s3_create_bucket(
+    public CompletableFuture<Map<String, Object>> aws_s3_create_bucket(
             @P("Bucket name") String bucket,
             @P(value = "Enable versioning? (optional)", required = false) Boolean versioningEnabled
     ) {
-        if (isBlank(bucket)) return err("Bucket name is required.");
-        try {
-            s3.createBucket(CreateBucketRequest.builder().bucket(bucket).build());
-            if (Boolean.TRUE.equals(versioningEnabled)) {
-                s3.putBucketVersioning(PutBucketVersioningRequest.builder()
-                        .bucket(bucket)
-                        .versioningConfiguration(VersioningConfiguration.builder()
-                                .status(BucketVersioningStatus.ENABLED).build())
-                        .build());
-            }
-            return ok(Map.of("bucket", bucket, "versioning", Boolean.TRUE.equals(versioningEnabled)));
-        } catch (BucketAlreadyOwnedByYouException | BucketAlreadyExistsException e) {
-            return err(e.getMessage());
-        } catch (SdkException e) {
-            log.error("Create bucket error: {}", e.getMessage(), e);
-            return err(e.getMessage());
-        }
+        if (isBlank(bucket)) return completed(err("Bucket name is required."));
+        return s3.createBucket(CreateBucketRequest.builder().bucket(bucket).build())
+                .thenCompose(created -> {
+                    cache.invalidate(region(), BUCKETS_SCOPE);
+                    if (!Boolean.TRUE.equals(versioningEnabled)) return CompletableFuture.<Void>completedFuture(null);
+                    return s3.putBucketVersioning(PutBucketVersioningRequest.builder()
+                            .bucket(bucket)
+                            .versioningConfiguration(VersioningConfiguration.builder()
+                                    .status(BucketVersioningStatus.ENABLED).build())
+                            .build())
+                            .thenAccept(versioned -> {});
+                })
+                .thenApply(ignored -> ok(Map.of("bucket", bucket, "versioning", Boolean.TRUE.equals(versioningEnabled))))
+                .exceptionally(error -> {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof BucketAlreadyOwnedByYouException || cause instanceof BucketAlreadyExistsException)
+                        return err(cause.getMessage());
+                    return recover("Create bucket").apply(error);
+                });
     }
 
     @Tool(name = "aws_s3_list_buckets", value = "List S3 buckets.")
-    public List<Map<String, Object>> aws_s3_list_buckets() {
-        try {
-            ListBucketsResponse r = s3.listBuckets();
-            return r.buckets().stream().map(AWSS3Tools::bucketToMap).collect(Collectors.toList());
-        } catch (SdkException e) {
-            log.error("List buckets error: {}", e.getMessage(), e);
-            return List.of(Map.of("ok", false, "error", e.getMessage()));
-        }
+    public CompletableFuture<List<Map<String, Object>>> aws_s3_list_buckets() {
+        return cache.get("aws_s3_list_buckets", region(), BUCKETS_SCOPE, List.of(), this::listBuckets);
+    }
+
+    private CompletableFuture<List<Map<String, Object>>> listBuckets() {
+        return s3.listBuckets()
+                .thenApply(r -> r.buckets().stream().map(AWSS3Tools::bucketToMap).collect(Collectors.toList()))
+                .exceptionally(error -> List.of(recover("List buckets").apply(error)));
     }
 
     @Tool(name = "aws_s3_delete_bucket", value = "Delete an empty S3 bucket.")
-    public Map<String, Object> s3_delete_bucket(@P("Bucket name") String bucket) {
-        if (isBlank(bucket)) return err("Bucket name is required.");
-        try {
-            s3.deleteBucket(DeleteBucketRequest.builder().bucket(bucket).build());
-            return ok(Map.of("bucket", bucket, "deleted", true));
-        } catch (SdkException e) {
-            log.error("Delete bucket error: {}", e.getMessage(), e);
-            return err(e.getMessage());
-        }
+    public CompletableFuture<Map<String, Object>> s3_delete_bucket(@P("Bucket name") String bucket) {
+        if (isBlank(bucket)) return completed(err("Bucket name is required."));
+        return s3.deleteBucket(DeleteBucketRequest.builder().bucket(bucket).build())
+                .thenApply(r -> {
+                    cache.invalidate(region(), BUCKETS_SCOPE);
+                    invalidateBucket(bucket);
+                    return ok(Map.of("bucket", bucket, "deleted", true));
+                })
+                .exceptionally(recover("Delete bucket"));
     }
 
     @Tool(name = "aws_s3_set_versioning", value = "Enable or suspend bucket versioning.")
-    public Map<String, Object> aws_s3_set_versioning(
+    public CompletableFuture<Map<String, Object>> aws_s3_set_versioning(
             @P("Bucket name") String bucket,
             @P("Status: ENABLED or SUSPENDED") String status
     ) {
-        if (isBlank(bucket) || isBlank(status)) return err("Bucket and status required.");
-        try {
-            s3.putBucketVersioning(PutBucketVersioningRequest.builder()
-                    .bucket(bucket)
-                    .versioningConfiguration(VersioningConfiguration.builder()
-                            .status(BucketVersioningStatus.fromValue(status))
-                            .build())
-                    .build());
-            return ok(Map.of("bucket", bucket, "status", status));
-        } catch (SdkException e) {
-            log.error("Set versioning error: {}", e.getMessage(), e);
-            return err(e.getMessage());
-        }
+        if (isBlank(bucket) || isBlank(status)) return completed(err("Bucket and status required."));
+        return s3.putBucketVersioning(PutBucketVersioningRequest.builder()
+                        .bucket(bucket)
+                        .versioningConfiguration(VersioningConfiguration.builder()
+                                .status(BucketVersioningStatus.fromValue(status))
+                                .build())
+                        .build())
+                .thenApply(r -> {
+                    invalidateBucket(bucket);
+                    return ok(Map.of("bucket", bucket, "status", status));
+                })
+                .exceptionally(recover("Set versioning"));
     }
 
 
@@ -126,64 +136,70 @@ public class AWSS3Tools {
 
 
     @Tool(name = "aws_s3_list_objects", value = "List objects in a bucket with optional prefix and continuation token.")
-    public Map<String, Object> aws_s3_list_objects(
+    public CompletableFuture<Map<String, Object>> aws_s3_list_objects(
             @P("Bucket") String bucket,
             @P(value = "Prefix (optional)", required = false) String prefix,
             @P(value = "Continuation token (optional)", required = false) String token,
             @P(value = "Max keys (optional, default 1000)", required = false) Integer maxKeys
     ) {
-        if (isBlank(bucket)) return err("Bucket is required.");
-        try {
-            ListObjectsV2Request.Builder lb = ListObjectsV2Request.builder()
-                    .bucket(bucket)
-                    .maxKeys(maxKeys == null || maxKeys < 1 ? 1000 : maxKeys);
-            if (!isBlank(prefix)) lb.prefix(prefix);
-            if (!isBlank(token)) lb.continuationToken(token);
-
-            ListObjectsV2Response r = s3.listObjectsV2(lb.build());
-            List<Map<String, Object>> items = r.contents()
-                    .stream()
-                    .map(o -> Map.<String, Object>of(
-                            "key", o.key(),
-                            "size", o.size(),
-                            "lastModified", o.lastModified() != null ? o.lastModified().toString() : "",
-                            "eTag", o.eTag(),
-                            "storageClass", o.storageClassAsString()
-                    )).toList();
-
-            return ok(Map.of(
-                    "bucket", bucket,
-                    "prefix", prefix == null ? "" : prefix,
-                    "isTruncated", r.isTruncated(),
-                    "nextContinuationToken", r.nextContinuationToken() == null ? "" : r.nextContinuationToken(),
-                    "objects", items
-            ));
-        } catch (SdkException e) {
-            log.error("List objects error: {}", e.getMessage(), e);
-            return err(e.getMessage());
-        }
+        if (isBlank(bucket)) return completed(err("Bucket is required."));
+        return cache.get("aws_s3_list_objects", region(), BUCKET_SCOPE_PREFIX + bucket,
+                Arrays.asList(bucket, prefix, token, maxKeys), () -> listObjects(bucket, prefix, token, maxKeys));
+    }
+
+    private CompletableFuture<Map<String, Object>> listObjects(String bucket, String prefix, String token, Integer maxKeys) {
+        ListObjectsV2Request.Builder lb = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .maxKeys(maxKeys == null || maxKeys < 1 ? 1000 : maxKeys);
+        if (!isBlank(prefix)) lb.prefix(prefix);
+        if (!isBlank(token)) lb.continuationToken(token);
+
+        return s3.listObjectsV2(lb.build())
+                .thenApply(r -> {
+                    List<Map<String, Object>> items = r.contents()
+                            .stream()
+                            .map(o -> Map.<String, Object>of(
+                                    "key", o.key(),
+                                    "size", o.size(),
+                                    "lastModified", o.lastModified() != null ? o.lastModified().toString() : "",
+                                    "eTag", o.eTag(),
+                                    "storageClass", o.storageClassAsString()
+                            )).toList();
+
+                    return ok(Map.of(
+                            "bucket", bucket,
+                            "prefix", prefix == null ? "" : prefix,
+                            "isTruncated", r.isTruncated(),
+                            "nextContinuationToken", r.nextContinuationToken() == null ? "" : r.nextContinuationToken(),
+                            "objects", items
+                    ));
+                })
+                .exceptionally(recover("List objects"));
     }
 
     @Tool(name = "aws_s3_delete_object", value = "Delete an object (optionally by version).")
-    public Map<String, Object> aws_s3_delete_object(
+    public CompletableFuture<Map<String, Object>> aws_s3_delete_object(
             @P("Bucket") String bucket,
             @P("Key") String key,
             @P(value = "VersionId (optional)", required = false) String versionId
     ) {
-        if (isBlank(bucket) || isBlank(key)) return err("Bucket and key are required.");
-        try {
-            DeleteObjectRequest.Builder db = DeleteObjectRequest.builder().bucket(bucket).key(key);
-            if (!isBlank(versionId)) db.versionId(versionId);
-            DeleteObjectResponse r = s3.deleteObject(db.build());
-            return ok(Map.of("bucket", bucket, "key", key, "versionId", r.versionId()));
-        } catch (SdkException e) {
-            log.error("Delete object error: {}", e.getMessage(), e);
-            return err(e.getMessage());
-        }
+        if (isBlank(bucket) || isBlank(key)) return completed(err("Bucket and key are required."));
+        DeleteObjectRequest.Builder db = DeleteObjectRequest.builder().bucket(bucket).key(key);
+        if (!isBlank(versionId)) db.versionId(versionId);
+        return s3.deleteObject(db.build())
+                .thenApply(r -> {
+                    invalidateBucket(bucket);
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("bucket", bucket);
+                    body.put("key", key);
+                    body.put("versionId", r.versionId());
+                    return ok(body);
+                })
+                .exceptionally(recover("Delete object"));
     }
 
     @Tool(name = "aws_s3_copy_object", value = "Copy an object to another key/bucket.")
-    public Map<String, Object> aws_s3_copy_object(
+    public CompletableFuture<Map<String, Object>> aws_s3_copy_object(
             @P("Source bucket") String sourceBucket,
             @P("Source key") String sourceKey,
             @P("Destination bucket") String destinationBucket,
@@ -191,61 +207,63 @@ public class AWSS3Tools {
             @P(value = "Source versionId (optional)", required = false) String sourceVersionId
     ) {
         if (isBlank(sourceBucket) || isBlank(sourceKey) || isBlank(destinationBucket) || isBlank(destinationKey)) {
-            return err("Source/Destination bucket and key are required.");
-        }
-        try {
-            String copySource = sourceBucket + "/" + sourceKey + (isBlank(sourceVersionId) ? "" : ("?versionId=" + sourceVersionId));
-            CopyObjectResponse r = s3.copyObject(CopyObjectRequest.builder()
-                    .sourceBucket(copySource)
-                    .destinationBucket(destinationBucket)
-                    .destinationKey(destinationKey)
-                    .build());
-            return ok(Map.of(
-                    "eTag", r.copyObjectResult() != null ? r.copyObjectResult().eTag() : "",
-                    "bucket", destinationBucket,
-                    "key", destinationKey
-            ));
-        } catch (SdkException e) {
-            log.error("Copy object error: {}", e.getMessage(), e);
-            return err(e.getMessage());
+            return completed(err("Source/Destination bucket and key are required."));
         }
+        String copySource = sourceBucket + "/" + sourceKey + (isBlank(sourceVersionId) ? "" : ("?versionId=" + sourceVersionId));
+        return s3.copyObject(CopyObjectRequest.builder()
+                        .sourceBucket(copySource)
+                        .destinationBucket(destinationBucket)
+                        .destinationKey(destinationKey)
+                        .build())
+                .thenApply(r -> {
+                    invalidateBucket(destinationBucket);
+                    return ok(Map.of(
+                            "eTag", r.copyObjectResult() != null ? r.copyObjectResult().eTag() : "",
+                            "bucket", destinationBucket,
+                            "key", destinationKey
+                    ));
+                })
+                .exceptionally(recover("Copy object"));
     }
 
     @Tool(name = "aws_s3_head_object", value = "Get object metadata (no content).")
-    public Map<String, Object> aws_s3_head_object(
+    public CompletableFuture<Map<String, Object>> aws_s3_head_object(
             @P("Bucket") String bucket,
             @P("Key") String key,
             @P(value = "VersionId (optional)", required = false) String versionId
     ) {
-        if (isBlank(bucket) || isBlank(key)) return err("Bucket and key are required.");
-        try {
-            HeadObjectRequest.Builder hb = HeadObjectRequest.builder().bucket(bucket).key(key);
-            if (!isBlank(versionId)) hb.versionId(versionId);
-            HeadObjectResponse r = s3.headObject(hb.build());
-            return ok(Map.of(
-                    "bucket", bucket,
-                    "key", key,
-                    "versionId", r.versionId(),
-                    "contentType", r.contentType(),
-                    "contentLength", r.contentLength(),
-                    "eTag", r.eTag(),
-                    "metadata", r.metadata()
-            ));
-        } catch (NoSuchKeyException e) {
-            return err("Object not found.");
-        } catch (SdkException e) {
-            log.error("Head object error: {}", e.getMessage(), e);
-            return err(e.getMessage());
-        }
+        if (isBlank(bucket) || isBlank(key)) return completed(err("Bucket and key are required."));
+        return cache.get("aws_s3_head_object", region(), BUCKET_SCOPE_PREFIX + bucket,
+                Arrays.asList(bucket, key, versionId), () -> headObject(bucket, key, versionId));
+    }
+
+    private CompletableFuture<Map<String, Object>> headObject(String bucket, String key, String versionId) {
+        HeadObjectRequest.Builder hb = HeadObjectRequest.builder().bucket(bucket).key(key);
+        if (!isBlank(versionId)) hb.versionId(versionId);
+        return s3.headObject(hb.build())
+                .thenApply(r -> {
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("bucket", bucket);
+                    body.put("key", key);
+                    body.put("versionId", r.versionId());
+                    body.put("contentType", r.contentType());
+                    body.put("contentLength", r.contentLength());
+                    body.put("eTag", r.eTag());
+                    body.put("metadata", r.metadata());
+                    return ok(body);
+                })
+                .exceptionally(error -> unwrap(error) instanceof NoSuchKeyException
+                        ? err("Object not found.")
+                        : recover("Head object").apply(error));
     }
 
     @Tool(name = "aws_s3_presign_get", value = "Generate a presigned GET URL for an object.")
-    public Map<String, Object> aws_s3_presign_get(
+    public CompletableFuture<Map<String, Object>> aws_s3_presign_get(
             @P("Bucket") String bucket,
             @P("Key") String key,
             @P(value = "Expiry seconds (default 900)", required = false) Integer expirySeconds
     ) {
-        if (isBlank(bucket) || isBlank(key)) return err("Bucket and key are required.");
+        if (isBlank(bucket) || isBlank(key)) return completed(err("Bucket and key are required."));
         try {
             GetObjectRequest get = GetObjectRequest.builder().bucket(bucket).key(key).build();
             GetObjectPresignRequest preq = GetObjectPresignRequest.builder()
@@ -254,21 +272,21 @@ public class AWSS3Tools {
                     .build();
             PresignedGetObjectRequest presigned = presigner.presignGetObject(preq);
             URL url = presigned.url();
-            return ok(Map.of("url", url.toString(), "expiresInSeconds", presigned.expiration().getEpochSecond() - (System.currentTimeMillis() / 1000)));
+            return completed(ok(Map.of("url", url.toString(), "expiresInSeconds", presigned.expiration().getEpochSecond() - (System.currentTimeMillis() / 1000))));
         } catch (SdkException e) {
             log.error("Presign GET error: {}", e.getMessage(), e);
-            return err(e.getMessage());
+            return completed(err(e.getMessage()));
         }
     }
 
     @Tool(name = "aws_s3_presign_put", value = "Generate a presigned PUT URL for an object (optionally with contentType).")
-    public Map<String, Object> aws_s3_presign_put(
+    public CompletableFuture<Map<String, Object>> aws_s3_presign_put(
             @P("Bucket") String bucket,
             @P("Key") String key,
             @P(value = "Content-Type (optional)", required = false) String contentType,
             @P(value = "Expiry seconds (default 900)", required = false) Integer expirySeconds
     ) {
-        if (isBlank(bucket) || isBlank(key)) return err("Bucket and key are required.");
+        if (isBlank(bucket) || isBlank(key)) return completed(err("Bucket and key are required."));
         try {
             PutObjectRequest.Builder pb = PutObjectRequest.builder().bucket(bucket).key(key);
             if (!isBlank(contentType)) pb.contentType(contentType);
@@ -279,13 +297,21 @@ public class AWSS3Tools {
                     .build();
             PresignedPutObjectRequest presigned = presigner.presignPutObject(preq);
             URL url = presigned.url();
-            return ok(Map.of("url", url.toString(), "headers", presigned.signedHeaders()));
+            return completed(ok(Map.of("url", url.toString(), "headers", presigned.signedHeaders())));
         } catch (SdkException e) {
             log.error("Presign PUT error: {}", e.getMessage(), e);
-            return err(e.getMessage());
+            return completed(err(e.getMessage()));
         }
     }
 
+    private String region() {
+        return String.valueOf(s3.serviceClientConfiguration().region());
+    }
+
+    private void invalidateBucket(String bucket) {
+        cache.invalidate(region(), BUCKET_SCOPE_PREFIX + bucket);
+    }
+
     private static Map<String, Object> ok(Map<String, Object> body) {
         Map<String, Object> out = new LinkedHashMap<>();
         out.put("ok", true);
@@ -297,6 +323,30 @@ public class AWSS3Tools {
         return Map.of("ok", false, "error", msg);
     }
 
+    private static <T> CompletableFuture<T> completed(T value) {
+        return CompletableFuture.completedFuture(value);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Turns a failed AWS call into an error result for the model; anything that is not an SDK error stays a failure.
+     */
+    private static Function<Throwable, Map<String, Object>> recover(String action) {
+        return error -> {
+            Throwable cause = unwrap(error);
+            if (!(cause instanceof SdkException)) throw new CompletionException(cause);
+            String message = cause instanceof AwsServiceException ase && ase.awsErrorDetails() != null
+                    && ase.awsErrorDetails().errorMessage() != null
+                    ? ase.awsErrorDetails().errorMessage()
+                    : cause.getMessage();
+            log.error("{} error: {}", action, message, cause);
+            return err(message);
+        };
+    }
+
     private static Map<String, Object> bucketToMap(Bucket b) {
         return Map.of("name", b.name(), "creationDate", b.creationDate() != null ? b.creationDate().toString() : "");
     }
@@ -0,0 +1,80 @@
+package com.aref.cloud_assistant_mcp.service.tools;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * AsyncToolInvoker
+ * ------------------------------
+ * Invokes {@link Tool} methods by name without waiting on them. A tool that returns a
+ * {@link CompletionStage} is composed as is, so no thread is held while its AWS call is in flight;
+ * other return values complete immediately. Results are serialized to JSON for the model.
+ */
+public class AsyncToolInvoker {
+
+    private static final Gson GSON = new Gson();
+    private static final String SUCCESS = "Success";
+
+    private final Map<String, ToolMethod> tools = new HashMap<>();
+
+    public AsyncToolInvoker(List<Object> toolObjects) {
+        for (Object toolObject : toolObjects) {
+            for (Method method : toolObject.getClass().getMethods()) {
+                Tool tool = method.getAnnotation(Tool.class);
+                if (tool == null) continue;
+                String name = tool.name().isBlank() ? method.getName() : tool.name();
+                tools.put(name, new ToolMethod(toolObject, method));
+            }
+        }
+    }
+
+    public CompletableFuture<String> invoke(ToolExecutionRequest request) {
+        ToolMethod tool = tools.get(request.name());
+        if (tool == null) return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown tool: " + request.name()));
+
+        Object result;
+        try {
+            result = tool.method().invoke(tool.target(), arguments(tool.method(), request.arguments()));
+        } catch (InvocationTargetException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (result instanceof CompletionStage<?> stage) return stage.toCompletableFuture().thenApply(AsyncToolInvoker::serialize);
+        return CompletableFuture.completedFuture(serialize(result));
+    }
+
+    private static Object[] arguments(Method method, String json) {
+        JsonObject provided = json == null || json.isBlank() ? new JsonObject() : JsonParser.parseString(json).getAsJsonObject();
+        Parameter[] parameters = method.getParameters();
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            JsonElement value = provided.get(parameters[i].getName());
+            args[i] = value == null || value.isJsonNull() ? null : GSON.fromJson(value, parameters[i].getParameterizedType());
+        }
+        return args;
+    }
+
+    private static String serialize(Object result) {
+        if (result == null) return SUCCESS;
+        if (result instanceof String text) return text;
+        return GSON.toJson(result);
+    }
+
+    private record ToolMethod(Object target, Method method) {
+    }
+}
@@ -0,0 +1,134 @@
+package com.aref.cloud_assistant_mcp.service.tools;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.sts.StsClient;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * AwsToolResultCache
+ * ------------------------------
+ * Short-lived cache for results of read-only AWS tools, keyed by account, region, tool and arguments.
+ * Each entry belongs to a scope (e.g. all EC2 data, or one S3 bucket) that mutating tools invalidate.
+ * Every invalidation bumps the scope's generation, and a load that started under an older generation is
+ * returned but not cached. Error results are never cached. The account is resolved once, off the caller's
+ * thread, when the cache is created.
+ */
+@Component
+public class AwsToolResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AwsToolResultCache.class);
+
+    private static final int MAX_ENTRIES = 10_000;
+    private static final String UNKNOWN_ACCOUNT = "unknown";
+
+    private static final Map<String, Long> DEFAULT_TTL_SECONDS = Map.of(
+            "aws_ec2_list", 30L,
+            "aws_ec2_describe", 15L,
+            "aws_s3_list_buckets", 120L,
+            "aws_s3_list_objects", 30L,
+            "aws_s3_head_object", 60L
+    );
+
+    private final Environment environment;
+    private final LongSupplier clock;
+    private final CompletableFuture<String> account;
+    private final Map<String, Long> generations = new HashMap<>();
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    @Autowired
+    public AwsToolResultCache(Environment environment, StsClient sts) {
+        this(environment, sts, System::currentTimeMillis);
+    }
+
+    AwsToolResultCache(Environment environment, StsClient sts, LongSupplier clock) {
+        this.environment = environment;
+        this.clock = clock;
+        this.account = CompletableFuture.supplyAsync(() -> resolveAccount(sts),
+                task -> Thread.ofVirtual().name("aws-tool-cache-account").start(task));
+    }
+
+    /**
+     * Returns the cached result or starts the loader; a loaded value is cached once its future completes without
+     * an error, unless its scope was invalidated while it was loading.
+     */
+    public <T> CompletableFuture<T> get(String tool, String region, String scope, List<?> args,
+                                        Supplier<CompletableFuture<T>> loader) {
+        return account.thenCompose(accountId -> get(accountId, tool, region, scope, args, loader));
+    }
+
+    public void invalidate(String region, String scope) {
+        account.thenAccept(accountId -> {
+            String scopeKey = scopeKey(accountId, region, scope);
+            synchronized (entries) {
+                generations.merge(scopeKey, 1L, Long::sum);
+                entries.values().removeIf(entry -> entry.scope().equals(scopeKey));
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> get(String accountId, String tool, String region, String scope, List<?> args,
+                                         Supplier<CompletableFuture<T>> loader) {
+        String key = String.join("|", accountId, region, tool, String.valueOf(args));
+        String scopeKey = scopeKey(accountId, region, scope);
+        long generation;
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > clock.getAsLong()) return CompletableFuture.completedFuture((T) entry.value());
+            generation = generations.getOrDefault(scopeKey, 0L);
+        }
+
+        long ttlMs = ttlSeconds(tool) * 1000;
+        return loader.get().thenApply(value -> {
+            if (ttlMs > 0 && !isError(value)) {
+                synchronized (entries) {
+                    if (generations.getOrDefault(scopeKey, 0L) == generation)
+                        entries.put(key, new Entry(scopeKey, value, clock.getAsLong() + ttlMs));
+                }
+            }
+            return value;
+        });
+    }
+
+    private long ttlSeconds(String tool) {
+        return environment.getProperty("aws.tools.cache.ttl-seconds." + tool, Long.class,
+                DEFAULT_TTL_SECONDS.getOrDefault(tool, 0L));
+    }
+
+    private static String scopeKey(String accountId, String region, String scope) {
+        return accountId + "|" + region + "|" + scope;
+    }
+
+    private static String resolveAccount(StsClient sts) {
+        try {
+            return sts.getCallerIdentity().account();
+        } catch (SdkException e) {
+            log.warn("Could not resolve AWS account for tool cache: {}", e.getMessage());
+            return UNKNOWN_ACCOUNT;
+        }
+    }
+
+    private static boolean isError(Object value) {
+        if (value instanceof Map<?, ?> map) return Boolean.FALSE.equals(map.get("ok"));
+        if (value instanceof List<?> list) return list.stream().anyMatch(AwsToolResultCache::isError);
+        return value == null;
+    }
+
+    private record Entry(String scope, Object value, long expiresAt) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.aref.cloud_assistant_mcp.service.tools;
+
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.ec2.model.DescribeRegionsResponse;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Ec2RegionClients
+ * ------------------------------
+ * EC2 clients per region, taken from the client factory (which caches them), and a fan-out that
+ * calls many regions in parallel. Every region gets its own timeout; a region that fails or times out is
+ * reported next to the results of the others instead of failing the whole call, so the fan-out
+ * takes as long as the slowest region within its timeout.
+ */
+public class Ec2RegionClients {
+
+    public static final String ALL_REGIONS = "ALL";
+
+    private final Ec2AsyncClient defaultClient;
+    private final Function<String, Ec2AsyncClient> clientFactory;
+    private final Duration regionTimeout;
+    private volatile List<String> enabledRegions;
+
+    public Ec2RegionClients(Ec2AsyncClient defaultClient,
+                            Function<String, Ec2AsyncClient> clientFactory,
+                            Duration regionTimeout) {
+        this.defaultClient = defaultClient;
+        this.clientFactory = clientFactory;
+        this.regionTimeout = regionTimeout;
+    }
+
+    public String defaultRegion() {
+        return String.valueOf(defaultClient.serviceClientConfiguration().region());
+    }
+
+    public Ec2AsyncClient client(String region) {
+        if (region.equals(defaultRegion())) return defaultClient;
+        return clientFactory.apply(region);
+    }
+
+    /**
+     * Parses a comma-separated region list, or {@link #ALL_REGIONS} for every region enabled in the account.
+     */
+    public CompletableFuture<List<String>> resolve(String spec) {
+        if (spec.trim().equalsIgnoreCase(ALL_REGIONS)) {
+            List<String> known = enabledRegions;
+            if (known != null) return CompletableFuture.completedFuture(known);
+            return defaultClient.describeRegions()
+                    .thenApply(DescribeRegionsResponse::regions)
+                    .thenApply(regions -> {
+                        List<String> names = regions.stream().map(r -> r.regionName()).sorted().toList();
+                        enabledRegions = names;
+                        return names;
+                    });
+        }
+        return CompletableFuture.completedFuture(parse(spec));
+    }
+
+    public static List<String> parse(String spec) {
+        return Arrays.stream(spec.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(s -> Region.of(s.toLowerCase(Locale.ROOT)).id())
+                .distinct()
+                .toList();
+    }
+
+    public CompletableFuture<RegionResults> fanOut(List<String> regions,
+                                                   Function<String, CompletableFuture<Map<String, Object>>> call) {
+        Map<String, Map<String, Object>> succeeded = new ConcurrentSkipListMap<>();
+        Map<String, String> failed = new ConcurrentSkipListMap<>();
+
+        CompletableFuture<?>[] calls = regions.stream()
+                .map(region -> start(region, call)
+                        .orTimeout(regionTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                        .handle((result, error) -> {
+                            if (error != null)
+                                failed.put(region, message(error));
+                            else if (Boolean.FALSE.equals(result.get("ok")))
+                                failed.put(region, String.valueOf(result.get("error")));
+                            else
+                                succeeded.put(region, result);
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(calls).thenApply(done -> new RegionResults(succeeded, failed));
+    }
+
+    private CompletableFuture<Map<String, Object>> start(String region,
+                                                         Function<String, CompletableFuture<Map<String, Object>>> call) {
+        try {
+            return call.apply(region);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private String message(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) return "Timed out after " + regionTimeout.toSeconds() + "s";
+        return cause.getMessage();
+    }
+
+    /**
+     * Per-region results of a fan-out, both sorted by region name.
+     */
+    public record RegionResults(Map<String, Map<String, Object>> succeeded, Map<String, String> failed) {
+    }
+}
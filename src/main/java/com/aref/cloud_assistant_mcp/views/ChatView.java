@@ -1,8 +1,11 @@
 package com.aref.cloud_assistant_mcp.views;
 
+import com.aref.cloud_assistant_mcp.dto.ChatEvent;
 import com.aref.cloud_assistant_mcp.dto.ConversationCreateDto;
 import com.aref.cloud_assistant_mcp.dto.ResponseType;
+import com.aref.cloud_assistant_mcp.views.utils.IncrementalMarkdownRenderer;
 import com.aref.cloud_assistant_mcp.views.utils.MarkdownUtil;
+import com.aref.cloud_assistant_mcp.views.utils.StreamCoalescer;
 import com.aref.cloud_assistant_mcp.views.vaadin.Conversation;
 import com.aref.cloud_assistant_mcp.views.vaadin.Spinner;
 import com.aref.cloud_assistant_mcp.views.vaadin.ViewChatService;
@@ -23,16 +26,17 @@ import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.page.AppShellConfigurator;
 import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import dev.langchain4j.data.message.ChatMessageType;
 import jakarta.annotation.security.PermitAll;
 import org.apache.commons.lang3.StringEscapeUtils;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.Disposable;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -50,6 +54,7 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
     private static final String PLACEHOLDER_INPUT = "Type your message...";
     private static final String BTN_NEW_CHAT = "+ New Chat";
     private static final String TITLE_CHATS = "Chats";
+    private static final String PLACEHOLDER_SEARCH = "Search chats...";
     private static final String DEFAULT_CONV_TITLE = "New Conversation";
     private static final String CSS_SIDEBAR = "sidebar";
     private static final String CSS_H6 = "h6";
@@ -61,10 +66,34 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
     private static final String CSS_TOOLS_TEXT = "div-tools-text";
     private static final String TOOL_RUNNING_PREFIX = "🛠 ";
     private static final String TOOL_RUNNING_SUFFIX = " is being executed.";
+    private static final String SCROLL_TO_BOTTOM_JS = """
+            const scroller = $0;
+            if (scroller) {
+              scroller.scrollTop = scroller.scrollHeight;
+            }
+        """;
+    // Asks the server for the previous page near the top and keeps the visible messages in place once it is added.
+    private static final String LOAD_OLDER_ON_SCROLL_JS = """
+            const view = this;
+            const scroller = $0;
+            if (!scroller || scroller.olderMessagesListener) return;
+            scroller.olderMessagesListener = () => {
+              if (scroller.scrollTop > 80 || scroller.loadingOlderMessages) return;
+              scroller.loadingOlderMessages = true;
+              const height = scroller.scrollHeight;
+              view.$server.loadOlderMessages().finally(() => requestAnimationFrame(() => {
+                scroller.scrollTop += scroller.scrollHeight - height;
+                scroller.loadingOlderMessages = false;
+              }));
+            };
+            scroller.addEventListener('scroll', scroller.olderMessagesListener);
+        """;
 
     private final ViewChatService chatService;
 
     private final VerticalLayout sidebar = new VerticalLayout();
+    private final VerticalLayout conversationList = new VerticalLayout();
+    private final TextField search = new TextField();
     private final VerticalLayout chatBox = new VerticalLayout();
     private final Scroller messageScroller = new Scroller();
     private final VerticalLayout messageList = new VerticalLayout();
@@ -72,10 +101,13 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
     private final Button send = new Button("Send");
 
     private Div currentBotMessageDiv;
-    private NativeLabel currentBotMessageText;
+    private Div currentBotMessageText;
+    private Div currentBotMessageTail;
+    private IncrementalMarkdownRenderer currentBotRenderer;
     private Conversation currentConversation;
 
     private Disposable streamSubscription;
+    private StreamCoalescer streamCoalescer;
 
     private final ObjectMapper objectMapper = new ObjectMapper()
             .enable(SerializationFeature.INDENT_OUTPUT);
@@ -106,13 +138,32 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
         Button newChatBtn = buildNewChatButton();
         sidebar.add(newChatBtn);
 
+        search.setPlaceholder(PLACEHOLDER_SEARCH);
+        search.setWidthFull();
+        search.setClearButtonVisible(true);
+        search.setValueChangeMode(ValueChangeMode.LAZY);
+        search.addValueChangeListener(e -> showConversations(e.getValue()));
+        sidebar.add(search);
+
         H6 conversationsTitle = new H6(TITLE_CHATS);
         conversationsTitle.addClassName(CSS_H6);
         sidebar.add(conversationsTitle);
 
+        conversationList.setPadding(false);
+        conversationList.setWidthFull();
+        sidebar.add(conversationList);
+
         chatService.getAllConversations().forEach(this::addConversationBtn);
     }
 
+    private void showConversations(String query) {
+        conversationList.removeAll();
+        if (query == null || query.isBlank())
+            chatService.getAllConversations().forEach(this::addConversationBtn);
+        else
+            chatService.searchConversations(query).forEach(this::addConversationBtn);
+    }
+
     private Button buildNewChatButton() {
         Button newChatBtn = new Button(BTN_NEW_CHAT);
         newChatBtn.setWidthFull();
@@ -162,11 +213,11 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
         btn.addClassName(CSS_BTN_SIDEBAR);
         btn.setId(conversation.getId());
         btn.addClickListener(e -> loadConversation(conversation));
-        sidebar.add(btn);
+        conversationList.add(btn);
     }
 
     public void changeSideBarTitle(String oldId, Conversation conversation) {
-        sidebar.getChildren()
+        conversationList.getChildren()
                 .filter(component -> component instanceof Button)
                 .filter(component -> component.getId().map(oldId::equals).orElse(false))
                 .findAny()
@@ -183,7 +234,20 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
         chatService.getConversationMessages(conversation.getId()).forEach(this::displayMessage);
     }
 
+    @ClientCallable
+    public void loadOlderMessages() {
+        if (currentConversation == null) return;
+        List<Message> older = chatService.loadOlderMessages(currentConversation.getId());
+        for (int i = older.size() - 1; i >= 0; i--)
+            messageList.addComponentAsFirst(createBubble(older.get(i)));
+    }
+
     private void displayMessage(Message message) {
+        messageList.add(createBubble(message));
+        scrollToBottom();
+    }
+
+    private Div createBubble(Message message) {
         Div bubble = new Div();
         if (message.getMessageType() == ChatMessageType.USER)
             bubble.addClassName(CSS_MSG_USER);
@@ -200,8 +264,7 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
             String html = MarkdownUtil.toHtml(markdownText);
             bubble.getElement().setProperty("innerHTML", html);
         }
-        messageList.add(bubble);
-        scrollToBottom();
+        return bubble;
     }
 
     private void sendMessage() {
@@ -219,6 +282,8 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
         if (streamSubscription != null && !streamSubscription.isDisposed()) {
             streamSubscription.dispose();
         }
+        StreamCoalescer coalescer = chatService.newStreamCoalescer(this::renderMessageFrame);
+        streamCoalescer = coalescer;
         streamSubscription = chatService.create(new ConversationCreateDto(conversationId, text, currentConversation.getTitle()))
                 .doOnNext(this::handleServerEvent)
                 .doOnError(err -> {
@@ -228,9 +293,12 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
                     }));
                     log.error("Streaming error", err);
                 })
-                .doFinally(sig -> getUI().ifPresent(ui -> ui.access(() -> {
-                    send.setDisableOnClick(false);
-                })))
+                .doFinally(sig -> {
+                    coalescer.flush();
+                    getUI().ifPresent(ui -> ui.access(() -> {
+                        send.setDisableOnClick(false);
+                    }));
+                })
                 .subscribe();
     }
 
@@ -238,23 +306,23 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
         return (id != null && !id.contains("temp")) ? id : null;
     }
 
-    private void handleServerEvent(String serverPayload) {
-        JSONObject json = new JSONObject(serverPayload);
-        String type = json.getString("type");
-
-        if (type.equals(ResponseType.CONVERSATION_DETAIL_METADATA.getValue())) {
-            handleConversationMetadata(json);
-        } else if (type.equals(ResponseType.MESSAGE.getValue())) {
-            handleMessageAppend(json);
-        } else if (type.equals(ResponseType.TOOL_CALLING.getValue())) {
-            handleToolCalling(json);
+    private void handleServerEvent(ChatEvent event) {
+        switch (event) {
+            case ChatEvent.ConversationMetadataEvent metadata -> handleConversationMetadata(metadata);
+            case ChatEvent.MessageEvent message -> handleMessageAppend(message);
+            case ChatEvent.ToolCallingEvent toolCalling -> handleToolCalling(toolCalling);
+            case ChatEvent.ErrorEvent error -> log.warn("Server error event: {}", error.message());
         }
     }
 
-    private void handleConversationMetadata(JSONObject json) {
+    private void handleConversationMetadata(ChatEvent.ConversationMetadataEvent event) {
+        if (event.titleUpdate()) {
+            handleTitleUpdate(event);
+            return;
+        }
         getUI().ifPresent(ui -> ui.access(() -> {
-            String newConversationId = json.getString("conversationId");
-            String title = json.getString("title");
+            String newConversationId = event.conversationId();
+            String title = event.title();
             String oldId = currentConversation.getId();
 
             chatService.renameConversation(currentConversation.getId(), newConversationId, title);
@@ -267,7 +335,10 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
             currentBotMessageDiv = new Div();
             currentBotMessageDiv.addClassName(CSS_MSG_BOT);
 
-            currentBotMessageText = new NativeLabel("");
+            currentBotMessageText = new Div();
+            currentBotMessageTail = new Div();
+            currentBotMessageText.add(currentBotMessageTail);
+            currentBotRenderer = new IncrementalMarkdownRenderer();
             currentBotMessageDiv.add(currentBotMessageText);
 
             messageList.add(currentBotMessageDiv);
@@ -275,35 +346,61 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
         }));
     }
 
-    private void handleMessageAppend(JSONObject json) {
-        String messageChunk = json.getString("message");
+    private void handleTitleUpdate(ChatEvent.ConversationMetadataEvent event) {
+        getUI().ifPresent(ui -> ui.access(() -> {
+            String conversationId = event.conversationId();
+            Conversation conversation = chatService.getConversation(conversationId);
+            if (conversation == null) return;
+
+            chatService.renameConversation(conversationId, conversationId, event.title());
+            changeSideBarTitle(conversationId, conversation);
+        }));
+    }
+
+    private void handleMessageAppend(ChatEvent.MessageEvent event) {
+        String messageChunk = event.message();
 
         Conversation conversation = chatService.getConversation(currentConversation.getId());
         Message lastMessage = conversation.getLastMessage();
         lastMessage.appendText(messageChunk);
 
-        getUI().ifPresent(ui -> ui.access(() -> {
-            if (currentBotMessageText != null) {
-                String markdownText = lastMessage.getText();
-                String html = MarkdownUtil.toHtml(markdownText);
-                currentBotMessageText.getElement().setProperty("innerHTML", html);
-                ui.push();
-                scrollToBottom();
+        streamCoalescer.offer(messageChunk);
+    }
+
+    private void renderMessageFrame(String text, Runnable acknowledge) {
+        Optional<UI> attachedUi = getUI();
+        if (attachedUi.isEmpty()) {
+            acknowledge.run();
+            return;
+        }
+        attachedUi.get().access(() -> {
+            if (currentBotMessageText == null) {
+                acknowledge.run();
+                return;
             }
-        }));
+            IncrementalMarkdownRenderer.Update update = currentBotRenderer.append(text);
+            for (String blockHtml : update.closedBlocks()) {
+                Div block = new Div();
+                block.getElement().setProperty("innerHTML", blockHtml);
+                currentBotMessageText.addComponentAtIndex(currentBotMessageText.getElement().getChildCount() - 1, block);
+            }
+            currentBotMessageTail.getElement().setProperty("innerHTML", update.openBlockHtml());
+            scrollToBottom(acknowledge);
+        });
     }
 
-    private void handleToolCalling(JSONObject json) {
-        String toolName = json.getString("toolName");
+    private void handleToolCalling(ChatEvent.ToolCallingEvent event) {
+        String toolName = event.toolName();
+        streamCoalescer.flush();
 
         getUI().ifPresent(ui -> ui.access(() -> {
             if (currentBotMessageText == null) return;
 
             Div toolsWrapper = ensureToolsWrapper(currentBotMessageDiv);
 
-            if (json.getBoolean("completed")) {
+            if (event.completed()) {
                 hideSpinner(toolsWrapper);
-                renderToolResponse(toolsWrapper, json);
+                showToolResponse(toolsWrapper, event.toolResponse());
             } else {
                 showToolRunning(toolsWrapper, toolName, true);
             }
@@ -355,11 +452,6 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
                 .ifPresent(spinner -> spinner.setVisible(false));
     }
 
-    private void renderToolResponse(Div wrapper, JSONObject json) {
-        String toolResponse = json.getString("toolResponse");
-        showToolResponse(wrapper, toolResponse);
-    }
-
     private void showToolResponse(Div wrapper, String toolResponse) {
         try {
             JsonNode jsonNode = objectMapper.readTree(toolResponse);
@@ -412,6 +504,7 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
         UI.getCurrent().getPage().addJavaScript(
                 "https://cdnjs.cloudflare.com/ajax/libs/highlight.js/11.9.0/highlight.min.js"
         );
+        getElement().executeJs(LOAD_OLDER_ON_SCROLL_JS, messageScroller.getElement());
     }
 
     @Override
@@ -423,11 +516,11 @@ public class ChatView extends HorizontalLayout implements AppShellConfigurator {
     }
 
     private void scrollToBottom() {
-        getUI().ifPresent(ui -> ui.getPage().executeJs("""
-            const scroller = $0;
-            if (scroller) {
-              scroller.scrollTop = scroller.scrollHeight;
-            }
-        """, messageScroller.getElement()));
+        getUI().ifPresent(ui -> ui.getPage().executeJs(SCROLL_TO_BOTTOM_JS, messageScroller.getElement()));
+    }
+
+    private void scrollToBottom(Runnable onAcknowledged) {
+        getUI().ifPresent(ui -> ui.getPage().executeJs(SCROLL_TO_BOTTOM_JS, messageScroller.getElement())
+                .then(result -> onAcknowledged.run(), error -> onAcknowledged.run()));
     }
 }
@@ -0,0 +1,113 @@
+package com.aref.cloud_assistant_mcp.views.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * IncrementalMarkdownRenderer
+ * ------------------------------
+ * Renders a streamed markdown reply block by block. Blocks closed by a blank line
+ * (outside of a fenced code block) are rendered exactly once; only the open trailing
+ * block is re-parsed on every appended chunk. A blank line only closes the block once
+ * the next line shows it does not continue it: a list item or indented line after a
+ * list (a loose list), or a reference definition the block may link to.
+ */
+public class IncrementalMarkdownRenderer {
+
+    private static final Pattern FENCE = Pattern.compile("^(`{3,}|~{3,})");
+    private static final Pattern LIST_ITEM = Pattern.compile("^\\s*(?:[-+*]|\\d{1,9}[.)])(?:\\s.*)?$");
+    private static final Pattern REFERENCE_DEFINITION = Pattern.compile("^ {0,3}\\[[^\\]]+]:.*");
+
+    private final StringBuilder openBlock = new StringBuilder();
+    private int scanFrom;
+    // Start of the blank line that may end the open block, -1 while none is pending.
+    private int blockEnd = -1;
+    private boolean listBlock;
+    private char fenceChar;
+    private int fenceLength;
+
+    public Update append(String chunk) {
+        List<String> closedBlocks = new ArrayList<>();
+        if (chunk != null) openBlock.append(chunk);
+
+        int lineEnd;
+        while ((lineEnd = openBlock.indexOf("\n", scanFrom)) >= 0) {
+            int lineStart = scanFrom;
+            String line = openBlock.substring(lineStart, lineEnd);
+            scanFrom = lineEnd + 1;
+
+            if (fenceLength > 0) {
+                if (closesFence(line.strip())) fenceLength = 0;
+            } else if (line.isBlank()) {
+                if (blockEnd < 0) blockEnd = lineStart;
+            } else {
+                if (blockEnd >= 0) resolvePendingBlock(continuesBlock(line, true), lineStart, closedBlocks);
+                opensFence(line.strip());
+                if (LIST_ITEM.matcher(line).matches()) listBlock = true;
+            }
+        }
+
+        if (fenceLength == 0 && blockEnd >= 0 && !openBlock.substring(scanFrom).isBlank())
+            resolvePendingBlock(continuesBlock(openBlock.substring(scanFrom), false), scanFrom, closedBlocks);
+
+        return new Update(closedBlocks, MarkdownUtil.toHtml(openBlock.toString()));
+    }
+
+    /**
+     * Closes the block before the pending blank line, or keeps it open when the line starting at
+     * {@code lineStart} continues it. Leaves the blank line pending while that is still undecided.
+     */
+    private void resolvePendingBlock(Boolean continues, int lineStart, List<String> closedBlocks) {
+        if (continues == null) return;
+        if (!continues) {
+            String block = openBlock.substring(0, blockEnd);
+            if (!block.isBlank()) closedBlocks.add(MarkdownUtil.toHtml(block));
+            openBlock.delete(0, lineStart);
+            scanFrom -= lineStart;
+            listBlock = false;
+        }
+        blockEnd = -1;
+    }
+
+    /**
+     * Whether the first non-blank line after a blank line continues the open block, or null when
+     * the line is not complete yet and its beginning does not tell.
+     */
+    private Boolean continuesBlock(String line, boolean complete) {
+        if (complete) {
+            return REFERENCE_DEFINITION.matcher(line).matches()
+                    || listBlock && (LIST_ITEM.matcher(line).matches() || line.startsWith("  ") || line.startsWith("\t"));
+        }
+        String content = line.stripLeading();
+        if (content.isEmpty()) return null;
+        char first = content.charAt(0);
+        if (first == '[') return null;
+        if (!listBlock) return false;
+        if (line.startsWith("  ") || line.startsWith("\t")) return true;
+        return "-+*".indexOf(first) >= 0 || Character.isDigit(first) ? null : false;
+    }
+
+    private void opensFence(String line) {
+        Matcher fence = FENCE.matcher(line);
+        if (fence.find()) {
+            fenceChar = line.charAt(0);
+            fenceLength = fence.group(1).length();
+        }
+    }
+
+    /**
+     * A closing fence repeats the opening fence character at least as often as the opening fence.
+     */
+    private boolean closesFence(String line) {
+        if (line.length() < fenceLength) return false;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) != fenceChar) return false;
+        }
+        return true;
+    }
+
+    public record Update(List<String> closedBlocks, String openBlockHtml) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.aref.cloud_assistant_mcp.views.utils;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * StreamCoalescer
+ * ------------------------------
+ * Buffers streamed chunks and hands them to the UI once per frame instead of once per token.
+ * A frame is flushed when the interval elapses or the buffer reaches the size threshold.
+ * The interval follows the measured client acknowledgement time, bounded by min/max.
+ */
+public class StreamCoalescer {
+
+    private static final double RTT_SMOOTHING = 0.2;
+
+    @FunctionalInterface
+    public interface Flusher {
+        void flush(String text, Runnable acknowledge);
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+    private final int maxBufferedChars;
+    private final Flusher flusher;
+    private final LongSupplier nanoClock;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private ScheduledFuture<?> scheduledFlush;
+    private long intervalNanos;
+    private double smoothedRttNanos = -1;
+
+    public StreamCoalescer(ScheduledExecutorService scheduler,
+                           Duration minInterval,
+                           Duration maxInterval,
+                           int maxBufferedChars,
+                           Flusher flusher) {
+        this(scheduler, minInterval, maxInterval, maxBufferedChars, flusher, System::nanoTime);
+    }
+
+    StreamCoalescer(ScheduledExecutorService scheduler,
+                    Duration minInterval,
+                    Duration maxInterval,
+                    int maxBufferedChars,
+                    Flusher flusher,
+                    LongSupplier nanoClock) {
+        this.scheduler = scheduler;
+        this.minIntervalNanos = minInterval.toNanos();
+        this.maxIntervalNanos = Math.max(minIntervalNanos, maxInterval.toNanos());
+        this.maxBufferedChars = maxBufferedChars;
+        this.flusher = flusher;
+        this.nanoClock = nanoClock;
+        this.intervalNanos = minIntervalNanos;
+    }
+
+    public synchronized void offer(String chunk) {
+        if (chunk == null || chunk.isEmpty()) return;
+        buffer.append(chunk);
+
+        if (buffer.length() >= maxBufferedChars) {
+            flush();
+        } else if (scheduledFlush == null) {
+            scheduledFlush = scheduler.schedule(this::flush, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public synchronized void flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (buffer.isEmpty()) return;
+
+        String text = buffer.toString();
+        buffer.setLength(0);
+
+        long sentAt = nanoClock.getAsLong();
+        flusher.flush(text, () -> acknowledged(sentAt));
+    }
+
+    public synchronized Duration currentInterval() {
+        return Duration.ofNanos(intervalNanos);
+    }
+
+    private synchronized void acknowledged(long sentAt) {
+        long rtt = nanoClock.getAsLong() - sentAt;
+        smoothedRttNanos = smoothedRttNanos < 0
+                ? rtt
+                : smoothedRttNanos + RTT_SMOOTHING * (rtt - smoothedRttNanos);
+        intervalNanos = Math.clamp((long) smoothedRttNanos, minIntervalNanos, maxIntervalNanos);
+    }
+}
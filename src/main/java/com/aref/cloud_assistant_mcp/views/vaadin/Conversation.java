@@ -7,6 +7,7 @@ public class Conversation {
     private String id;
     private String title;
     private List<Message> messages = new ArrayList<>();
+    private String olderMessagesCursor;
 
     public Conversation() {}
 
@@ -24,6 +25,9 @@ public class Conversation {
     public List<Message> getMessages() { return messages; }
     public void setMessages(List<Message> messages) { this.messages = messages; }
 
+    public String getOlderMessagesCursor() { return olderMessagesCursor; }
+    public void setOlderMessagesCursor(String olderMessagesCursor) { this.olderMessagesCursor = olderMessagesCursor; }
+
     public void addMessage(Message message) {
         if(this.messages == null)
             this.messages = new ArrayList<>();
@@ -4,7 +4,7 @@ import dev.langchain4j.data.message.ChatMessageType;
 
 public class Message {
 
-    private String text;
+    private StringBuilder text;
     private ChatMessageType messageType;
     private String type;
     private String toolName;
@@ -18,26 +18,25 @@ public class Message {
     }
 
     public Message(String text, ChatMessageType messageType) {
-        this.text = text;
+        setText(text);
         this.messageType = messageType;
     }
 
     public Message(String text, ChatMessageType messageType, String toolName, String toolResponse) {
-        this.text = text;
+        setText(text);
         this.messageType = messageType;
         this.toolName = toolName;
         this.toolResponse = toolResponse;
     }
 
     // Getters and Setters
-    public String getText() { return text; }
-    public void setText(String text) { this.text = text; }
+    public String getText() { return text == null ? null : text.toString(); }
+    public void setText(String text) { this.text = text == null ? null : new StringBuilder(text); }
 
     public void appendText(String text) {
         if(this.text == null)
-            this.text = text;
-        else
-            this.text = this.text.concat(text);
+            this.text = new StringBuilder();
+        this.text.append(text);
     }
 
     public ChatMessageType getMessageType() { return messageType; }
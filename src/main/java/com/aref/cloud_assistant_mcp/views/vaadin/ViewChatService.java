@@ -1,29 +1,67 @@
 package com.aref.cloud_assistant_mcp.views.vaadin;
 
+import com.aref.cloud_assistant_mcp.dto.ChatEvent;
 import com.aref.cloud_assistant_mcp.dto.ConversationCreateDto;
 import com.aref.cloud_assistant_mcp.dto.ConversationDto;
+import com.aref.cloud_assistant_mcp.dto.CursorPageDto;
+import com.aref.cloud_assistant_mcp.dto.MessageDto;
 import com.aref.cloud_assistant_mcp.service.ConversationService;
-import org.springframework.data.domain.PageRequest;
+import com.aref.cloud_assistant_mcp.views.utils.StreamCoalescer;
+import dev.langchain4j.data.message.ChatMessageType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 
 @Service
 public class ViewChatService {
 
-    private final Map<String, Conversation> conversationMap = new ConcurrentHashMap<>();
+    private static final int SIDEBAR_PAGE_SIZE = 100;
+    private static final int MESSAGE_PAGE_SIZE = 100;
+    private static final int SEARCH_RESULT_SIZE = 20;
+
+    // Insertion-ordered so the sidebar keeps the most-recently-active-first order of the listing.
+    private final Map<String, Conversation> conversationMap = Collections.synchronizedMap(new LinkedHashMap<>());
 
     private final ConversationService conversationService;
 
+    private final ScheduledExecutorService pushScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("chat-push-coalescer").daemon().factory());
+
+    @Value("${chat.view.push.min-frame-interval-ms:40}")
+    private long minFrameIntervalMs;
+
+    @Value("${chat.view.push.max-frame-interval-ms:500}")
+    private long maxFrameIntervalMs;
+
+    @Value("${chat.view.push.max-buffered-chars:2048}")
+    private int maxBufferedChars;
+
     public ViewChatService(ConversationService conversationService) {
         this.conversationService = conversationService;
     }
 
+    public StreamCoalescer newStreamCoalescer(StreamCoalescer.Flusher flusher) {
+        return new StreamCoalescer(pushScheduler,
+                Duration.ofMillis(minFrameIntervalMs),
+                Duration.ofMillis(maxFrameIntervalMs),
+                maxBufferedChars,
+                flusher);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pushScheduler.shutdownNow();
+    }
+
 
     public Conversation createNewConversation() {
         String id = "temp-" + System.currentTimeMillis();
@@ -36,7 +74,8 @@ public class ViewChatService {
         if (conversationMap.isEmpty()) {
             User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
             Map<String, Conversation> conversationMap = conversationService
-                    .getConversations(user.getUsername(), PageRequest.of(0, 100))
+                    .getConversations(user.getUsername(), null, SIDEBAR_PAGE_SIZE)
+                    .getItems()
                     .stream()
                     .collect(Collectors.toMap(
                             ConversationDto::getConversationId,
@@ -45,12 +84,28 @@ public class ViewChatService {
                                 c.setId(conversation.getConversationId());
                                 c.setTitle(conversation.getTitle());
                                 return c;
-                            }
+                            },
+                            (first, second) -> first,
+                            LinkedHashMap::new
                     ));
             this.conversationMap.putAll(conversationMap);
 
         }
-        return new ArrayList<>(conversationMap.values());
+        synchronized (conversationMap) {
+            return new ArrayList<>(conversationMap.values());
+        }
+    }
+
+    public List<Conversation> searchConversations(String query) {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return conversationService.search(user.getUsername(), query, SEARCH_RESULT_SIZE)
+                .stream()
+                .map(hit -> conversationMap.computeIfAbsent(hit.getConversationId(), id -> {
+                    Conversation c = new Conversation(id);
+                    c.setTitle(hit.getTitle());
+                    return c;
+                }))
+                .toList();
     }
 
     public Conversation getConversation(String id) {
@@ -73,7 +128,7 @@ public class ViewChatService {
         }
     }
 
-    public Flux<String> create(ConversationCreateDto conversationCreateDto) {
+    public Flux<ChatEvent> create(ConversationCreateDto conversationCreateDto) {
         return conversationService.create(conversationCreateDto);
     }
 
@@ -81,18 +136,40 @@ public class ViewChatService {
         conversationMap.clear();
     }
 
+    /**
+     * Returns the loaded messages of a conversation, oldest first. Only the newest page is read at first;
+     * older pages are added by {@link #loadOlderMessages(String)} as the user scrolls up.
+     */
     public List<Message> getConversationMessages(String id) {
         Conversation conversation = conversationMap.get(id);
         if (conversation == null)
             return new ArrayList<>();
         List<Message> messages = conversation.getMessages();
-        if (messages == null || messages.isEmpty()) {
-            conversation.setMessages(conversationService.getMessages(id, PageRequest.of(0, 100))
-                    .stream()
-                    .map(msg -> new Message(msg.getContent(), msg.getType(), msg.getToolName(), msg.getToolResponse()))
-                    .collect(Collectors.toList()));
-        }
+        if (messages == null || messages.isEmpty())
+            conversation.setMessages(new ArrayList<>(loadPage(conversation, null)));
         return conversation.getMessages();
     }
+
+    /**
+     * Loads the page before the oldest loaded message and returns it, oldest first; empty once the start is reached.
+     */
+    public List<Message> loadOlderMessages(String id) {
+        Conversation conversation = conversationMap.get(id);
+        if (conversation == null || conversation.getOlderMessagesCursor() == null)
+            return List.of();
+        List<Message> older = loadPage(conversation, conversation.getOlderMessagesCursor());
+        conversation.getMessages().addAll(0, older);
+        return older;
+    }
+
+    private List<Message> loadPage(Conversation conversation, String before) {
+        CursorPageDto<MessageDto> page = conversationService.getMessagesBefore(conversation.getId(), before, MESSAGE_PAGE_SIZE);
+        conversation.setOlderMessagesCursor(page.getNextCursor());
+        return page.getItems().reversed().stream()
+                // Steps that only requested tools are stored as AI rows without text.
+                .filter(msg -> msg.getType() != ChatMessageType.AI || (msg.getContent() != null && !msg.getContent().isBlank()))
+                .map(msg -> new Message(msg.getContent(), msg.getType(), msg.getToolName(), msg.getToolResponse()))
+                .toList();
+    }
 }
 
@@ -0,0 +1,62 @@
+-- Schema of db/migration up to V6 for the embedded (H2, MySQL mode) profile.
+-- H2 cannot run the MySQL migrations as written (partitioning, multi-clause ALTER TABLE, charsets),
+-- so a new migration under db/migration needs a counterpart here with the same version.
+-- JSON columns are plain text here: H2 would store a bound string as a JSON string literal.
+CREATE TABLE `chatmemory` (
+  `id` bigint NOT NULL,
+  `conversation_id` varchar(36) NOT NULL,
+  `chat_id` varchar(191) NULL DEFAULT NULL,
+  `username` varchar(191) NULL DEFAULT NULL,
+  `title` varchar(191) NULL DEFAULT NULL,
+  `text` text NOT NULL,
+  `tool_execution_requests` text NULL,
+  `thinking` text NULL,
+  `type` enum('USER','AI','SYSTEM','TOOL_EXECUTION_RESULT') NOT NULL,
+  `tool_id` varchar(191) NULL DEFAULT NULL,
+  `tool_name` varchar(191) NULL DEFAULT NULL,
+  `tool_response` text NULL,
+  `attributes` text NULL,
+  `timestamp` timestamp NOT NULL,
+  PRIMARY KEY (`id`)
+);
+CREATE INDEX `chatmemory_conversation_timestamp_idx` ON `chatmemory` (`conversation_id`, `timestamp`, `id`);
+CREATE INDEX `chatmemory_chat_id_idx` ON `chatmemory` (`chat_id`);
+CREATE INDEX `chatmemory_username_idx` ON `chatmemory` (`username`, `conversation_id`);
+
+CREATE TABLE `conversation` (
+  `id` varchar(36) NOT NULL,
+  `username` varchar(191) NOT NULL,
+  `title` varchar(191) NOT NULL,
+  `created_at` timestamp NOT NULL,
+  `last_activity_at` timestamp NOT NULL,
+  `message_count` bigint NOT NULL DEFAULT 0,
+  `archived_at` timestamp NULL DEFAULT NULL,
+  PRIMARY KEY (`id`)
+);
+CREATE INDEX `conversation_username_last_activity_idx` ON `conversation` (`username`, `last_activity_at`, `id`, `title`);
+CREATE INDEX `conversation_archive_candidates_idx` ON `conversation` (`archived_at`, `last_activity_at`);
+
+CREATE TABLE `id_sequence` (
+  `sequence_name` varchar(64) NOT NULL,
+  `next_val` bigint NOT NULL,
+  PRIMARY KEY (`sequence_name`)
+);
+INSERT INTO `id_sequence` (`sequence_name`, `next_val`) VALUES ('chatmemory', 50);
+
+-- Not partitioned; tiering is disabled in the embedded profile.
+CREATE TABLE `chatmemory_archive` (
+  `id` bigint NOT NULL,
+  `conversation_id` varchar(36) NOT NULL,
+  `chat_id` varchar(191) NULL DEFAULT NULL,
+  `username` varchar(191) NULL DEFAULT NULL,
+  `title` varchar(191) NULL DEFAULT NULL,
+  `text` text NOT NULL,
+  `tool_execution_requests` text NULL,
+  `type` enum('USER','AI','SYSTEM','TOOL_EXECUTION_RESULT') NOT NULL,
+  `tool_id` varchar(191) NULL DEFAULT NULL,
+  `tool_name` varchar(191) NULL DEFAULT NULL,
+  `tool_response` text NULL,
+  `timestamp` timestamp NOT NULL,
+  PRIMARY KEY (`id`, `timestamp`)
+);
+CREATE INDEX `chatmemory_archive_conversation_idx` ON `chatmemory_archive` (`conversation_id`, `timestamp`, `id`);
@@ -1,11 +1,6 @@
-SET NAMES utf8mb4;
-SET FOREIGN_KEY_CHECKS = 0;
-
--- ----------------------------
--- Table structure for chatmemory
--- ----------------------------
-DROP TABLE IF EXISTS `chatmemory`;
-CREATE TABLE `chatmemory`  (
+-- Original chat memory table, as created before migrations were introduced.
+-- Existing databases are baselined at this version and skip it.
+CREATE TABLE IF NOT EXISTS `chatmemory`  (
   `id` bigint NOT NULL AUTO_INCREMENT,
   `conversation_id` varchar(36) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
   `username` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL,
@@ -20,6 +15,4 @@ CREATE TABLE `chatmemory`  (
   `timestamp` timestamp NOT NULL,
   PRIMARY KEY (`id`) USING BTREE,
   INDEX `SPRING_AI_CHAT_MEMORY_CONVERSATION_ID_TIMESTAMP_IDX`(`conversation_id` ASC, `timestamp` ASC) USING BTREE
-) ENGINE = InnoDB AUTO_INCREMENT = 533 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
-
-SET FOREIGN_KEY_CHECKS = 1;
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
@@ -0,0 +1,7 @@
+-- Align column names with the CustomChatMemory mapping and add the columns it writes.
+ALTER TABLE `chatmemory`
+  RENAME COLUMN `toolExecutionRequests` TO `tool_execution_requests`,
+  RENAME COLUMN `toolId` TO `tool_id`,
+  RENAME COLUMN `toolName` TO `tool_name`,
+  ADD COLUMN `tool_response` json NULL AFTER `tool_name`,
+  ADD COLUMN `chat_id` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL AFTER `conversation_id`;
@@ -0,0 +1,14 @@
+CREATE TABLE `conversation`  (
+  `id` varchar(36) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `username` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `title` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `created_at` timestamp NOT NULL,
+  `last_activity_at` timestamp NOT NULL,
+  `message_count` bigint NOT NULL DEFAULT 0,
+  PRIMARY KEY (`id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
+
+INSERT INTO `conversation` (`id`, `username`, `title`, `created_at`, `last_activity_at`, `message_count`)
+SELECT `conversation_id`, COALESCE(MAX(`username`), ''), COALESCE(MAX(`title`), ''), MIN(`timestamp`), MAX(`timestamp`), COUNT(*)
+FROM `chatmemory`
+GROUP BY `conversation_id`;
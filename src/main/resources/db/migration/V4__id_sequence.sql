@@ -0,0 +1,10 @@
+-- Pooled id blocks for chatmemory, so inserts can be batched.
+CREATE TABLE `id_sequence`  (
+  `sequence_name` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `next_val` bigint NOT NULL,
+  PRIMARY KEY (`sequence_name`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
+
+-- The pooled optimizer hands out the block ending at next_val, so start one block above the current ids.
+INSERT INTO `id_sequence` (`sequence_name`, `next_val`)
+SELECT 'chatmemory', COALESCE(MAX(`id`), 0) + 50 FROM `chatmemory`;
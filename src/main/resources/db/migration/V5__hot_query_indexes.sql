@@ -0,0 +1,11 @@
+-- History and keyset paging: WHERE conversation_id = ? ORDER BY timestamp, id
+ALTER TABLE `chatmemory`
+  DROP INDEX `SPRING_AI_CHAT_MEMORY_CONVERSATION_ID_TIMESTAMP_IDX`,
+  ADD INDEX `chatmemory_conversation_timestamp_idx`(`conversation_id` ASC, `timestamp` ASC, `id` ASC) USING BTREE,
+  -- existByChatId and the write-behind CONCAT update
+  ADD INDEX `chatmemory_chat_id_idx`(`chat_id` ASC) USING BTREE,
+  ADD INDEX `chatmemory_username_idx`(`username` ASC, `conversation_id` ASC) USING BTREE;
+
+-- Conversation listing, covering: WHERE username = ? ORDER BY last_activity_at DESC, id DESC
+ALTER TABLE `conversation`
+  ADD INDEX `conversation_username_last_activity_idx`(`username` ASC, `last_activity_at` ASC, `id` ASC, `title` ASC) USING BTREE;
@@ -0,0 +1,26 @@
+-- Cold tier for conversations idle longer than chat.tiering.archive-after-days.
+-- Partitioned by month of the message timestamp; ConversationTiering splits p_future as months are archived.
+CREATE TABLE `chatmemory_archive`  (
+  `id` bigint NOT NULL,
+  `conversation_id` varchar(36) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `chat_id` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL,
+  `username` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL,
+  `title` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL,
+  `text` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `tool_execution_requests` json NULL,
+  `type` enum('USER','AI','SYSTEM','TOOL_EXECUTION_RESULT') CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `tool_id` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL,
+  `tool_name` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL,
+  `tool_response` json NULL,
+  `timestamp` timestamp NOT NULL,
+  PRIMARY KEY (`id`, `timestamp`) USING BTREE,
+  INDEX `chatmemory_archive_conversation_idx`(`conversation_id` ASC, `timestamp` ASC, `id` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic
+PARTITION BY RANGE (UNIX_TIMESTAMP(`timestamp`)) (
+  PARTITION `p_history` VALUES LESS THAN (UNIX_TIMESTAMP('2025-01-01 00:00:00')),
+  PARTITION `p_future` VALUES LESS THAN MAXVALUE
+);
+
+ALTER TABLE `conversation`
+  ADD COLUMN `archived_at` timestamp NULL DEFAULT NULL,
+  ADD INDEX `conversation_archive_candidates_idx`(`archived_at` ASC, `last_activity_at` ASC) USING BTREE;
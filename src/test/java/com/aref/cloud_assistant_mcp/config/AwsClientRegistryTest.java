@@ -0,0 +1,61 @@
+package com.aref.cloud_assistant_mcp.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AnonymousCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.metrics.MetricCollector;
+import software.amazon.awssdk.services.sts.StsClient;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AwsClientRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SdkAsyncHttpClient httpClient = NettyNioAsyncHttpClient.create();
+    private final AwsClientRegistry registry = new AwsClientRegistry(httpClient, mock(StsClient.class),
+            AnonymousCredentialsProvider.create(), ClientOverrideConfiguration.builder().build(), meterRegistry, "test");
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+        httpClient.close();
+    }
+
+    @Test
+    void reusesOneClientPerRoleAndRegion() {
+        assertSame(registry.ec2(null, "us-east-1"), registry.ec2("", "us-east-1"));
+        assertNotSame(registry.ec2(null, "us-east-1"), registry.ec2(null, "eu-west-1"));
+        assertNotSame(registry.ec2(null, "us-east-1"), registry.ec2("arn:aws:iam::123456789012:role/ops", "us-east-1"));
+        assertSame(registry.s3Presigner(null, "us-east-1"), registry.s3Presigner(null, "us-east-1"));
+    }
+
+    @Test
+    void publishesCallLatencyAndPoolState() {
+        MetricCollector call = MetricCollector.create("ApiCall");
+        call.reportMetric(CoreMetric.SERVICE_ID, "EC2");
+        call.reportMetric(CoreMetric.OPERATION_NAME, "DescribeInstances");
+        call.reportMetric(CoreMetric.API_CALL_SUCCESSFUL, true);
+        call.reportMetric(CoreMetric.API_CALL_DURATION, Duration.ofMillis(40));
+        call.reportMetric(CoreMetric.RETRY_COUNT, 2);
+        MetricCollector http = call.createChild("ApiCallAttempt").createChild("HttpClient");
+        http.reportMetric(HttpMetric.LEASED_CONCURRENCY, 3);
+        http.reportMetric(HttpMetric.PENDING_CONCURRENCY_ACQUIRES, 1);
+
+        new MicrometerMetricPublisher(meterRegistry, Tags.of("account", "default", "region", "us-east-1")).publish(call.collect());
+
+        assertEquals(1, meterRegistry.get("aws.client.calls").tag("operation", "DescribeInstances").tag("outcome", "success").timer().count());
+        assertEquals(2, meterRegistry.get("aws.client.retries").tag("service", "EC2").counter().count());
+        assertEquals(3, meterRegistry.get("aws.client.pool.leased").tag("region", "us-east-1").gauge().value());
+        assertEquals(1, meterRegistry.get("aws.client.pool.pending").tag("service", "EC2").gauge().value());
+    }
+}
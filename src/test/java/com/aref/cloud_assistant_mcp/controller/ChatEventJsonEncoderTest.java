@@ -0,0 +1,85 @@
+package com.aref.cloud_assistant_mcp.controller;
+
+import com.aref.cloud_assistant_mcp.dto.ChatEvent;
+import com.aref.cloud_assistant_mcp.dto.ResponseType;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins the SSE payloads to the JSONObject output they replaced; JSONObject drops keys whose value is null.
+ */
+class ChatEventJsonEncoderTest {
+
+    private final ChatEventJsonEncoder encoder = new ChatEventJsonEncoder();
+
+    @Test
+    void encodesAMessageDelta() {
+        assertSameJson(new JSONObject()
+                        .put("type", ResponseType.MESSAGE.getValue())
+                        .put("message", "Hello \"world\"\n"),
+                encoder.encode(new ChatEvent.MessageEvent("Hello \"world\"\n")));
+    }
+
+    @Test
+    void encodesAToolCallInProgress() {
+        assertSameJson(new JSONObject()
+                        .put("type", ResponseType.TOOL_CALLING.getValue())
+                        .put("toolId", "call-1")
+                        .put("toolName", "aws_ec2_list")
+                        .put("arguments", "{\"limit\":10}")
+                        .put("toolResponse", (Object) null)
+                        .put("completed", false),
+                encoder.encode(new ChatEvent.ToolCallingEvent("call-1", "aws_ec2_list", "{\"limit\":10}", null)));
+    }
+
+    @Test
+    void leavesOutArgumentsThatHaveNotStreamedYet() {
+        String encoded = encoder.encode(new ChatEvent.ToolCallingEvent("call-1", "aws_ec2_list", null, null));
+
+        assertSameJson(new JSONObject()
+                        .put("type", ResponseType.TOOL_CALLING.getValue())
+                        .put("toolId", "call-1")
+                        .put("toolName", "aws_ec2_list")
+                        .put("arguments", (Object) null)
+                        .put("toolResponse", (Object) null)
+                        .put("completed", false),
+                encoded);
+        assertFalse(encoded.contains("arguments"));
+    }
+
+    @Test
+    void encodesACompletedToolCall() {
+        assertSameJson(new JSONObject()
+                        .put("type", ResponseType.TOOL_CALLING.getValue())
+                        .put("toolId", "call-1")
+                        .put("toolName", "aws_ec2_list")
+                        .put("arguments", "{}")
+                        .put("toolResponse", "{\"ok\":true}")
+                        .put("completed", true),
+                encoder.encode(new ChatEvent.ToolCallingEvent("call-1", "aws_ec2_list", "{}", "{\"ok\":true}")));
+    }
+
+    @Test
+    void encodesConversationMetadata() {
+        assertSameJson(new JSONObject()
+                        .put("title", "EC2 costs")
+                        .put("conversationId", "c1")
+                        .put("titleUpdate", true)
+                        .put("type", ResponseType.CONVERSATION_DETAIL_METADATA.getValue()),
+                encoder.encode(new ChatEvent.ConversationMetadataEvent("c1", "EC2 costs", true)));
+    }
+
+    @Test
+    void encodesAnError() {
+        assertSameJson(new JSONObject()
+                        .put("type", ResponseType.ERROR.getValue())
+                        .put("message", "The model is unavailable."),
+                encoder.encode(new ChatEvent.ErrorEvent("The model is unavailable.")));
+    }
+
+    private static void assertSameJson(JSONObject expected, String encoded) {
+        assertTrue(expected.similar(new JSONObject(encoded)), () -> "Expected " + expected + " but was " + encoded);
+    }
+}
@@ -0,0 +1,94 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.dto.MessageDto;
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import dev.langchain4j.data.message.ChatMessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatHistoryCacheTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final ChatHistoryCache cache = new ChatHistoryCache(new SimpleMeterRegistry(), 200, 1_000_000, 600);
+
+    @Test
+    void servesLaterReadsFromTheCacheAndAddsSavedRows() {
+        AtomicInteger loads = new AtomicInteger();
+        List<MessageDto> database = List.of(dto(1, "user-1", ChatMessageType.USER, "hi"));
+
+        cache.getRecent("c1", 200, () -> {
+            loads.incrementAndGet();
+            return database;
+        });
+        cache.onSaved(row("ai-1", ChatMessageType.AI, "hello", NOW.plusSeconds(1)));
+        List<MessageDto> recent = cache.getRecent("c1", 200, () -> {
+            loads.incrementAndGet();
+            return database;
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(List.of("hello", "hi"), recent.stream().map(MessageDto::getContent).toList());
+    }
+
+    @Test
+    void dropsALoadThatRacedAWrite() {
+        AtomicInteger loads = new AtomicInteger();
+
+        List<MessageDto> stale = cache.getRecent("c1", 200, () -> {
+            loads.incrementAndGet();
+            // The row is committed after the query read the conversation, but before the load is cached.
+            cache.onSaved(row("ai-1", ChatMessageType.AI, "hello", NOW.plusSeconds(1)));
+            return List.of(dto(1, "user-1", ChatMessageType.USER, "hi"));
+        });
+        List<MessageDto> fresh = cache.getRecent("c1", 200, () -> {
+            loads.incrementAndGet();
+            return List.of(dto(2, "ai-1", ChatMessageType.AI, "hello"), dto(1, "user-1", ChatMessageType.USER, "hi"));
+        });
+
+        assertEquals(1, stale.size());
+        assertEquals(2, fresh.size());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void appendsTextToRowsLoadedFromTheDatabase() {
+        cache.getRecent("c1", 200, () -> List.of(dto(2, "ai-1", ChatMessageType.AI, "You have"),
+                dto(1, "user-1", ChatMessageType.USER, "How many buckets?")));
+
+        cache.onTextAppended(row("ai-1", ChatMessageType.AI, " two buckets.", NOW));
+
+        List<MessageDto> recent = cache.getRecent("c1", 200, () -> fail("should be cached"));
+        assertEquals("You have two buckets.", recent.getFirst().getContent());
+    }
+
+    @Test
+    void doesNotCacheAPartialWindow() {
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            cache.getRecent("c1", 1, () -> {
+                loads.incrementAndGet();
+                return List.of(dto(2, "ai-1", ChatMessageType.AI, "hello"));
+            });
+        }
+
+        assertEquals(2, loads.get());
+    }
+
+    private static MessageDto dto(long id, String chatId, ChatMessageType type, String content) {
+        return new MessageDto(id, "c1", content, type, null, null, null, null, NOW.plusSeconds(id - 1), chatId);
+    }
+
+    private static CustomChatMemory row(String chatId, ChatMessageType type, String text, LocalDateTime timestamp) {
+        CustomChatMemory row = new CustomChatMemory("c1", "title", text, "alice", type, timestamp);
+        row.setChatId(chatId);
+        return row;
+    }
+}
@@ -0,0 +1,185 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import dev.langchain4j.data.message.ChatMessageType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ChatMemoryWriteBufferTest {
+
+    private static final String TOOL_REQUESTS = "[{\"id\":\"call-1\",\"name\":\"aws_ec2_list\",\"arguments\":\"{}\"}]";
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    void handsAToolTurnToTheStoreInOneWrite() {
+        ChatMemoryStore store = store();
+        ChatMemoryWriteBuffer buffer = new ChatMemoryWriteBuffer(store, 16384, 60_000, journalDir.toString());
+
+        // USER row, an AI step requesting three tools, three results, and the final answer in one saveTurn;
+        // TurnWriteStatementsTest shows that saveTurn is a single batched insert.
+        buffer.stage("turn", row(ChatMessageType.USER));
+        buffer.append("c1", "title", "alice", "turn", "step-1", "Let me check.", TOOL_REQUESTS);
+        for (int i = 0; i < 3; i++) buffer.stage("turn", row(ChatMessageType.TOOL_EXECUTION_RESULT));
+        buffer.append("c1", "title", "alice", "turn", "step-2", "Here is the result.", null);
+        buffer.complete("turn").block();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CustomChatMemory>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(store, times(1)).saveTurn(inserts.capture(), argThat(List::isEmpty));
+        verifyNoMoreInteractions(store);
+
+        List<CustomChatMemory> rows = inserts.getValue();
+        assertEquals(List.of(ChatMessageType.USER, ChatMessageType.AI, ChatMessageType.TOOL_EXECUTION_RESULT,
+                        ChatMessageType.TOOL_EXECUTION_RESULT, ChatMessageType.TOOL_EXECUTION_RESULT, ChatMessageType.AI),
+                rows.stream().map(CustomChatMemory::getType).toList());
+        assertEquals("Let me check.", rows.get(1).getText());
+        assertEquals(TOOL_REQUESTS, rows.get(1).getToolExecutionRequests());
+        assertEquals("Here is the result.", rows.getLast().getText());
+        assertNull(rows.getLast().getToolExecutionRequests());
+    }
+
+    @Test
+    void keepsAStepThatOnlyRequestedTools() {
+        ChatMemoryStore store = store();
+        ChatMemoryWriteBuffer buffer = new ChatMemoryWriteBuffer(store, 16384, 60_000, journalDir.toString());
+
+        buffer.append("c1", "title", "alice", "turn", "step-1", null, TOOL_REQUESTS);
+        buffer.stage("turn", row(ChatMessageType.TOOL_EXECUTION_RESULT));
+        buffer.complete("turn").block();
+
+        verify(store).saveTurn(argThat(rows -> rows.size() == 2
+                && rows.getFirst().getType() == ChatMessageType.AI
+                && rows.getFirst().getText().isEmpty()
+                && TOOL_REQUESTS.equals(rows.getFirst().getToolExecutionRequests())
+                && !rows.getFirst().getTimestamp().isAfter(rows.getLast().getTimestamp())), argThat(List::isEmpty));
+    }
+
+    @Test
+    void appendsToTheAiRowAfterAnEarlyFlush() {
+        ChatMemoryStore store = store();
+        ChatMemoryWriteBuffer buffer = new ChatMemoryWriteBuffer(store, 10, 60_000, journalDir.toString());
+
+        buffer.append("c1", "title", "alice", "turn", "step-1", "0123456789", null);
+        buffer.append("c1", "title", "alice", "turn", "step-1", "tail", null);
+        buffer.complete("turn").block();
+
+        InOrder order = inOrder(store);
+        order.verify(store).saveTurn(argThat(rows -> rows.size() == 1), argThat(List::isEmpty));
+        order.verify(store).saveTurn(argThat(List::isEmpty), argThat(ai -> ai.size() == 1 && "tail".equals(ai.getFirst().getText())));
+        verifyNoMoreInteractions(store);
+    }
+
+    @Test
+    void keepsTheJournalWhenAWriteFails() throws Exception {
+        ChatMemoryStore store = mock(ChatMemoryStore.class);
+        when(store.saveTurn(any(), any())).thenReturn(Mono.error(new IllegalStateException("db down")));
+        ChatMemoryWriteBuffer buffer = new ChatMemoryWriteBuffer(store, 16384, 60_000, journalDir.toString());
+
+        buffer.append("c1", "title", "alice", "turn", "step-1", "answer", null);
+        buffer.complete("turn").block();
+        buffer.awaitJournal();
+
+        try (var files = Files.list(journalDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void retriesAFailedFirstFlushAsAnInsert() throws Exception {
+        ChatMemoryStore store = mock(ChatMemoryStore.class);
+        when(store.saveTurn(any(), any()))
+                .thenReturn(Mono.error(new IllegalStateException("db down")))
+                .thenReturn(Mono.empty());
+        ChatMemoryWriteBuffer buffer = new ChatMemoryWriteBuffer(store, 10, 60_000, journalDir.toString());
+
+        buffer.append("c1", "title", "alice", "turn", "step-1", "0123456789", null);
+        buffer.append("c1", "title", "alice", "turn", "step-1", "tail", null);
+        buffer.complete("turn").block();
+
+        // The row was never written, so the retry inserts all of its text instead of appending to nothing.
+        InOrder order = inOrder(store);
+        order.verify(store).saveTurn(argThat(rows -> rows.size() == 1 && "0123456789".equals(rows.getFirst().getText())),
+                argThat(List::isEmpty));
+        order.verify(store).saveTurn(argThat(rows -> rows.size() == 1 && "0123456789tail".equals(rows.getFirst().getText())),
+                argThat(List::isEmpty));
+        verifyNoMoreInteractions(store);
+        buffer.awaitJournal();
+        try (var files = Files.list(journalDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void retriesACompletedTurnWithoutARestart() throws Exception {
+        ChatMemoryStore store = mock(ChatMemoryStore.class);
+        when(store.saveTurn(any(), any()))
+                .thenReturn(Mono.error(new IllegalStateException("db down")))
+                .thenReturn(Mono.empty());
+        ChatMemoryWriteBuffer buffer = new ChatMemoryWriteBuffer(store, 16384, 200, journalDir.toString());
+
+        buffer.append("c1", "title", "alice", "turn", "step-1", "answer", null);
+        buffer.complete("turn").block();
+
+        // The sweeper writes the turn again once it is due, then drops it and its journal.
+        verify(store, timeout(5_000).times(2))
+                .saveTurn(argThat(rows -> rows.size() == 1 && "answer".equals(rows.getFirst().getText())), argThat(List::isEmpty));
+        buffer.complete("turn").block();
+        buffer.awaitJournal();
+        verifyNoMoreInteractions(store);
+        try (var files = Files.list(journalDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void replaysAFailedTurnOnTheNextStart() throws Exception {
+        ChatMemoryStore failing = mock(ChatMemoryStore.class);
+        when(failing.saveTurn(any(), any())).thenReturn(Mono.error(new IllegalStateException("db down")));
+        ChatMemoryWriteBuffer crashed = new ChatMemoryWriteBuffer(failing, 10, 60_000, journalDir.toString());
+        crashed.stage("turn", row(ChatMessageType.USER));
+        crashed.append("c1", "title", "alice", "turn", "step-1", "0123456789", null);
+        crashed.append("c1", "title", "alice", "turn", "step-1", "tail", null);
+        crashed.complete("turn").block();
+        crashed.awaitJournal();
+
+        ChatMemoryStore store = store();
+        when(store.findExistingChatIds(any())).thenReturn(Mono.just(Set.of()));
+        ChatMemoryWriteBuffer restarted = new ChatMemoryWriteBuffer(store, 16384, 60_000, journalDir.toString());
+        restarted.recover();
+        restarted.awaitJournal();
+
+        verify(store).saveTurn(argThat(rows -> rows.size() == 2 && "0123456789tail".equals(rows.getLast().getText())),
+                argThat(List::isEmpty));
+        try (var files = Files.list(journalDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static ChatMemoryStore store() {
+        ChatMemoryStore store = mock(ChatMemoryStore.class);
+        when(store.saveTurn(any(), any())).thenReturn(Mono.empty());
+        return store;
+    }
+
+    private static CustomChatMemory row(ChatMessageType type) {
+        CustomChatMemory row = new CustomChatMemory("c1", "alice", "title", null, null, null, type,
+                LocalDateTime.now(), "row");
+        row.setText("");
+        return row;
+    }
+}
@@ -0,0 +1,120 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Archives idle conversations into the monthly partitions of a real MySQL and reads them back.
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ConversationTiering.class)
+class ConversationTieringTest {
+
+    private static final int ARCHIVE_AFTER_DAYS = 90;
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.4");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    @Autowired
+    ConversationTiering tiering;
+
+    @Autowired
+    ChatMemoryArchiveRepository archiveRepository;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Test
+    void archivesIdleConversationsIntoMonthlyPartitionsAndRehydratesThem() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        seed("before-partitions", LocalDateTime.of(2024, 11, 3, 10, 0), 3);
+        seed("first-month", LocalDateTime.of(2025, 1, 20, 10, 0), 4);
+        seed("later-month", now.minusDays(200), 5);
+        seed("active", now.minusDays(1), 2);
+        ConversationArchiver archiver = new ConversationArchiver(tiering, archiveRepository,
+                new ChatHistoryCache(new SimpleMeterRegistry(), 200, 1_000_000, 600),
+                false, ARCHIVE_AFTER_DAYS, 60, 2);
+
+        archiver.run();
+        archiver.run();
+
+        List<String> partitions = archiveRepository.findArchivePartitions();
+        YearMonth cutoff = YearMonth.from(now.minusDays(ARCHIVE_AFTER_DAYS));
+        for (YearMonth month = YearMonth.of(2025, 1); !month.isAfter(cutoff); month = month.plusMonths(1)) {
+            String name = "p%d%02d".formatted(month.getYear(), month.getMonthValue());
+            assertTrue(partitions.contains(name), () -> "Missing partition " + name);
+        }
+        assertEquals(List.of(0, 3), counts("before-partitions"));
+        assertEquals(List.of(0, 4), counts("first-month"));
+        assertEquals(List.of(0, 5), counts("later-month"));
+        assertEquals(List.of(2, 0), counts("active"));
+
+        for (String conversationId : List.of("before-partitions", "first-month", "later-month")) {
+            assertTrue(tiering.rehydrate(conversationId));
+            assertFalse(tiering.isArchived(conversationId));
+        }
+        assertEquals(List.of(3, 0), counts("before-partitions"));
+        assertEquals(List.of(4, 0), counts("first-month"));
+        assertEquals(List.of(5, 0), counts("later-month"));
+    }
+
+    @Test
+    void ignoresACutoffBeforeTheFirstMonthlyPartition() {
+        List<String> partitions = archiveRepository.findArchivePartitions();
+
+        tiering.ensurePartition(YearMonth.of(2024, 6));
+
+        assertEquals(partitions, archiveRepository.findArchivePartitions());
+    }
+
+    private void seed(String conversationId, LocalDateTime start, int messages) {
+        for (int m = 0; m < messages; m++) {
+            jdbc.update("""
+                    INSERT INTO chatmemory (conversation_id, chat_id, username, title, text, type, timestamp)
+                    VALUES (?, ?, 'alice', 'title', 'text', 'USER', ?)
+                    """, conversationId, conversationId + "-" + m, Timestamp.valueOf(start.plusMinutes(m)));
+        }
+        jdbc.update("""
+                INSERT INTO conversation (id, username, title, created_at, last_activity_at, message_count)
+                VALUES (?, 'alice', 'title', ?, ?, ?)
+                """, conversationId, Timestamp.valueOf(start), Timestamp.valueOf(start.plusMinutes(messages - 1)), messages);
+    }
+
+    /**
+     * Rows of the conversation in the hot and in the archive table.
+     */
+    private List<Integer> counts(String conversationId) {
+        return List.of(
+                jdbc.queryForObject("SELECT COUNT(*) FROM chatmemory WHERE conversation_id = ?", Integer.class, conversationId),
+                jdbc.queryForObject("SELECT COUNT(*) FROM chatmemory_archive WHERE conversation_id = ?", Integer.class, conversationId));
+    }
+}
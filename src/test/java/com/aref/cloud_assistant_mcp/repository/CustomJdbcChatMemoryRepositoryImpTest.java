@@ -0,0 +1,65 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.repository.payload.ToolResponseOffloader;
+import com.aref.cloud_assistant_mcp.repository.search.ChatSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.aref.cloud_assistant_mcp.repository.ReplicaReadRouting.Target.PRIMARY;
+import static com.aref.cloud_assistant_mcp.repository.ReplicaReadRouting.Target.REPLICA;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CustomJdbcChatMemoryRepositoryImpTest {
+
+    private final CustomJdbcChatMemoryRepository repository = mock(CustomJdbcChatMemoryRepository.class);
+    private final ConversationTiering tiering = mock(ConversationTiering.class);
+    private final List<ReplicaReadRouting.Target> messageReads = new ArrayList<>();
+
+    private CustomJdbcChatMemoryRepositoryImp facade;
+
+    @BeforeEach
+    void setUp() {
+        facade = new CustomJdbcChatMemoryRepositoryImp(repository, mock(ConversationRepository.class),
+                mock(ChatHistoryCache.class), mock(ToolResponseOffloader.class), tiering, mock(ChatSearchIndex.class),
+                new ReplicaReadRouting(new SimpleMeterRegistry(), "jdbc:mysql://replica/db", 60));
+        when(repository.getMessagesByConversationId(eq("c1"), any())).thenAnswer(invocation -> {
+            messageReads.add(ReplicaReadRouting.current());
+            return new PageImpl<>(List.of());
+        });
+    }
+
+    @Test
+    void checksTheArchiveFlagOnTheReplica() {
+        List<ReplicaReadRouting.Target> flagReads = new ArrayList<>();
+        when(tiering.isArchived("c1")).thenAnswer(invocation -> {
+            flagReads.add(ReplicaReadRouting.current());
+            return false;
+        });
+
+        facade.getMessagesByConversationId("c1", PageRequest.of(0, 10));
+
+        assertEquals(List.of(REPLICA), flagReads);
+        assertEquals(List.of(REPLICA), messageReads);
+        verify(tiering, never()).rehydrate(any());
+    }
+
+    @Test
+    void readsARehydratedConversationFromThePrimary() {
+        when(tiering.isArchived("c1")).thenReturn(true);
+        when(tiering.rehydrate("c1")).thenReturn(true);
+
+        facade.getMessagesByConversationId("c1", PageRequest.of(0, 10));
+
+        verify(tiering).rehydrate("c1");
+        assertEquals(List.of(PRIMARY), messageReads);
+    }
+}
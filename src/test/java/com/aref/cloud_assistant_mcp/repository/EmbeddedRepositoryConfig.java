@@ -0,0 +1,25 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.repository.payload.FileSystemPayloadStore;
+import com.aref.cloud_assistant_mcp.repository.payload.ToolResponseOffloader;
+import com.aref.cloud_assistant_mcp.repository.search.ChatSearchIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The chat memory facade and its collaborators on top of a {@code @DataJpaTest} slice, for tests that run
+ * against the embedded profile.
+ */
+@TestConfiguration
+@Import({CustomJdbcChatMemoryRepositoryImp.class, ChatHistoryCache.class, ConversationTiering.class,
+        ReplicaReadRouting.class, ToolResponseOffloader.class, FileSystemPayloadStore.class, ChatSearchIndex.class})
+public class EmbeddedRepositoryConfig {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
@@ -0,0 +1,170 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.dto.ConversationDto;
+import com.aref.cloud_assistant_mcp.dto.MessageCursor;
+import com.aref.cloud_assistant_mcp.dto.MessageDto;
+import com.aref.cloud_assistant_mcp.model.ChatConversation;
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import dev.langchain4j.data.message.ChatMessageType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the chat memory facade against the embedded profile, so the persistence path is covered without a MySQL server.
+ */
+@DataJpaTest
+@ActiveProfiles("embedded")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(EmbeddedRepositoryConfig.class)
+class EmbeddedRepositoryTest {
+
+    @Autowired
+    CustomJdbcChatMemoryRepositoryImp repository;
+
+    @Autowired
+    ConversationRepository conversationRepository;
+
+    @Test
+    void writesAndReadsATurn() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        CustomChatMemory user = new CustomChatMemory("embedded-1", "title", "List my buckets", "alice",
+                ChatMessageType.USER, now);
+        user.setChatId("embedded-1-user");
+        CustomChatMemory ai = new CustomChatMemory("embedded-1", "title", "You have", "alice",
+                ChatMessageType.AI, now.plusSeconds(1));
+        ai.setChatId("embedded-1-ai");
+
+        repository.saveTurn(List.of(user, ai), List.of());
+        CustomChatMemory appended = new CustomChatMemory("embedded-1", "title", " two buckets.", "alice",
+                ChatMessageType.AI, now.plusSeconds(1));
+        appended.setChatId("embedded-1-ai");
+        repository.update(appended);
+
+        List<MessageDto> messages = repository.getMessagesByConversationId("embedded-1", PageRequest.of(0, 10)).getContent();
+        assertEquals(List.of("List my buckets", "You have two buckets."), messages.stream().map(MessageDto::getContent).toList());
+        assertTrue(repository.existByChatId("embedded-1-ai"));
+
+        List<ConversationDto> conversations = repository.getConversationsByUsername("alice", PageRequest.of(0, 10)).getContent();
+        assertEquals("embedded-1", conversations.getFirst().getConversationId());
+
+        CustomChatMemory missing = new CustomChatMemory("embedded-1", "title", " lost", "alice",
+                ChatMessageType.AI, now.plusSeconds(2));
+        missing.setChatId("embedded-1-never-written");
+        assertThrows(IllegalStateException.class, () -> repository.saveTurn(List.of(), List.of(missing)));
+
+        repository.deleteByConversationId("embedded-1");
+        assertFalse(repository.existByChatId("embedded-1-ai"));
+        assertTrue(repository.getConversationsByUsername("alice", PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void pagesMessagesWithEqualTimestampsByIdWithoutGapsOrRepeats() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        List<CustomChatMemory> rows = new ArrayList<>();
+        for (int m = 0; m < 7; m++) {
+            // Two timestamps only, so most page boundaries fall between rows with the same timestamp.
+            CustomChatMemory row = new CustomChatMemory("embedded-2", "title", "message " + m, "dave",
+                    m % 2 == 0 ? ChatMessageType.USER : ChatMessageType.AI, now.plusSeconds(m / 4));
+            row.setChatId("embedded-2-" + m);
+            rows.add(row);
+        }
+        repository.saveTurn(rows, List.of());
+        try {
+            List<String> expected = rows.stream()
+                    .sorted(Comparator.comparing(CustomChatMemory::getTimestamp).thenComparing(CustomChatMemory::getId))
+                    .map(CustomChatMemory::getText)
+                    .toList();
+
+            List<String> forward = new ArrayList<>();
+            MessageCursor after = null;
+            List<MessageDto> page;
+            do {
+                page = repository.getMessagesByConversationIdAfter("embedded-2", after, 3);
+                page.forEach(message -> forward.add(message.getContent()));
+                if (!page.isEmpty()) after = MessageCursor.of(page.getLast());
+            } while (page.size() == 3);
+
+            List<String> backward = new ArrayList<>();
+            MessageCursor before = null;
+            do {
+                page = repository.getMessagesByConversationIdBefore("embedded-2", before, 2);
+                page.forEach(message -> backward.addFirst(message.getContent()));
+                if (!page.isEmpty()) before = MessageCursor.of(page.getLast());
+            } while (page.size() == 2);
+
+            assertEquals(expected, forward);
+            assertEquals(expected, backward);
+        } finally {
+            repository.deleteByConversationId("embedded-2");
+        }
+    }
+
+    @Test
+    void upsertsTheConversationActivityOncePerTurn() {
+        LocalDateTime start = LocalDateTime.now().withNano(0);
+        try {
+            repository.saveTurn(List.of(
+                    message("embedded-4", ChatMessageType.USER, start, "embedded-4-user-1"),
+                    message("embedded-4", ChatMessageType.AI, start.plusSeconds(1), "embedded-4-ai-1")), List.of());
+
+            ChatConversation first = conversationRepository.findById("embedded-4").orElseThrow();
+            assertEquals(2, first.getMessageCount());
+            assertEquals(start.plusSeconds(1), first.getLastActivityAt());
+            assertEquals("frank", first.getUsername());
+
+            repository.saveTurn(List.of(
+                    message("embedded-4", ChatMessageType.USER, start.plusMinutes(1), "embedded-4-user-2"),
+                    message("embedded-4", ChatMessageType.AI, start.plusMinutes(1).plusSeconds(1), "embedded-4-ai-2")), List.of());
+
+            ChatConversation second = conversationRepository.findById("embedded-4").orElseThrow();
+            assertEquals(4, second.getMessageCount());
+            assertEquals(start.plusMinutes(1).plusSeconds(1), second.getLastActivityAt());
+            assertEquals(first.getCreatedAt(), second.getCreatedAt());
+
+            // A late flush of an older row counts, but does not move the activity back.
+            repository.saveTurn(List.of(message("embedded-4", ChatMessageType.AI, start.plusSeconds(2), "embedded-4-ai-late")), List.of());
+
+            ChatConversation late = conversationRepository.findById("embedded-4").orElseThrow();
+            assertEquals(5, late.getMessageCount());
+            assertEquals(start.plusMinutes(1).plusSeconds(1), late.getLastActivityAt());
+        } finally {
+            repository.deleteByConversationId("embedded-4");
+        }
+    }
+
+    @Test
+    void knowsWhoOwnsAConversation() {
+        CustomChatMemory row = new CustomChatMemory("embedded-3", "title", "Mine", "erin",
+                ChatMessageType.USER, LocalDateTime.now().withNano(0));
+        row.setChatId("embedded-3-user");
+        repository.saveTurn(List.of(row), List.of());
+        try {
+            assertTrue(repository.isOwnedBy("embedded-3", "erin"));
+            assertFalse(repository.isOwnedBy("embedded-3", "mallory"));
+            assertFalse(repository.isOwnedBy("embedded-missing", "erin"));
+        } finally {
+            repository.deleteByConversationId("embedded-3");
+        }
+    }
+
+    private static CustomChatMemory message(String conversationId, ChatMessageType type, LocalDateTime timestamp, String chatId) {
+        CustomChatMemory row = new CustomChatMemory(conversationId, "title", "text of " + chatId, "frank", type, timestamp);
+        row.setChatId(chatId);
+        return row;
+    }
+}
@@ -0,0 +1,113 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies the migrations to a real MySQL and checks that the hot queries are served by an index.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class HotQueryPlanTest {
+
+    private static final int CONVERSATIONS = 200;
+    private static final int MESSAGES_PER_CONVERSATION = 20;
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.4");
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        Flyway.configure().dataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword()).load().migrate();
+
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+            try (PreparedStatement message = connection.prepareStatement("""
+                    INSERT INTO chatmemory (conversation_id, chat_id, username, title, text, type, timestamp)
+                    VALUES (?, ?, ?, 'title', 'text', 'USER', ?)
+                    """);
+                 PreparedStatement conversation = connection.prepareStatement("""
+                    INSERT INTO conversation (id, username, title, created_at, last_activity_at, message_count)
+                    VALUES (?, ?, 'title', ?, ?, ?)
+                    """)) {
+                for (int c = 0; c < CONVERSATIONS; c++) {
+                    String conversationId = "conversation-" + c;
+                    String username = "user-" + (c % 20);
+                    for (int m = 0; m < MESSAGES_PER_CONVERSATION; m++) {
+                        message.setString(1, conversationId);
+                        message.setString(2, conversationId + "-" + m);
+                        message.setString(3, username);
+                        message.setTimestamp(4, Timestamp.valueOf(start.plusMinutes(c * 100L + m)));
+                        message.addBatch();
+                    }
+                    conversation.setString(1, conversationId);
+                    conversation.setString(2, username);
+                    conversation.setTimestamp(3, Timestamp.valueOf(start.plusMinutes(c * 100L)));
+                    conversation.setTimestamp(4, Timestamp.valueOf(start.plusMinutes(c * 100L + MESSAGES_PER_CONVERSATION)));
+                    conversation.setInt(5, MESSAGES_PER_CONVERSATION);
+                    conversation.addBatch();
+                }
+                message.executeBatch();
+                conversation.executeBatch();
+            }
+            connection.commit();
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE TABLE chatmemory, conversation");
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // history window
+            "SELECT * FROM chatmemory WHERE conversation_id = 'conversation-7' ORDER BY timestamp DESC, id DESC LIMIT 200",
+            // keyset page of messages
+            """
+            SELECT * FROM chatmemory WHERE conversation_id = 'conversation-7'
+                AND (timestamp > '2025-01-01 11:45:00' OR (timestamp = '2025-01-01 11:45:00' AND id > 10))
+            ORDER BY timestamp, id LIMIT 51
+            """,
+            // existByChatId
+            "SELECT id FROM chatmemory WHERE chat_id = 'conversation-7-3' LIMIT 1",
+            // write-behind append
+            "UPDATE chatmemory SET text = CONCAT(text, 'x') WHERE chat_id = 'conversation-7-3'",
+            // conversation listing
+            "SELECT id, title, last_activity_at FROM conversation WHERE username = 'user-7' ORDER BY last_activity_at DESC, id DESC LIMIT 21",
+            // keyset page of conversations
+            """
+            SELECT id, title, last_activity_at FROM conversation WHERE username = 'user-7'
+                AND (last_activity_at < '2025-01-05 00:00:00' OR (last_activity_at = '2025-01-05 00:00:00' AND id < 'conversation-9'))
+            ORDER BY last_activity_at DESC, id DESC LIMIT 21
+            """
+    })
+    void hotQueryUsesAnIndex(String sql) throws SQLException {
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN " + sql)) {
+            assertTrue(plan.next());
+            assertNotEquals("ALL", plan.getString("type"), () -> "Full scan for: " + sql);
+            assertNotNull(plan.getString("key"), () -> "No index used for: " + sql);
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+    }
+}
@@ -0,0 +1,32 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JpaChatMemoryStoreTest {
+
+    @Test
+    void runsBlockingWritesOffTheCallingThread() {
+        CustomJdbcChatMemoryRepositoryImp repository = mock(CustomJdbcChatMemoryRepositoryImp.class);
+        AtomicReference<String> writerThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            writerThread.set(Thread.currentThread().getName());
+            return null;
+        }).when(repository).saveTurn(any(), any());
+
+        JpaChatMemoryStore store = new JpaChatMemoryStore(repository, 2, 100);
+        try {
+            store.saveTurn(List.of(), List.of()).block();
+        } finally {
+            store.shutdown();
+        }
+
+        assertTrue(writerThread.get().startsWith("chat-memory-io"), writerThread.get());
+    }
+}
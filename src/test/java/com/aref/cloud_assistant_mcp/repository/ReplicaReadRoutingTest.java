@@ -0,0 +1,43 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static com.aref.cloud_assistant_mcp.repository.ReplicaReadRouting.Target.PRIMARY;
+import static com.aref.cloud_assistant_mcp.repository.ReplicaReadRouting.Target.REPLICA;
+import static com.aref.cloud_assistant_mcp.repository.ReplicaReadRouting.conversation;
+import static com.aref.cloud_assistant_mcp.repository.ReplicaReadRouting.user;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaReadRoutingTest {
+
+    @Test
+    void readsGoToTheReplicaUnlessRecentlyWritten() {
+        ReplicaReadRouting routing = new ReplicaReadRouting(new SimpleMeterRegistry(), "jdbc:mysql://replica/db", 60);
+
+        assertEquals(REPLICA, routing.read(ReplicaReadRouting::current, conversation("c1")));
+
+        routing.recordWrite(conversation("c1"), user("alice"));
+
+        assertEquals(PRIMARY, routing.read(ReplicaReadRouting::current, conversation("c1")));
+        assertEquals(PRIMARY, routing.read(ReplicaReadRouting::current, user("alice")));
+        assertEquals(REPLICA, routing.read(ReplicaReadRouting::current, conversation("c2")));
+        assertEquals(PRIMARY, ReplicaReadRouting.current());
+    }
+
+    @Test
+    void stickinessExpires() {
+        ReplicaReadRouting routing = new ReplicaReadRouting(new SimpleMeterRegistry(), "jdbc:mysql://replica/db", 0);
+
+        routing.recordWrite(conversation("c1"));
+
+        assertEquals(REPLICA, routing.read(ReplicaReadRouting::current, conversation("c1")));
+    }
+
+    @Test
+    void staysOnThePrimaryWithoutAReplica() {
+        ReplicaReadRouting routing = new ReplicaReadRouting(new SimpleMeterRegistry(), "", 10);
+
+        assertEquals(PRIMARY, routing.read(ReplicaReadRouting::current, conversation("c1")));
+    }
+}
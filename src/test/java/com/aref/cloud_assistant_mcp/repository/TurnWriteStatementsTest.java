@@ -0,0 +1,102 @@
+package com.aref.cloud_assistant_mcp.repository;
+
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import dev.langchain4j.data.message.ChatMessageType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the JDBC statements Hibernate prepares for a turn on the embedded profile: one save per row
+ * (the old write path) against the batched saveTurn.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("embedded")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(EmbeddedRepositoryConfig.class)
+class TurnWriteStatementsTest {
+
+    private static final String CONVERSATION = "statements-1";
+
+    @Autowired
+    CustomJdbcChatMemoryRepositoryImp repository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void warmUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Fetches a block of ids, so the measured writes below do not touch id_sequence (both tests fit in one block).
+        repository.saveTurn(turn(1), List.of());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteByConversationId(CONVERSATION);
+    }
+
+    @Test
+    void rowByRowSavesPrepareStatementsPerRow() {
+        long three = statements(() -> turn(3).forEach(repository::save));
+        long six = statements(() -> turn(6).forEach(repository::save));
+
+        assertTrue(three >= 3, () -> "Prepared " + three);
+        assertTrue(six >= three + 3, () -> "Prepared " + three + " then " + six);
+    }
+
+    @Test
+    void aTurnIsOneBatchedInsertWhateverItsSize() {
+        long rowByRow = statements(() -> turn(3).forEach(repository::save));
+        long three = statements(() -> repository.saveTurn(turn(3), List.of()));
+        long six = statements(() -> repository.saveTurn(turn(6), List.of()));
+
+        assertEquals(three, six);
+        assertTrue(three < rowByRow, () -> "Batched " + three + ", row by row " + rowByRow);
+        assertEquals(6, insertsOf(() -> repository.saveTurn(turn(6), List.of())));
+    }
+
+    private long statements(Runnable write) {
+        statistics.clear();
+        write.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long insertsOf(Runnable write) {
+        statistics.clear();
+        write.run();
+        return statistics.getEntityInsertCount();
+    }
+
+    private static List<CustomChatMemory> turn(int rows) {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        return IntStream.range(0, rows)
+                .mapToObj(i -> {
+                    CustomChatMemory row = new CustomChatMemory(CONVERSATION, "title", "message " + i, "alice",
+                            i % 2 == 0 ? ChatMessageType.USER : ChatMessageType.AI, now);
+                    row.setChatId(UUID.randomUUID().toString());
+                    return row;
+                })
+                .toList();
+    }
+}
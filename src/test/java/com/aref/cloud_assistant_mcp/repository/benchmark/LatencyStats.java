@@ -0,0 +1,39 @@
+package com.aref.cloud_assistant_mcp.repository.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Latency samples of one benchmarked operation, in nanoseconds.
+ */
+final class LatencyStats {
+
+    private final String name;
+    private final long[] samples;
+    private int count;
+
+    LatencyStats(String name, int capacity) {
+        this.name = name;
+        this.samples = new long[capacity];
+    }
+
+    void record(long nanos) {
+        samples[count++] = nanos;
+    }
+
+    double percentileMs(double percentile) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    String name() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-32s n=%-6d p50=%8.3f ms  p90=%8.3f ms  p99=%8.3f ms  max=%8.3f ms",
+                name, count, percentileMs(50), percentileMs(90), percentileMs(99), percentileMs(100));
+    }
+}
@@ -0,0 +1,182 @@
+package com.aref.cloud_assistant_mcp.repository.benchmark;
+
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import com.aref.cloud_assistant_mcp.repository.CustomJdbcChatMemoryRepositoryImp;
+import com.aref.cloud_assistant_mcp.repository.EmbeddedRepositoryConfig;
+import dev.langchain4j.data.message.ChatMessageType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds the embedded database with millions of chatmemory rows and reports latency percentiles of the hot
+ * repository operations. Run with {@code mvn test -Pbenchmark}; sizes are tuned with system properties:
+ * benchmark.messages, benchmark.messages-per-conversation, benchmark.users and benchmark.iterations.
+ * Setting benchmark.max-p99-ms turns the report into a regression gate.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@ActiveProfiles("embedded")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Import(EmbeddedRepositoryConfig.class)
+class RepositoryBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RepositoryBenchmarkTest.class);
+
+    private static final int MESSAGES = Integer.getInteger("benchmark.messages", 2_000_000);
+    private static final int MESSAGES_PER_CONVERSATION = Integer.getInteger("benchmark.messages-per-conversation", 50);
+    private static final int USERS = Integer.getInteger("benchmark.users", 1_000);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 2_000);
+    private static final int INSERT_BATCH = 10_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Autowired
+    CustomJdbcChatMemoryRepositoryImp repository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final int conversations = MESSAGES / MESSAGES_PER_CONVERSATION;
+    private int nextDeleted;
+
+    @BeforeAll
+    void seed() {
+        long started = System.nanoTime();
+        List<Object[]> messages = new ArrayList<>(INSERT_BATCH);
+        List<Object[]> conversationRows = new ArrayList<>(INSERT_BATCH);
+        long id = 0;
+        for (int c = 0; c < conversations; c++) {
+            String conversationId = conversationId(c);
+            String username = username(c % USERS);
+            for (int m = 0; m < MESSAGES_PER_CONVERSATION; m++) {
+                messages.add(new Object[]{++id, conversationId, chatId(c, m), username,
+                        "message " + m + " of conversation " + c, m % 2 == 0 ? "USER" : "AI",
+                        Timestamp.valueOf(START.plusMinutes(c).plusSeconds(m))});
+                if (messages.size() == INSERT_BATCH) insertMessages(messages);
+            }
+            conversationRows.add(new Object[]{conversationId, username, Timestamp.valueOf(START.plusMinutes(c)),
+                    Timestamp.valueOf(START.plusMinutes(c).plusSeconds(MESSAGES_PER_CONVERSATION)), MESSAGES_PER_CONVERSATION});
+            if (conversationRows.size() == INSERT_BATCH) insertConversations(conversationRows);
+        }
+        insertMessages(messages);
+        insertConversations(conversationRows);
+        jdbcTemplate.update("UPDATE id_sequence SET next_val = ? WHERE sequence_name = 'chatmemory'", id + 50);
+        jdbcTemplate.execute("ANALYZE");
+
+        log.info("Seeded {} messages in {} conversations for {} users in {} ms", id, conversations, USERS,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Test
+    void getMessagesByConversationId() {
+        run("getMessagesByConversationId", ITERATIONS, i ->
+                assertFalse(repository.getMessagesByConversationId(conversationId(randomConversation()),
+                        PageRequest.of(0, MESSAGES_PER_CONVERSATION)).isEmpty()));
+    }
+
+    @Test
+    void getConversationsByUsername() {
+        run("getConversationsByUsername", ITERATIONS, i ->
+                assertFalse(repository.getConversationsByUsername(username(random.nextInt(USERS)),
+                        PageRequest.of(0, 20)).isEmpty()));
+    }
+
+    @Test
+    void existByChatId() {
+        run("existByChatId", ITERATIONS, i ->
+                assertTrue(repository.existByChatId(chatId(randomConversation(), random.nextInt(MESSAGES_PER_CONVERSATION)))));
+    }
+
+    @Test
+    void update() {
+        run("update", ITERATIONS, i -> {
+            int c = randomConversation();
+            CustomChatMemory appended = new CustomChatMemory(conversationId(c), "title", " more", username(c % USERS),
+                    ChatMessageType.AI, LocalDateTime.now());
+            appended.setChatId(chatId(c, 1));
+            repository.update(appended);
+        });
+    }
+
+    @Test
+    void deleteByConversationId() {
+        // Each iteration (warm-up included) removes a conversation from the tail that the other benchmarks skip.
+        run("deleteByConversationId", Math.min(ITERATIONS, conversations / 20), i ->
+                repository.deleteByConversationId(conversationId(conversations - 1 - nextDeleted++)));
+    }
+
+    private void run(String name, int iterations, IntConsumer operation) {
+        for (int i = 0; i < iterations / 10; i++) operation.accept(i);
+
+        LatencyStats stats = new LatencyStats(name, iterations);
+        for (int i = 0; i < iterations; i++) {
+            long started = System.nanoTime();
+            operation.accept(i);
+            stats.record(System.nanoTime() - started);
+        }
+        log.info("{}", stats);
+
+        String budget = System.getProperty("benchmark.max-p99-ms");
+        if (budget != null) {
+            assertTrue(stats.percentileMs(99) <= Double.parseDouble(budget),
+                    () -> name + " p99 over budget of " + budget + " ms: " + stats);
+        }
+    }
+
+    private int randomConversation() {
+        // Skip the tail consumed by the delete benchmark.
+        return random.nextInt(conversations - conversations / 10);
+    }
+
+    private void insertMessages(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO chatmemory (id, conversation_id, chat_id, username, title, text, type, timestamp)
+                VALUES (?, ?, ?, ?, 'title', ?, ?, ?)
+                """, rows);
+        rows.clear();
+    }
+
+    private void insertConversations(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO conversation (id, username, title, created_at, last_activity_at, message_count)
+                VALUES (?, ?, 'title', ?, ?, ?)
+                """, rows);
+        rows.clear();
+    }
+
+    private static String conversationId(int c) {
+        return "conversation-" + c;
+    }
+
+    private static String chatId(int c, int m) {
+        return "chat-" + c + "-" + m;
+    }
+
+    private static String username(int u) {
+        return "user-" + u;
+    }
+}
@@ -0,0 +1,54 @@
+package com.aref.cloud_assistant_mcp.repository.payload;
+
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import dev.langchain4j.data.message.ChatMessageType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolResponseOffloaderTest {
+
+    @TempDir
+    Path payloadDir;
+
+    @Test
+    void offloadsLargeResponsesAndResolvesThemBack() throws Exception {
+        ToolResponseOffloader offloader = new ToolResponseOffloader(new FileSystemPayloadStore(payloadDir.toString()), 100, 20);
+        String large = "{\"ok\":true,\"items\":\"" + "i-0123456789abcdef ".repeat(50) + "\"}";
+
+        CustomChatMemory first = toolRow(large);
+        CustomChatMemory second = toolRow(large);
+        offloader.offload(first);
+        offloader.offload(second);
+
+        assertTrue(first.getToolResponse().length() < 200);
+        assertEquals(first.getToolResponse(), second.getToolResponse());
+        assertEquals(large, offloader.resolve(first.getToolResponse()));
+        assertTrue(ToolResponseOffloader.summaryOf(first.getToolResponse()).startsWith(large.substring(0, 20)));
+        try (var files = Files.walk(payloadDir)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void keepsSmallResponsesInline() {
+        ToolResponseOffloader offloader = new ToolResponseOffloader(new FileSystemPayloadStore(payloadDir.toString()), 100, 20);
+        CustomChatMemory row = toolRow("{\"ok\":true}");
+
+        offloader.offload(row);
+
+        assertEquals("{\"ok\":true}", row.getToolResponse());
+        assertEquals("{\"ok\":true}", offloader.resolve(row.getToolResponse()));
+        assertEquals("{\"ok\":true}", ToolResponseOffloader.summaryOf(row.getToolResponse()));
+    }
+
+    private static CustomChatMemory toolRow(String response) {
+        return new CustomChatMemory("c1", "alice", "title", "call-1", "aws_ec2_list", response,
+                ChatMessageType.TOOL_EXECUTION_RESULT, LocalDateTime.now(), "row");
+    }
+}
@@ -0,0 +1,101 @@
+package com.aref.cloud_assistant_mcp.repository.search;
+
+import com.aref.cloud_assistant_mcp.dto.SearchHitDto;
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import com.aref.cloud_assistant_mcp.repository.CustomJdbcChatMemoryRepository;
+import com.aref.cloud_assistant_mcp.repository.CustomJdbcChatMemoryRepositoryImp;
+import com.aref.cloud_assistant_mcp.repository.EmbeddedRepositoryConfig;
+import dev.langchain4j.data.message.ChatMessageType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Feeds the search index through the chat memory facade on the embedded profile: only committed rows are
+ * indexed, and an index without a version stamp is rebuilt from the hot and the archive table.
+ */
+@DataJpaTest
+@ActiveProfiles("embedded")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(EmbeddedRepositoryConfig.class)
+class ChatSearchIndexBootstrapTest {
+
+    @Autowired
+    CustomJdbcChatMemoryRepositoryImp facade;
+
+    @Autowired
+    CustomJdbcChatMemoryRepository repository;
+
+    @Autowired
+    ChatSearchIndex searchIndex;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @TempDir
+    Path indexDir;
+
+    @AfterEach
+    void cleanUp() {
+        facade.deleteByConversationId("search-1");
+        facade.deleteByConversationId("search-2");
+        jdbc.update("DELETE FROM chatmemory_archive WHERE conversation_id = 'search-3'");
+    }
+
+    @Test
+    void doesNotIndexARolledBackTurn() {
+        CustomChatMemory missing = row("search-1", ChatMessageType.AI, " appended", "search-1-never-written");
+
+        assertThrows(IllegalStateException.class, () -> facade.saveTurn(
+                List.of(row("search-1", ChatMessageType.USER, "Rotate the phantom access keys", "search-1-user")),
+                List.of(missing)));
+        searchIndex.refresh();
+
+        assertTrue(searchIndex.search("carol", "phantom", 10).isEmpty());
+    }
+
+    @Test
+    void rebuildsAnUnstampedIndexFromBothTables() {
+        facade.saveTurn(List.of(
+                row("search-2", ChatMessageType.USER, "Which volumes are unencrypted?", "search-2-user"),
+                row("search-2", ChatMessageType.AI, "Two volumes are unencrypted.", "search-2-ai"),
+                row("search-2", ChatMessageType.TOOL_EXECUTION_RESULT, "unencrypted", "search-2-tool")), List.of());
+        jdbc.update("""
+                INSERT INTO chatmemory_archive (id, conversation_id, chat_id, username, title, text, type, timestamp)
+                VALUES (9000000, 'search-3', 'search-3-user', 'carol', 'title', 'Were the unencrypted volumes replaced?', 'USER', ?)
+                """, Timestamp.valueOf(LocalDateTime.now().minusDays(200).withNano(0)));
+        ChatSearchIndex fresh = new ChatSearchIndex(indexDir.toString(), 60_000, 60, 30);
+        try {
+            new ChatSearchIndexBootstrap(repository, fresh, 1).rebuildIfNeeded();
+
+            assertFalse(fresh.needsRebuild());
+            assertEquals(List.of("search-2", "search-3"), fresh.search("carol", "unencrypted", 10).stream()
+                    .map(SearchHitDto::getConversationId).toList());
+        } finally {
+            fresh.shutdown();
+        }
+    }
+
+    private static CustomChatMemory row(String conversationId, ChatMessageType type, String text, String chatId) {
+        CustomChatMemory row = new CustomChatMemory(conversationId, "title", text, "carol", type,
+                LocalDateTime.now().withNano(0));
+        row.setChatId(chatId);
+        return row;
+    }
+}
@@ -0,0 +1,116 @@
+package com.aref.cloud_assistant_mcp.repository.search;
+
+import com.aref.cloud_assistant_mcp.dto.SearchHitDto;
+import com.aref.cloud_assistant_mcp.model.CustomChatMemory;
+import dev.langchain4j.data.message.ChatMessageType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatSearchIndexTest {
+
+    @TempDir
+    Path indexDir;
+
+    private ChatSearchIndex index;
+
+    @BeforeEach
+    void open() {
+        index = new ChatSearchIndex(indexDir.toString(), 60_000, 60, 30);
+    }
+
+    @AfterEach
+    void close() {
+        index.shutdown();
+    }
+
+    @Test
+    void onlyReturnsTheCallersConversations() {
+        index.onSaved(row("c1", "alice", "How do I resize an EBS volume?", LocalDateTime.now()));
+        index.onSaved(row("c2", "bob", "Resize the EBS volume of my instance", LocalDateTime.now()));
+        index.refresh();
+
+        List<SearchHitDto> hits = index.search("alice", "ebs volume", 10);
+
+        assertEquals(1, hits.size());
+        assertEquals("c1", hits.getFirst().getConversationId());
+        assertTrue(hits.getFirst().getSnippet().contains("EBS"));
+    }
+
+    @Test
+    void ranksRecentConversationsFirstAndGroupsMessages() {
+        index.onSaved(row("old", "alice", "List my S3 buckets", LocalDateTime.now().minusDays(300)));
+        index.onSaved(row("new", "alice", "List my S3 buckets", LocalDateTime.now()));
+        index.onSaved(row("new", "alice", "Which S3 buckets are public?", LocalDateTime.now()));
+        index.refresh();
+
+        List<SearchHitDto> hits = index.search("alice", "s3 buckets", 10);
+
+        assertEquals(List.of("new", "old"), hits.stream().map(SearchHitDto::getConversationId).toList());
+    }
+
+    @Test
+    void forgetsDeletedConversations() {
+        index.onSaved(row("c1", "alice", "Stop instance i-123", LocalDateTime.now()));
+        index.deleteConversation("c1");
+        index.refresh();
+
+        assertTrue(index.search("alice", "instance", 10).isEmpty());
+    }
+
+    @Test
+    void matchesMessageTextButNotTheTitleItWasWrittenWith() {
+        index.onSaved(new CustomChatMemory("c1", "Billing question", "Resize the EBS volume", "alice",
+                ChatMessageType.USER, LocalDateTime.now()));
+        index.refresh();
+
+        assertTrue(index.search("alice", "billing", 10).isEmpty());
+        assertEquals(1, index.search("alice", "resize", 10).size());
+    }
+
+    @Test
+    void keepsItsVersionStampOnceRebuilt() {
+        assertTrue(index.needsRebuild());
+
+        index.startRebuild();
+        index.index(row("c1", "alice", "Tag the staging instances", LocalDateTime.now()));
+        assertTrue(index.takeTouchedDuringRebuild().isEmpty());
+        index.finishRebuild();
+        index.shutdown();
+        index = new ChatSearchIndex(indexDir.toString(), 60_000, 60, 30);
+
+        assertFalse(index.needsRebuild());
+        assertEquals(1, index.search("alice", "staging", 10).size());
+    }
+
+    @Test
+    void leavesConversationsWrittenDuringARebuildToTheRebuild() {
+        CustomChatMemory row = row("c1", "alice", "Snapshot the staging volumes", LocalDateTime.now());
+        index.startRebuild();
+        index.index(row);
+        index.onSaved(row);
+        index.deleteConversation("c2");
+
+        assertEquals(Set.of("c1", "c2"), index.takeTouchedDuringRebuild());
+        index.reindexConversation("c1", List.of(row));
+        assertTrue(index.takeTouchedDuringRebuild().isEmpty());
+        index.finishRebuild();
+
+        assertEquals(1, index.documents());
+        index.onSaved(row("c2", "alice", "Snapshot the production volumes", LocalDateTime.now()));
+        index.refresh();
+        assertEquals(2, index.search("alice", "snapshot", 10).size());
+    }
+
+    private static CustomChatMemory row(String conversationId, String username, String text, LocalDateTime timestamp) {
+        return new CustomChatMemory(conversationId, "title", text, username, ChatMessageType.USER, timestamp);
+    }
+}
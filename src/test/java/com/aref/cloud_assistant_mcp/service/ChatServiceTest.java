@@ -1,8 +1,135 @@
 package com.aref.cloud_assistant_mcp.service;
 
+import com.aref.cloud_assistant_mcp.dto.PromptDto;
+import com.aref.cloud_assistant_mcp.repository.ChatHistoryCache;
+import com.aref.cloud_assistant_mcp.repository.ChatMemoryWriteBuffer;
+import com.aref.cloud_assistant_mcp.repository.CustomJdbcChatMemoryRepositoryImp;
+import com.aref.cloud_assistant_mcp.repository.EmbeddedRepositoryConfig;
+import com.aref.cloud_assistant_mcp.repository.JpaChatMemoryStore;
+import com.aref.cloud_assistant_mcp.service.agent.AgentLoopScheduler;
+import com.aref.cloud_assistant_mcp.service.history.ConversationContextBuilder;
+import com.aref.cloud_assistant_mcp.service.tools.AWSEc2Tools;
+import com.aref.cloud_assistant_mcp.service.tools.AWSS3Tools;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 
+/**
+ * Runs a multi-step tool turn through ChatService, the write-behind buffer and the embedded repository, then
+ * rebuilds the next prompt from what was stored: every tool result must follow the AI message that requested it.
+ */
+@DataJpaTest
+@ActiveProfiles("embedded")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(EmbeddedRepositoryConfig.class)
 class ChatServiceTest {
 
+    private static final String CONVERSATION = "chat-service-1";
+
+    @Autowired
+    CustomJdbcChatMemoryRepositoryImp repository;
+
+    @Autowired
+    ChatHistoryCache historyCache;
+
+    @TempDir
+    Path journalDir;
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteByConversationId(CONVERSATION);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void storesEachStepWithTheToolCallsItRequested() {
+        JpaChatMemoryStore store = new JpaChatMemoryStore(repository, 2, 100);
+        ConversationContextBuilder contextBuilder = new ConversationContextBuilder(store, null, 6000, 200, 8000, false);
+        OpenAiStreamingChatModel model = scriptedModel(
+                AiMessage.from(List.of(request("call-1", "aws_ec2_list"), request("call-2", "aws_s3_list_buckets"))),
+                AiMessage.from("Let me check one more thing.", List.of(request("call-3", "aws_ec2_list"))),
+                AiMessage.from("You have one instance and no buckets."));
+        ChatService chatService = new ChatService(model, mock(OpenAiChatModel.class), mock(AWSEc2Tools.class),
+                mock(AWSS3Tools.class), new ChatMemoryWriteBuffer(store, 16384, 60_000, journalDir.toString()),
+                new AgentLoopScheduler(4), contextBuilder, 8, 60);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new User("alice", "secret", List.of()), null, List.of()));
+
+        chatService.prompt(new PromptDto("What do I have?", CONVERSATION, "title")).blockLast(Duration.ofSeconds(30));
+
+        LinkedList<ChatMessage> cached = contextBuilder.build(CONVERSATION, "system", "next").block();
+        historyCache.invalidate(CONVERSATION);
+        LinkedList<ChatMessage> stored = contextBuilder.build(CONVERSATION, "system", "next").block();
+
+        for (LinkedList<ChatMessage> history : List.of(cached, stored)) {
+            assertToolResultsFollowTheirRequest(history);
+            List<String> resultIds = history.stream()
+                    .filter(ToolExecutionResultMessage.class::isInstance)
+                    .map(message -> ((ToolExecutionResultMessage) message).id())
+                    .toList();
+            assertEquals(List.of("call-1", "call-2", "call-3"), resultIds);
+            assertEquals("You have one instance and no buckets.", ((AiMessage) history.get(history.size() - 2)).text());
+        }
+        assertEquals(cached.size(), stored.size());
+    }
+
+    private static void assertToolResultsFollowTheirRequest(List<ChatMessage> history) {
+        Set<String> open = new HashSet<>();
+        for (ChatMessage message : history) {
+            if (message instanceof ToolExecutionResultMessage result) {
+                assertTrue(open.remove(result.id()), "Tool result " + result.id() + " without its request");
+            } else {
+                assertTrue(open.isEmpty(), "Tool calls without results: " + open);
+                if (message instanceof AiMessage ai && ai.hasToolExecutionRequests())
+                    ai.toolExecutionRequests().forEach(request -> open.add(request.id()));
+            }
+        }
+        assertTrue(open.isEmpty(), "Tool calls without results: " + open);
+    }
+
+    private static OpenAiStreamingChatModel scriptedModel(AiMessage... steps) {
+        OpenAiStreamingChatModel model = mock(OpenAiStreamingChatModel.class);
+        Deque<AiMessage> script = new ArrayDeque<>(List.of(steps));
+        doAnswer(invocation -> {
+            StreamingChatResponseHandler handler = invocation.getArgument(1);
+            AiMessage next = script.poll();
+            if (next.text() != null) handler.onPartialResponse(next.text());
+            handler.onCompleteResponse(ChatResponse.builder().aiMessage(next).build());
+            return null;
+        }).when(model).chat(any(ChatRequest.class), any(StreamingChatResponseHandler.class));
+        return model;
+    }
 
-}
\ No newline at end of file
+    private static ToolExecutionRequest request(String id, String name) {
+        return ToolExecutionRequest.builder().id(id).name(name).arguments("{}").build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.aref.cloud_assistant_mcp.service;
+
+import com.aref.cloud_assistant_mcp.dto.ChatEvent;
+import com.aref.cloud_assistant_mcp.dto.ConversationCreateDto;
+import com.aref.cloud_assistant_mcp.repository.ChatMemoryStore;
+import com.aref.cloud_assistant_mcp.repository.CustomJdbcChatMemoryRepositoryImp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ConversationServiceTest {
+
+    private final ChatMemoryStore store = mock(ChatMemoryStore.class);
+    private final ChatService chatService = mock(ChatService.class);
+    private final ConversationService service =
+            new ConversationService(mock(CustomJdbcChatMemoryRepositoryImp.class), store, chatService);
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new User("alice", "secret", List.of()), null, List.of()));
+        when(chatService.generateTitle(any())).thenReturn("EC2 costs");
+        when(store.updateTitle(any(), any(), any())).thenReturn(Mono.empty());
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void storesTheGeneratedTitleWhenTheModelFails() {
+        when(chatService.prompt(any())).thenReturn(Flux.error(new IllegalStateException("model unavailable")));
+
+        StepVerifier.create(service.create(new ConversationCreateDto("c1", "What do my EC2 instances cost?", null)))
+                .expectNextMatches(event -> event instanceof ChatEvent.ConversationMetadataEvent metadata && !metadata.titleUpdate())
+                .thenConsumeWhile(event -> true)
+                .verifyError(IllegalStateException.class);
+
+        verify(store, timeout(5_000)).updateTitle("c1", "alice", "EC2 costs");
+    }
+
+    @Test
+    void storesTheGeneratedTitleWhenTheClientGoesAway() {
+        when(chatService.prompt(any())).thenReturn(Flux.never());
+
+        StepVerifier.create(service.create(new ConversationCreateDto("c1", "What do my EC2 instances cost?", null)))
+                .expectNextCount(1)
+                .thenCancel()
+                .verify();
+
+        verify(store, timeout(5_000)).updateTitle("c1", "alice", "EC2 costs");
+    }
+
+    @Test
+    void sendsTheTitleUpdateOnceItIsStored() {
+        when(chatService.prompt(any())).thenReturn(Flux.never());
+
+        StepVerifier.create(service.create(new ConversationCreateDto("c1", "What do my EC2 instances cost?", null)))
+                .expectNextCount(1)
+                .expectNextMatches(event -> event instanceof ChatEvent.ConversationMetadataEvent metadata
+                        && metadata.titleUpdate() && metadata.title().equals("EC2 costs"))
+                .thenCancel()
+                .verify();
+
+        verify(store).updateTitle("c1", "alice", "EC2 costs");
+    }
+
+    @Test
+    void keepsTheQuickTitleWhenOneIsGiven() {
+        when(chatService.prompt(any())).thenReturn(Flux.empty());
+
+        StepVerifier.create(service.create(new ConversationCreateDto("c1", "Hi", "Existing")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(store, never()).updateTitle(any(), any(), any());
+    }
+}
@@ -0,0 +1,108 @@
+package com.aref.cloud_assistant_mcp.service.agent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgentLoopSchedulerTest {
+
+    private final AgentLoopScheduler scheduler = new AgentLoopScheduler(1);
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void runsFreshTurnsBeforeLongToolLoops() throws InterruptedException {
+        AtomicReference<Runnable> blocker = new AtomicReference<>();
+        CountDownLatch blocking = new CountDownLatch(1);
+        scheduler.submit(turn(0, Duration.ofMinutes(1)), release -> {
+            blocker.set(release);
+            blocking.countDown();
+        }, () -> {});
+        assertTrue(blocking.await(5, TimeUnit.SECONDS));
+
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        for (int steps : List.of(3, 0, 1)) {
+            scheduler.submit(turn(steps, Duration.ofMinutes(1)), release -> {
+                order.add(steps);
+                release.run();
+                done.countDown();
+            }, () -> {});
+        }
+        assertEquals(3, scheduler.queuedSteps());
+
+        blocker.get().run();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 3), order);
+    }
+
+    @Test
+    void releasingTwiceFreesOnlyOneSlot() throws InterruptedException {
+        CountDownLatch second = new CountDownLatch(1);
+        scheduler.submit(turn(0, Duration.ofMinutes(1)), release -> {
+            release.run();
+            release.run();
+        }, () -> {});
+        scheduler.submit(turn(0, Duration.ofMinutes(1)), release -> second.countDown(), () -> {});
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+
+        scheduler.submit(turn(0, Duration.ofMinutes(1)), release -> fail("no slot should be free"), () -> {});
+
+        assertEquals(1, scheduler.queuedSteps());
+    }
+
+    @Test
+    void aFailedStepGivesBackItsSlot() throws InterruptedException {
+        CountDownLatch next = new CountDownLatch(1);
+        scheduler.submit(turn(0, Duration.ofMinutes(1)), release -> {
+            throw new IllegalStateException("boom");
+        }, () -> {});
+        scheduler.submit(turn(0, Duration.ofMinutes(1)), release -> next.countDown(), () -> {});
+
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void releasesTheSlotOfAStepThatOutlivesItsTurn() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        CountDownLatch next = new CountDownLatch(1);
+        // Never releases, like a model stream that hangs.
+        scheduler.submit(turn(0, Duration.ofMillis(100)), release -> {}, expired::countDown);
+        scheduler.submit(turn(0, Duration.ofMinutes(1)), release -> next.countDown(), () -> {});
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void doesNotStartAStepWhoseTurnExpiredWhileQueued() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+
+        scheduler.submit(turn(0, Duration.ofMillis(-1)), release -> fail("expired step started"), expired::countDown);
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        CountDownLatch next = new CountDownLatch(1);
+        scheduler.submit(turn(0, Duration.ofMinutes(1)), release -> next.countDown(), () -> {});
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+    }
+
+    private static AgentTurn turn(int steps, Duration timeout) {
+        AgentTurn turn = new AgentTurn(null, null, null, null, "turn", 8, Instant.now().plus(timeout));
+        for (int i = 0; i < steps; i++) turn.nextStep();
+        return turn;
+    }
+}
@@ -0,0 +1,48 @@
+package com.aref.cloud_assistant_mcp.service.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgentTurnTest {
+
+    @Test
+    void runsOutOfStepsAtTheLimit() {
+        AgentTurn turn = turn(2, Duration.ofMinutes(1));
+
+        turn.nextStep();
+        assertTrue(turn.hasStepsLeft());
+        turn.nextStep();
+
+        assertFalse(turn.hasStepsLeft());
+        assertEquals(2, turn.getSteps());
+    }
+
+    @Test
+    void expiresAtItsDeadline() {
+        AgentTurn live = turn(8, Duration.ofMinutes(1));
+        AgentTurn expired = turn(8, Duration.ofSeconds(-1));
+
+        assertFalse(live.isExpired());
+        assertTrue(live.remaining().compareTo(Duration.ofSeconds(50)) > 0);
+        assertTrue(expired.isExpired());
+        assertEquals(Duration.ZERO, expired.remaining());
+    }
+
+    @Test
+    void finishesOnlyOnce() {
+        AgentTurn turn = turn(8, Duration.ofMinutes(1));
+
+        assertFalse(turn.isFinished());
+        assertTrue(turn.finish());
+        assertFalse(turn.finish());
+        assertTrue(turn.isFinished());
+    }
+
+    private static AgentTurn turn(int maxSteps, Duration timeout) {
+        return new AgentTurn(null, null, null, null, "turn", maxSteps, Instant.now().plus(timeout));
+    }
+}
@@ -0,0 +1,78 @@
+package com.aref.cloud_assistant_mcp.service.history;
+
+import com.aref.cloud_assistant_mcp.dto.MessageDto;
+import dev.langchain4j.data.message.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversationContextBuilderTest {
+
+    private static final String TOOL_REQUESTS = """
+            [{"id":"call-1","name":"aws_ec2_list","arguments":"{}"},{"id":"call-2","name":"aws_ec2_describe","arguments":"{}"}]
+            """;
+
+    @Test
+    void keepsNewestMessagesWithinBudget() {
+        ConversationContextBuilder builder = new ConversationContextBuilder(null, null, 40, 200, 8000, false);
+
+        List<MessageDto> newestFirst = List.of(
+                message(4, ChatMessageType.AI, "newest answer"),
+                message(3, ChatMessageType.USER, "newest question"),
+                message(2, ChatMessageType.AI, "x".repeat(400)),
+                message(1, ChatMessageType.USER, "oldest question"));
+
+        LinkedList<ChatMessage> history = builder.build("c1", newestFirst, "system", "latest");
+
+        assertEquals(4, history.size());
+        assertInstanceOf(SystemMessage.class, history.getFirst());
+        assertEquals("newest question", ((UserMessage) history.get(1)).singleText());
+        assertEquals("newest answer", ((AiMessage) history.get(2)).text());
+        assertEquals("latest", ((UserMessage) history.getLast()).singleText());
+    }
+
+    @Test
+    void sendsOnlyToolCallsThatHaveAResult() {
+        ConversationContextBuilder builder = new ConversationContextBuilder(null, null, 6000, 200, 8000, false);
+
+        MessageDto ai = new MessageDto(2L, "c1", "", ChatMessageType.AI, null, null, null,
+                TOOL_REQUESTS, LocalDateTime.now());
+        List<MessageDto> newestFirst = List.of(
+                message(3, ChatMessageType.TOOL_EXECUTION_RESULT, ""),
+                ai,
+                message(1, ChatMessageType.USER, "list my instances"));
+
+        LinkedList<ChatMessage> history = builder.build("c1", newestFirst, "system", "latest");
+
+        assertEquals(5, history.size());
+        AiMessage request = (AiMessage) history.get(2);
+        assertNull(request.text());
+        assertEquals(List.of("call-1"), request.toolExecutionRequests().stream().map(r -> r.id()).toList());
+        assertEquals("call-1", ((ToolExecutionResultMessage) history.get(3)).id());
+    }
+
+    @Test
+    void dropsToolResultsWithoutRequest() {
+        ConversationContextBuilder builder = new ConversationContextBuilder(null, null, 6000, 200, 8000, false);
+
+        List<MessageDto> newestFirst = List.of(
+                message(2, ChatMessageType.TOOL_EXECUTION_RESULT, ""),
+                message(1, ChatMessageType.USER, "question"));
+
+        LinkedList<ChatMessage> history = builder.build("c1", newestFirst, "system", "latest");
+
+        assertEquals(3, history.size());
+        assertTrue(history.stream().noneMatch(ToolExecutionResultMessage.class::isInstance));
+    }
+
+    private static MessageDto message(long id, ChatMessageType type, String content) {
+        boolean tool = type == ChatMessageType.TOOL_EXECUTION_RESULT;
+        return new MessageDto(id, "c1", content, type,
+                tool ? "call-1" : null, tool ? "aws_ec2_list" : null, tool ? "[]" : null,
+                null, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,234 @@
+package com.aref.cloud_assistant_mcp.service.tools;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.ec2.Ec2ServiceClientConfiguration;
+import software.amazon.awssdk.services.ec2.model.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AWSEc2ToolsTest {
+
+    // Real default methods, so the SDK's paginator drives the stubbed describeInstances.
+    private final Ec2AsyncClient ec2 = mock(Ec2AsyncClient.class, CALLS_REAL_METHODS);
+    private final Ec2AsyncClient euWest = mock(Ec2AsyncClient.class, CALLS_REAL_METHODS);
+    private final AwsToolResultCache cache = mock(AwsToolResultCache.class);
+    private final Ec2RegionClients regionClients = new Ec2RegionClients(ec2, region -> euWest, Duration.ofSeconds(1));
+    private final AWSEc2Tools tools = new AWSEc2Tools(ec2, regionClients, cache);
+
+    @BeforeEach
+    void setUp() {
+        doReturn(Ec2ServiceClientConfiguration.builder().region(Region.US_EAST_1).build()).when(ec2).serviceClientConfiguration();
+        doReturn(Ec2ServiceClientConfiguration.builder().region(Region.EU_WEST_1).build()).when(euWest).serviceClientConfiguration();
+        when(cache.get(any(), any(), any(), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(4)).get());
+    }
+
+    @Test
+    void listStopsAtTheLimitAndReturnsTheCursor() {
+        doReturn(page(0, 20, "token-2")).when(ec2).describeInstances(any(DescribeInstancesRequest.class));
+
+        Map<String, Object> result = tools.aws_ec2_list(null, 20, null, "instanceType", null, null).join();
+
+        assertEquals(true, result.get("ok"));
+        assertEquals(20, result.get("count"));
+        assertEquals("token-2", result.get("nextToken"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> first = ((List<Map<String, Object>>) result.get("instances")).getFirst();
+        assertEquals(List.of("instanceId", "instanceType"), List.copyOf(first.keySet()));
+
+        ArgumentCaptor<DescribeInstancesRequest> request = ArgumentCaptor.forClass(DescribeInstancesRequest.class);
+        verify(ec2, times(1)).describeInstances(request.capture());
+        assertEquals(20, request.getValue().maxResults());
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        Map<String, Object> result = tools.aws_ec2_list(null, null, null, "instanceId,password", null, null).join();
+
+        assertEquals(false, result.get("ok"));
+        verify(ec2, never()).describeInstances(any(DescribeInstancesRequest.class));
+    }
+
+    @Test
+    void summaryCountsEveryPage() {
+        doReturn(page(0, 1000, "token-2"), page(1000, 500, null)).when(ec2).describeInstances(any(DescribeInstancesRequest.class));
+
+        Map<String, Object> result = tools.aws_ec2_list(null, null, null, null, "summary", null).join();
+
+        assertEquals(1500, result.get("total"));
+        assertEquals(Map.of("running", 1500), result.get("byState"));
+        assertFalse(result.containsKey("instances"));
+    }
+
+    @Test
+    void fanOutKeepsTheRegionsThatAnswered() {
+        doReturn(page(0, 10, null)).when(ec2).describeInstances(any(DescribeInstancesRequest.class));
+        doReturn(new CompletableFuture<DescribeInstancesResponse>()).when(euWest).describeInstances(any(DescribeInstancesRequest.class));
+
+        Map<String, Object> result = tools.aws_ec2_list(null, null, null, null, "SUMMARY", "us-east-1, eu-west-1").join();
+
+        assertEquals(true, result.get("ok"));
+        assertEquals(10, result.get("total"));
+        assertEquals(Map.of("us-east-1", 10), result.get("byRegion"));
+        assertEquals(Map.of("eu-west-1", "Timed out after 1s"), result.get("failedRegions"));
+    }
+
+    @Test
+    void rejectsACursorAcrossRegions() {
+        Map<String, Object> result = tools.aws_ec2_list(null, null, "token-2", null, null, "us-east-1,eu-west-1").join();
+
+        assertEquals(false, result.get("ok"));
+        verify(ec2, never()).describeInstances(any(DescribeInstancesRequest.class));
+    }
+
+    @Test
+    void describeFindsTheInstanceInAnyRegion() {
+        doReturn(CompletableFuture.failedFuture(Ec2Exception.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("InvalidInstanceID.NotFound").build())
+                .build()))
+                .when(ec2).describeInstances(any(DescribeInstancesRequest.class));
+        doReturn(page(7, 1, null)).when(euWest).describeInstances(any(DescribeInstancesRequest.class));
+
+        Map<String, Object> result = tools.aws_ec2_describe("i-7", "us-east-1,eu-west-1").join();
+
+        assertEquals(true, result.get("ok"));
+        assertEquals("i-7", result.get("instanceId"));
+        assertEquals("eu-west-1", result.get("region"));
+        assertEquals(Map.of(), result.get("failedRegions"));
+    }
+
+    @Test
+    void bulkStopSendsOneCallPerChunk() {
+        doAnswer(invocation -> {
+            StopInstancesRequest request = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(StopInstancesResponse.builder()
+                    .stoppingInstances(request.instanceIds().stream().map(id -> stateChange(id, InstanceStateName.STOPPING)).toList())
+                    .build());
+        }).when(ec2).stopInstances(any(StopInstancesRequest.class));
+        String ids = IntStream.range(0, 250).mapToObj(i -> "i-" + i).collect(Collectors.joining(","));
+
+        Map<String, Object> result = tools.aws_ec2_bulk_lifecycle("stop", ids, null, null, null).join();
+
+        assertEquals(true, result.get("ok"));
+        assertEquals(250L, result.get("succeeded"));
+        verify(ec2, times(3)).stopInstances(any(StopInstancesRequest.class));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> last = ((List<Map<String, Object>>) result.get("instances")).getLast();
+        assertEquals("i-249", last.get("instanceId"));
+        assertEquals("stopping", last.get("instanceState"));
+    }
+
+    @Test
+    void bulkRetriesAFailedChunkOneInstanceAtATime() {
+        doAnswer(invocation -> {
+            TerminateInstancesRequest request = invocation.getArgument(0);
+            if (request.instanceIds().contains("i-bad")) {
+                return CompletableFuture.failedFuture(Ec2Exception.builder()
+                        .awsErrorDetails(AwsErrorDetails.builder().errorCode("InvalidInstanceID.NotFound").errorMessage("Invalid id: i-bad").build())
+                        .build());
+            }
+            return CompletableFuture.completedFuture(TerminateInstancesResponse.builder()
+                    .terminatingInstances(request.instanceIds().stream().map(id -> stateChange(id, InstanceStateName.SHUTTING_DOWN)).toList())
+                    .build());
+        }).when(ec2).terminateInstances(any(TerminateInstancesRequest.class));
+
+        Map<String, Object> result = tools.aws_ec2_bulk_lifecycle("TERMINATE", "i-1, i-bad, i-2", null, null, null).join();
+
+        assertEquals(2L, result.get("succeeded"));
+        assertEquals(1L, result.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> instances = (List<Map<String, Object>>) result.get("instances");
+        assertEquals(List.of("i-1", "i-bad", "i-2"), instances.stream().map(i -> i.get("instanceId")).toList());
+        assertEquals("Invalid id: i-bad", instances.get(1).get("error"));
+        verify(ec2, times(4)).terminateInstances(any(TerminateInstancesRequest.class));
+    }
+
+    @Test
+    void bulkFailsAThrottledChunkWithoutRetryingEachInstance() {
+        doReturn(CompletableFuture.failedFuture(Ec2Exception.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("RequestLimitExceeded").errorMessage("Request limit exceeded.").build())
+                .build())).when(ec2).stopInstances(any(StopInstancesRequest.class));
+
+        Map<String, Object> result = tools.aws_ec2_bulk_lifecycle("STOP", "i-1,i-2,i-3", null, null, null).join();
+
+        assertEquals(false, result.get("ok"));
+        assertEquals(3L, result.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> instances = (List<Map<String, Object>>) result.get("instances");
+        assertTrue(instances.stream().allMatch(i -> "Request limit exceeded.".equals(i.get("error"))));
+        verify(ec2, times(1)).stopInstances(any(StopInstancesRequest.class));
+    }
+
+    @Test
+    void bulkNeedsExactlyOneSelector() {
+        assertEquals(false, tools.aws_ec2_bulk_lifecycle("START", null, null, null, null).join().get("ok"));
+        assertEquals(false, tools.aws_ec2_bulk_lifecycle("START", "i-1", "Env=dev", null, null).join().get("ok"));
+        assertEquals(false, tools.aws_ec2_bulk_tag("Env", "dev", null, "Env").join().get("ok"));
+        verify(ec2, never()).describeInstances(any(DescribeInstancesRequest.class));
+    }
+
+    @Test
+    void bulkTerminateByTagsOnlyPreviews() {
+        doReturn(page(0, 3, null)).when(ec2).describeInstances(any(DescribeInstancesRequest.class));
+
+        assertEquals(false, tools.aws_ec2_bulk_lifecycle("TERMINATE", null, "Env=dev", null, null).join().get("ok"));
+        Map<String, Object> preview = tools.aws_ec2_bulk_lifecycle("TERMINATE", null, "Env=dev", null, true).join();
+
+        assertEquals(true, preview.get("ok"));
+        assertEquals(List.of("i-0", "i-1", "i-2"), preview.get("instanceIds"));
+        verify(ec2, never()).terminateInstances(any(TerminateInstancesRequest.class));
+    }
+
+    @Test
+    void bulkReportsInstancesEc2DidNotConfirm() {
+        doReturn(CompletableFuture.completedFuture(StartInstancesResponse.builder()
+                .startingInstances(stateChange("i-1", InstanceStateName.PENDING))
+                .build())).when(ec2).startInstances(any(StartInstancesRequest.class));
+
+        Map<String, Object> result = tools.aws_ec2_bulk_lifecycle("START", "i-1,i-2", null, null, null).join();
+
+        assertEquals(1L, result.get("succeeded"));
+        assertEquals(1L, result.get("unconfirmed"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> missing = ((List<Map<String, Object>>) result.get("instances")).get(1);
+        assertEquals(false, missing.get("ok"));
+        assertEquals(true, missing.get("unconfirmed"));
+    }
+
+    private static InstanceStateChange stateChange(String instanceId, InstanceStateName state) {
+        return InstanceStateChange.builder()
+                .instanceId(instanceId)
+                .previousState(InstanceState.builder().name(InstanceStateName.RUNNING).build())
+                .currentState(InstanceState.builder().name(state).build())
+                .build();
+    }
+
+    private static CompletableFuture<DescribeInstancesResponse> page(int from, int count, String nextToken) {
+        List<Instance> instances = IntStream.range(from, from + count)
+                .mapToObj(i -> Instance.builder()
+                        .instanceId("i-" + i)
+                        .instanceType(InstanceType.T3_MICRO)
+                        .state(InstanceState.builder().name(InstanceStateName.RUNNING).build())
+                        .placement(Placement.builder().availabilityZone("us-east-1a").build())
+                        .build())
+                .toList();
+        return CompletableFuture.completedFuture(DescribeInstancesResponse.builder()
+                .reservations(Reservation.builder().instances(instances).build())
+                .nextToken(nextToken)
+                .build());
+    }
+}
@@ -0,0 +1,102 @@
+package com.aref.cloud_assistant_mcp.service.tools;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import software.amazon.awssdk.services.sts.StsClient;
+import software.amazon.awssdk.services.sts.model.GetCallerIdentityRequest;
+import software.amazon.awssdk.services.sts.model.GetCallerIdentityResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AwsToolResultCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AwsToolResultCache cache = new AwsToolResultCache(new MockEnvironment(), sts(), now::get);
+
+    @BeforeEach
+    void resolveAccount() {
+        // The account is looked up in the background; wait for it so calls below run in the order written.
+        cache.get("uncached_tool", "us-east-1", "ec2", List.of(), () -> CompletableFuture.completedFuture("ok")).join();
+    }
+
+    @Test
+    void servesTheCachedResultUntilItsTtlExpires() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<CompletableFuture<Map<String, Object>>> loader = () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(Map.of("ok", true));
+        };
+
+        list(loader);
+        now.addAndGet(29_000);
+        list(loader);
+        assertEquals(1, loads.get());
+
+        now.addAndGet(2_000);
+        list(loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void doesNotCacheALoadThatRacedAnInvalidation() {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<Map<String, Object>> inFlight = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> stale = cache.get("aws_ec2_list", "us-east-1", "ec2", List.of(), () -> {
+            loads.incrementAndGet();
+            return inFlight;
+        });
+
+        cache.invalidate("us-east-1", "ec2");
+        inFlight.complete(Map.of("ok", true, "state", "running"));
+        assertEquals("running", stale.join().get("state"));
+
+        Map<String, Object> fresh = list(() -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(Map.of("ok", true, "state", "stopped"));
+        });
+        assertEquals("stopped", fresh.get("state"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void doesNotCacheErrors() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<CompletableFuture<Map<String, Object>>> failing = () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(Map.of("ok", false, "error", "throttled"));
+        };
+        Supplier<CompletableFuture<Map<String, Object>>> throwing = () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("timeout"));
+        };
+
+        list(failing);
+        list(failing);
+        assertThrows(Exception.class, () -> list(throwing));
+        assertThrows(Exception.class, () -> list(throwing));
+
+        assertEquals(4, loads.get());
+    }
+
+    private Map<String, Object> list(Supplier<CompletableFuture<Map<String, Object>>> loader) {
+        return cache.get("aws_ec2_list", "us-east-1", "ec2", List.of(), loader).join();
+    }
+
+    private static StsClient sts() {
+        StsClient sts = mock(StsClient.class);
+        when(sts.getCallerIdentity()).thenReturn(GetCallerIdentityResponse.builder().account("123456789012").build());
+        when(sts.getCallerIdentity(any(GetCallerIdentityRequest.class)))
+                .thenReturn(GetCallerIdentityResponse.builder().account("123456789012").build());
+        return sts;
+    }
+}
@@ -0,0 +1,127 @@
+package com.aref.cloud_assistant_mcp.service.tools;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.sts.StsClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.testcontainers.containers.localstack.LocalStackContainer.Service.*;
+
+/**
+ * Runs the async AWS tools through the tool invoker against LocalStack.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class AwsToolsLocalStackTest {
+
+    @Container
+    static final LocalStackContainer LOCALSTACK = new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.8"))
+            .withServices(S3, EC2, STS);
+
+    private static S3AsyncClient s3;
+    private static Ec2AsyncClient ec2;
+    private static StsClient sts;
+    private static S3Presigner presigner;
+    private static final Map<String, Ec2AsyncClient> regionalClients = new ConcurrentHashMap<>();
+    private static AsyncToolInvoker invoker;
+
+    @BeforeAll
+    static void setUp() {
+        Region region = Region.of(LOCALSTACK.getRegion());
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(LOCALSTACK.getAccessKey(), LOCALSTACK.getSecretKey()));
+
+        s3 = S3AsyncClient.builder().endpointOverride(LOCALSTACK.getEndpoint()).region(region)
+                .credentialsProvider(credentials).forcePathStyle(true).build();
+        ec2 = Ec2AsyncClient.builder().endpointOverride(LOCALSTACK.getEndpoint()).region(region)
+                .credentialsProvider(credentials).build();
+        sts = StsClient.builder().endpointOverride(LOCALSTACK.getEndpoint()).region(region)
+                .credentialsProvider(credentials).build();
+        presigner = S3Presigner.builder().region(region).credentialsProvider(credentials).build();
+
+        Ec2RegionClients regionClients = new Ec2RegionClients(ec2, other -> regionalClients.computeIfAbsent(other,
+                r -> Ec2AsyncClient.builder().endpointOverride(LOCALSTACK.getEndpoint()).region(Region.of(r))
+                        .credentialsProvider(credentials).build()), Duration.ofSeconds(10));
+
+        AwsToolResultCache cache = new AwsToolResultCache(new MockEnvironment(), sts);
+        invoker = new AsyncToolInvoker(List.of(new AWSS3Tools(s3, presigner, cache),
+                new AWSEc2Tools(ec2, regionClients, cache)));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        s3.close();
+        ec2.close();
+        regionalClients.values().forEach(Ec2AsyncClient::close);
+        sts.close();
+        presigner.close();
+    }
+
+    @Test
+    void s3ToolsRoundTrip() {
+        assertTrue(invoke("aws_s3_create_bucket", "{\"bucket\":\"tools-test\"}").contains("\"ok\":true"));
+        assertTrue(invoke("aws_s3_list_buckets", "{}").contains("tools-test"));
+
+        s3.putObject(b -> b.bucket("tools-test").key("a.txt"), AsyncRequestBody.fromString("hello")).join();
+
+        assertTrue(invoke("aws_s3_head_object", "{\"bucket\":\"tools-test\",\"key\":\"a.txt\"}").contains("\"contentLength\":5"));
+        assertTrue(invoke("aws_s3_head_object", "{\"bucket\":\"tools-test\",\"key\":\"missing.txt\"}").contains("Object not found."));
+    }
+
+    @Test
+    void ec2ListPagesAndSummarizes() {
+        String imageId = ec2.describeImages(b -> b.maxResults(5)).join().images().getFirst().imageId();
+        ec2.runInstances(b -> b.imageId(imageId).instanceType("t3.micro").minCount(12).maxCount(12)).join();
+
+        String page = invoke("aws_ec2_list", "{\"limit\":5,\"fields\":\"instanceState\"}");
+        assertTrue(page.contains("\"isTruncated\":true"), page);
+        assertFalse(page.contains("imageId"), page);
+
+        String summary = invoke("aws_ec2_list", "{\"mode\":\"SUMMARY\"}");
+        assertTrue(summary.contains("\"total\":12"), summary);
+
+        String regions = invoke("aws_ec2_list", "{\"mode\":\"SUMMARY\",\"regions\":\"" + LOCALSTACK.getRegion() + ",eu-west-1\"}");
+        assertTrue(regions.contains("\"total\":12"), regions);
+        assertTrue(regions.contains("\"eu-west-1\":0"), regions);
+    }
+
+    @Test
+    void servesManyConcurrentCallsWithoutAThreadEach() {
+        s3.createBucket(b -> b.bucket("concurrency-test")).join();
+
+        List<CompletableFuture<String>> calls = IntStream.range(0, 200)
+                .mapToObj(i -> invoker.invoke(request("aws_s3_list_objects",
+                        "{\"bucket\":\"concurrency-test\",\"prefix\":\"p" + i + "/\"}")))
+                .toList();
+
+        calls.forEach(call -> assertTrue(call.join().contains("\"ok\":true")));
+    }
+
+    private static String invoke(String tool, String arguments) {
+        return invoker.invoke(request(tool, arguments)).join();
+    }
+
+    private static ToolExecutionRequest request(String tool, String arguments) {
+        return ToolExecutionRequest.builder().id(tool).name(tool).arguments(arguments).build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.aref.cloud_assistant_mcp.views.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalMarkdownRendererTest {
+
+    @Test
+    void closesBlockOnBlankLine() {
+        IncrementalMarkdownRenderer renderer = new IncrementalMarkdownRenderer();
+
+        IncrementalMarkdownRenderer.Update first = renderer.append("# Tit");
+        assertTrue(first.closedBlocks().isEmpty());
+        assertTrue(first.openBlockHtml().contains("<h1>Tit</h1>"));
+
+        IncrementalMarkdownRenderer.Update second = renderer.append("le\n\nSome **bold**");
+        assertEquals(1, second.closedBlocks().size());
+        assertTrue(second.closedBlocks().getFirst().contains("<h1>Title</h1>"));
+        assertTrue(second.openBlockHtml().contains("<strong>bold</strong>"));
+        assertFalse(second.openBlockHtml().contains("Title"));
+    }
+
+    @Test
+    void keepsFencedCodeBlockOpenAcrossBlankLines() {
+        IncrementalMarkdownRenderer renderer = new IncrementalMarkdownRenderer();
+
+        IncrementalMarkdownRenderer.Update open = renderer.append("```java\nint a;\n\nint b;\n");
+        assertTrue(open.closedBlocks().isEmpty());
+
+        IncrementalMarkdownRenderer.Update closed = renderer.append("```\n\nafter");
+        assertEquals(1, closed.closedBlocks().size());
+        assertTrue(closed.closedBlocks().getFirst().contains("int b;"));
+        assertTrue(closed.openBlockHtml().contains("after"));
+    }
+
+    @Test
+    void matchesFullRenderOfSimpleReply() {
+        String markdown = "Intro line\n\n- one\n- two\n\nOutro";
+
+        assertEquals(MarkdownUtil.toHtml(markdown), renderStreamed(markdown));
+    }
+
+    @Test
+    void keepsALongerFenceOpenAcrossAShorterInnerFence() {
+        String markdown = "````markdown\n```java\nint a;\n\n```\n````\n\nafter";
+        IncrementalMarkdownRenderer renderer = new IncrementalMarkdownRenderer();
+
+        IncrementalMarkdownRenderer.Update inner = renderer.append("````markdown\n```java\nint a;\n\n```\n\nint b;\n");
+        assertTrue(inner.closedBlocks().isEmpty());
+
+        assertEquals(MarkdownUtil.toHtml(markdown), renderStreamed(markdown));
+    }
+
+    @Test
+    void keepsALooseListInOneList() {
+        String markdown = "Steps:\n\n- one\n\n- two\n  continued\n\n    indented\n\n1. first\n\n2. second\n\nDone";
+
+        String html = renderStreamed(markdown);
+
+        assertEquals(MarkdownUtil.toHtml(markdown), html);
+        assertEquals(1, html.split("<ul>", -1).length - 1);
+    }
+
+    @Test
+    void keepsAReferenceLinkWithItsDefinition() {
+        String markdown = "See the [EC2 docs][ec2].\n\n[ec2]: https://docs.aws.amazon.com/ec2/\n\nThanks";
+
+        String html = renderStreamed(markdown);
+
+        assertEquals(MarkdownUtil.toHtml(markdown), html);
+        assertTrue(html.contains("href=\"https://docs.aws.amazon.com/ec2/\""), html);
+    }
+
+    /**
+     * Streams the reply one character at a time and joins the closed blocks with the final open block.
+     */
+    private static String renderStreamed(String markdown) {
+        IncrementalMarkdownRenderer renderer = new IncrementalMarkdownRenderer();
+        StringBuilder html = new StringBuilder();
+        for (char c : markdown.toCharArray()) {
+            IncrementalMarkdownRenderer.Update update = renderer.append(String.valueOf(c));
+            update.closedBlocks().forEach(html::append);
+        }
+        return html.append(renderer.append("").openBlockHtml()).toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.aref.cloud_assistant_mcp.views.utils;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StreamCoalescerTest {
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final ScheduledFuture<?> scheduled = mock(ScheduledFuture.class);
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> frames = new ArrayList<>();
+    private final List<Runnable> acknowledgements = new ArrayList<>();
+    private final StreamCoalescer coalescer = new StreamCoalescer(scheduler, Duration.ofMillis(20), Duration.ofMillis(200),
+            8, (text, acknowledge) -> {
+                frames.add(text);
+                acknowledgements.add(acknowledge);
+            }, now::get);
+
+    StreamCoalescerTest() {
+        doReturn(scheduled).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void flushesOneFramePerInterval() {
+        coalescer.offer("Hel");
+        coalescer.offer("lo");
+
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(1)).schedule(flush.capture(), eq(Duration.ofMillis(20).toNanos()), eq(TimeUnit.NANOSECONDS));
+        assertTrue(frames.isEmpty());
+
+        flush.getValue().run();
+
+        assertEquals(List.of("Hello"), frames);
+    }
+
+    @Test
+    void flushesRightAwayOnceTheBufferIsFull() {
+        coalescer.offer("Hello");
+        coalescer.offer(", world");
+
+        assertEquals(List.of("Hello, world"), frames);
+        verify(scheduled).cancel(false);
+
+        coalescer.offer("!");
+        verify(scheduler, times(2)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void followsTheSmoothedAcknowledgementTime() {
+        assertEquals(Duration.ofMillis(100), frameAcknowledgedAfter(100));
+        // 100 + 0.2 * (200 - 100)
+        assertEquals(Duration.ofMillis(120), frameAcknowledgedAfter(200));
+
+        for (int i = 0; i < 30; i++) frameAcknowledgedAfter(1_000);
+        assertEquals(Duration.ofMillis(200), coalescer.currentInterval());
+
+        for (int i = 0; i < 30; i++) frameAcknowledgedAfter(1);
+        assertEquals(Duration.ofMillis(20), coalescer.currentInterval());
+    }
+
+    @Test
+    void schedulesTheNextFrameWithTheAdaptedInterval() {
+        frameAcknowledgedAfter(100);
+
+        coalescer.offer("next");
+
+        verify(scheduler).schedule(any(Runnable.class), eq(Duration.ofMillis(100).toNanos()), eq(TimeUnit.NANOSECONDS));
+    }
+
+    private Duration frameAcknowledgedAfter(long millis) {
+        coalescer.offer("chunk");
+        coalescer.flush();
+        now.addAndGet(Duration.ofMillis(millis).toNanos());
+        acknowledgements.getLast().run();
+        return coalescer.currentInterval();
+    }
+}